@@ -0,0 +1,75 @@
+package com.onafriq.paylite.service.paylite_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded in-process cache of stored idempotency keys.
+ * The stored response for a key never changes, so replays can be answered without reading idempotency_keys.
+ * Hit, miss and eviction counters are published as the "idempotency" cache metrics.
+ */
+@Component
+public class IdempotencyCache {
+
+    private final Cache<String, CachedIdempotencyKey> cache;
+
+    @Autowired
+    public IdempotencyCache(@Value("${app.idempotency.cache.max-size:10000}") long maxSize,
+                            @Value("${app.idempotency.cache.ttl:PT10M}") Duration ttl,
+                            MeterRegistry meterRegistry) {
+        this(maxSize, ttl, meterRegistry, Ticker.systemTicker());
+    }
+
+    IdempotencyCache(long maxSize, Duration ttl, MeterRegistry meterRegistry, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "idempotency");
+    }
+
+    public Optional<CachedIdempotencyKey> get(String idempotencyKey) {
+        return Optional.ofNullable(cache.getIfPresent(idempotencyKey));
+    }
+
+    public void put(String idempotencyKey, String requestHash, String responseBody) {
+        cache.put(idempotencyKey, new CachedIdempotencyKey(requestHash, responseBody));
+    }
+
+    /**
+     * Caches the key once the surrounding transaction commits, so a rolled back insert is never replayed.
+     */
+    public void putAfterCommit(String idempotencyKey, String requestHash, String responseBody) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(idempotencyKey, requestHash, responseBody);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(idempotencyKey, requestHash, responseBody);
+            }
+        });
+    }
+
+    public void invalidate(String idempotencyKey) {
+        cache.invalidate(idempotencyKey);
+    }
+
+    public record CachedIdempotencyKey(String requestHash, String responseBody) {
+    }
+}
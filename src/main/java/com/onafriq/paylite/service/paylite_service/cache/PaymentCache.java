@@ -0,0 +1,106 @@
+package com.onafriq.paylite.service.paylite_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
+import com.onafriq.paylite.service.paylite_service.enums.PaymentStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * Read-through cache of payment status responses, keyed by paymentId.
+ * Payments in a final status never change again and are kept for final-ttl; PENDING payments are
+ * kept only for pending-ttl so pollers see the webhook outcome quickly even on other instances.
+ * Hit and miss counters are published as the "payments" cache metrics, plus a hit ratio gauge.
+ */
+@Component
+public class PaymentCache {
+
+    private final Cache<String, PaymentResponse> cache;
+
+    @Autowired
+    public PaymentCache(@Value("${app.payments.cache.max-size:50000}") long maxSize,
+                        @Value("${app.payments.cache.final-ttl:PT1H}") Duration finalTtl,
+                        @Value("${app.payments.cache.pending-ttl:PT2S}") Duration pendingTtl,
+                        MeterRegistry meterRegistry) {
+        this(maxSize, finalTtl, pendingTtl, meterRegistry, Ticker.systemTicker());
+    }
+
+    PaymentCache(long maxSize, Duration finalTtl, Duration pendingTtl, MeterRegistry meterRegistry, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new StatusExpiry(finalTtl.toNanos(), pendingTtl.toNanos()))
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "payments");
+        Gauge.builder("paylite.payment.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of payment status reads answered from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached response, or loads and caches it. Exceptions from the loader are not cached.
+     */
+    public PaymentResponse get(String paymentId, Function<String, PaymentResponse> loader) {
+        return cache.get(paymentId, loader);
+    }
+
+    /**
+     * Peeks at the cached response without loading it or counting towards the hit ratio.
+     */
+    public PaymentResponse getIfPresent(String paymentId) {
+        return cache.policy().getIfPresentQuietly(paymentId);
+    }
+
+    public void invalidate(String paymentId) {
+        cache.invalidate(paymentId);
+    }
+
+    /**
+     * Drops the entry now and again once the surrounding transaction commits, so a read that
+     * loaded the old status while the update was in flight is not kept.
+     */
+    public void invalidateAfterCommit(String paymentId) {
+        invalidate(paymentId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidate(paymentId);
+            }
+        });
+    }
+
+    private record StatusExpiry(long finalTtlNanos, long pendingTtlNanos) implements Expiry<String, PaymentResponse> {
+
+        @Override
+        public long expireAfterCreate(String paymentId, PaymentResponse response, long currentTime) {
+            return PaymentStatus.PENDING.toString().equals(response.getStatus()) ? pendingTtlNanos : finalTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String paymentId, PaymentResponse response, long currentTime, long currentDuration) {
+            return expireAfterCreate(paymentId, response, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String paymentId, PaymentResponse response, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
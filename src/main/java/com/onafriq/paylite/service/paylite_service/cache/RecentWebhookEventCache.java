@@ -0,0 +1,93 @@
+package com.onafriq.paylite.service.paylite_service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Bounded in-process record of recently processed webhooks, keyed by PSP event ID and by
+ * (paymentId, eventType), holding the raw payload that was applied.
+ * PSP retries usually arrive within minutes, so most duplicates are answered here without reading
+ * webhook_events. A miss proves nothing; the database check still decides.
+ * Hit and miss counters are published as the "webhook_events" cache metrics.
+ */
+@Component
+public class RecentWebhookEventCache {
+
+    private final Cache<String, String> cache;
+
+    @Autowired
+    public RecentWebhookEventCache(@Value("${app.webhooks.recent-events.max-size:100000}") long maxSize,
+                                   @Value("${app.webhooks.recent-events.ttl:PT1H}") Duration ttl,
+                                   MeterRegistry meterRegistry) {
+        this(maxSize, ttl, meterRegistry, Ticker.systemTicker());
+    }
+
+    RecentWebhookEventCache(long maxSize, Duration ttl, MeterRegistry meterRegistry, Ticker ticker) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "webhook_events");
+    }
+
+    /**
+     * Payload of a recent webhook with the same PSP event ID, or else the same payment and event type.
+     *
+     * @param eventId the PSP event ID, or null if the PSP sent none
+     */
+    public Optional<String> findPayload(String eventId, String paymentId, String eventType) {
+        if (eventId != null) {
+            String payload = cache.getIfPresent(eventIdKey(eventId));
+            if (payload != null) {
+                return Optional.of(payload);
+            }
+        }
+        return Optional.ofNullable(cache.getIfPresent(businessKey(paymentId, eventType)));
+    }
+
+    public void put(String eventId, String paymentId, String eventType, String rawPayload) {
+        if (eventId != null) {
+            cache.put(eventIdKey(eventId), rawPayload);
+        }
+        cache.put(businessKey(paymentId, eventType), rawPayload);
+    }
+
+    /**
+     * Records the webhook once the surrounding transaction commits, so a rolled back event is never
+     * treated as a duplicate.
+     */
+    public void putAfterCommit(String eventId, String paymentId, String eventType, String rawPayload) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            put(eventId, paymentId, eventType, rawPayload);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                put(eventId, paymentId, eventType, rawPayload);
+            }
+        });
+    }
+
+    private static String eventIdKey(String eventId) {
+        return "id:" + eventId;
+    }
+
+    private static String businessKey(String paymentId, String eventType) {
+        return "key:" + paymentId + "|" + eventType;
+    }
+}
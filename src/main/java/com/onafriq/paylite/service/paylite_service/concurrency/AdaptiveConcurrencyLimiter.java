@@ -0,0 +1,153 @@
+package com.onafriq.paylite.service.paylite_service.concurrency;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Caps the requests being handled at once with a limit that adapts to observed latency (AIMD).
+ * While requests finish within app.concurrency.latency-threshold and the limit is in use, it grows by
+ * about one per limit's worth of requests; a slower request cuts it by a fifth, at most once per
+ * threshold since requests that overlapped the same spike all report it. Past the limit requests are
+ * refused straight away rather than queued, so when the database slows down the few pooled connections
+ * are not waited on by every server thread.
+ * <p>
+ * Lower priorities may only fill part of the limit (see RequestPriority). The limit, the requests in
+ * flight and the refusals per priority are published as paylite.concurrency.* metrics.
+ */
+@Component
+public class AdaptiveConcurrencyLimiter {
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveConcurrencyLimiter.class);
+
+    private static final double BACKOFF_RATIO = 0.8;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final LongSupplier nanoClock;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final EnumMap<RequestPriority, Counter> rejected = new EnumMap<>(RequestPriority.class);
+
+    // Guarded by this; limit is its published floor
+    private double estimate;
+    private long lastDecreaseAt;
+    private volatile int limit;
+
+    @Autowired
+    public AdaptiveConcurrencyLimiter(@Value("${app.concurrency.initial-limit:10}") int initialLimit,
+                                      @Value("${app.concurrency.min-limit:2}") int minLimit,
+                                      @Value("${app.concurrency.max-limit:50}") int maxLimit,
+                                      @Value("${app.concurrency.latency-threshold:PT0.5S}") Duration latencyThreshold,
+                                      MeterRegistry meterRegistry) {
+        this(initialLimit, minLimit, maxLimit, latencyThreshold, meterRegistry, System::nanoTime);
+    }
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, Duration latencyThreshold,
+                               MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException(
+                    "app.concurrency limits must satisfy 1 <= min-limit <= initial-limit <= max-limit");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThreshold.toNanos();
+        this.nanoClock = nanoClock;
+        this.estimate = initialLimit;
+        this.limit = initialLimit;
+        this.lastDecreaseAt = nanoClock.getAsLong() - latencyThresholdNanos;
+
+        Gauge.builder("paylite.concurrency.limit", this, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Requests the adaptive concurrency limiter lets run at once")
+                .register(meterRegistry);
+        Gauge.builder("paylite.concurrency.in.flight", inFlight, AtomicInteger::get)
+                .description("Requests currently admitted by the adaptive concurrency limiter")
+                .register(meterRegistry);
+        for (RequestPriority priority : RequestPriority.values()) {
+            rejected.put(priority, Counter.builder("paylite.concurrency.rejected")
+                    .description("Requests shed because the concurrency limit was reached")
+                    .tag("priority", priority.name().toLowerCase(Locale.ROOT))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Admits a request of the given priority if its share of the limit is not used up. An admitted
+     * request must be released exactly once.
+     *
+     * @return false if the request should be shed
+     */
+    public boolean tryAcquire(RequestPriority priority) {
+        int allowance = priority.allowance(limit);
+        while (true) {
+            int current = inFlight.get();
+            if (current >= allowance) {
+                rejected.get(priority).increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases an admitted request and adapts the limit to how long it took.
+     */
+    public void release(long latencyNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (inFlightBefore * 2 >= limit) {
+            // Only a limit that is actually in use has shown it can be raised
+            increase();
+        }
+    }
+
+    /**
+     * Releases an admitted request without a latency sample, e.g. one that went asynchronous.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void increase() {
+        if (estimate < maxLimit) {
+            estimate = Math.min(maxLimit, estimate + 1.0 / estimate);
+            limit = (int) estimate;
+        }
+    }
+
+    private synchronized void decrease() {
+        long now = nanoClock.getAsLong();
+        if (now - lastDecreaseAt < latencyThresholdNanos) {
+            return;
+        }
+        lastDecreaseAt = now;
+        int previous = limit;
+        estimate = Math.max(minLimit, estimate * BACKOFF_RATIO);
+        limit = (int) estimate;
+        if (limit != previous) {
+            logger.info("Requests slower than {} ms, concurrency limit lowered from {} to {}",
+                    latencyThresholdNanos / 1_000_000, previous, limit);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.onafriq.paylite.service.paylite_service.concurrency;
+
+import com.onafriq.paylite.service.paylite_service.exception.IdempotencyConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Registry of requests currently being processed, keyed by Idempotency-Key.
+ * The first request for a key runs; concurrent duplicates wait for its result and share it
+ * instead of racing it to the idempotency_keys unique constraint.
+ */
+@Component
+public class InFlightRequestRegistry {
+    private static final Logger logger = LoggerFactory.getLogger(InFlightRequestRegistry.class);
+
+    private final ConcurrentHashMap<String, InFlightRequest> inFlight = new ConcurrentHashMap<>();
+    private final Duration waitTimeout;
+
+    public InFlightRequestRegistry(@Value("${app.idempotency.in-flight-timeout:PT30S}") Duration waitTimeout) {
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * Runs the action for the given key, or waits for the in-flight run of the same key and returns its result.
+     *
+     * @throws IdempotencyConflictException if the in-flight request has a different request hash,
+     *                                      or does not finish within the wait timeout
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String idempotencyKey, String requestHash, Supplier<T> action) {
+        InFlightRequest mine = new InFlightRequest(requestHash);
+        InFlightRequest existing = inFlight.putIfAbsent(idempotencyKey, mine);
+
+        if (existing != null) {
+            if (!existing.requestHash.equals(requestHash)) {
+                throw new IdempotencyConflictException("Idempotency-Key already used with different request");
+            }
+            logger.info("Waiting for in-flight request with the same Idempotency-Key");
+            return (T) await(existing);
+        }
+
+        try {
+            T result = action.get();
+            mine.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(idempotencyKey, mine);
+        }
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    private Object await(InFlightRequest existing) {
+        try {
+            return existing.result.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException("In-flight request failed", e.getCause());
+        } catch (TimeoutException e) {
+            throw new IdempotencyConflictException("A request with this Idempotency-Key is still in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight request", e);
+        }
+    }
+
+    private static final class InFlightRequest {
+        private final String requestHash;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        private InFlightRequest(String requestHash) {
+            this.requestHash = requestHash;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.onafriq.paylite.service.paylite_service.concurrency;
+
+import com.onafriq.paylite.service.paylite_service.exception.WebhookBacklogFullException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Striped executor that runs work for the same paymentId one at a time, in arrival order.
+ * Each paymentId hashes to a fixed single-threaded lane, so events for one payment never contend
+ * on its row while different payments run in parallel on other lanes. The lane count also bounds
+ * how many connections webhook processing holds at once.
+ */
+@Component
+public class PaymentLaneExecutor {
+
+    private final ThreadPoolExecutor[] lanes;
+    private final ThreadLocal<Integer> currentLane = new ThreadLocal<>();
+
+    @Autowired
+    public PaymentLaneExecutor(@Value("${app.webhooks.lanes.count:3}") int laneCount,
+                               @Value("${app.webhooks.lanes.queue-capacity:1000}") int queueCapacity,
+                               MeterRegistry meterRegistry) {
+        this(laneCount, queueCapacity);
+        Gauge.builder("paylite.webhook.lanes.queued", this, PaymentLaneExecutor::queued)
+                .description("Webhook tasks waiting for their payment lane")
+                .register(meterRegistry);
+    }
+
+    PaymentLaneExecutor(int laneCount, int queueCapacity) {
+        if (laneCount < 1) {
+            throw new IllegalArgumentException("app.webhooks.lanes.count must be at least 1");
+        }
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            int lane = i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>(queueCapacity),
+                    runnable -> {
+                        Thread thread = new Thread(() -> {
+                            currentLane.set(lane);
+                            runnable.run();
+                        }, "payment-lane-" + lane);
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    /**
+     * Runs the task on the paymentId's lane and waits for its result. Exceptions thrown by the task
+     * are rethrown to the caller. Called from the paymentId's own lane, the task runs inline.
+     *
+     * @throws WebhookBacklogFullException if the lane's queue is full
+     */
+    public <T> T execute(String paymentId, Supplier<T> task) {
+        int lane = laneFor(paymentId);
+        Integer current = currentLane.get();
+        if (current != null && current == lane) {
+            return task.get();
+        }
+
+        Map<String, String> mdc = MDC.getCopyOfContextMap();
+        CompletableFuture<T> result;
+        try {
+            result = CompletableFuture.supplyAsync(() -> withMdc(mdc, task), lanes[lane]);
+        } catch (RejectedExecutionException e) {
+            throw new WebhookBacklogFullException("Webhook queue for this payment is full");
+        }
+
+        try {
+            return result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    public void run(String paymentId, Runnable task) {
+        execute(paymentId, () -> {
+            task.run();
+            return null;
+        });
+    }
+
+    // Keeps the caller's correlationId on log lines written from the lane
+    private static <T> T withMdc(Map<String, String> mdc, Supplier<T> task) {
+        if (mdc != null) {
+            MDC.setContextMap(mdc);
+        }
+        try {
+            return task.get();
+        } finally {
+            MDC.clear();
+        }
+    }
+
+    int laneFor(String paymentId) {
+        int hash = paymentId.hashCode();
+        return Math.floorMod(hash ^ (hash >>> 16), lanes.length);
+    }
+
+    int queued() {
+        int queued = 0;
+        for (ThreadPoolExecutor lane : lanes) {
+            queued += lane.getQueue().size();
+        }
+        return queued;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        for (ThreadPoolExecutor lane : lanes) {
+            if (!lane.awaitTermination(10, TimeUnit.SECONDS)) {
+                lane.shutdownNow();
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.onafriq.paylite.service.paylite_service.concurrency;
+
+/**
+ * Admission priority of a request under AdaptiveConcurrencyLimiter. Each priority may only fill its
+ * share of the current limit, so as the limit shrinks the lowest priorities are shed first and the
+ * remaining capacity is kept for the requests that settle payments.
+ */
+public enum RequestPriority {
+    /**
+     * PSP webhooks and reads of payments already in a final status; shed last.
+     */
+    CRITICAL(1.0),
+    /**
+     * Single payment creation and reads of pending payments.
+     */
+    NORMAL(0.8),
+    /**
+     * Batch payment creation; shed first.
+     */
+    BULK(0.5);
+
+    private final double share;
+
+    RequestPriority(double share) {
+        this.share = share;
+    }
+
+    /**
+     * Requests of this priority that may be in flight under the given limit; always at least one.
+     */
+    int allowance(int limit) {
+        return Math.max(1, (int) (limit * share));
+    }
+}
@@ -18,8 +18,9 @@ public final class AppConstants {
     public static final String WEBHOOK_SIGNATURE_HEADER = "X-PSP-Signature";
 
     //    Rate limiting
-    public static final int MAX_REQUESTS = 5; // requests per window
-    public static final long WINDOW_SIZE_SECONDS = 60; // 1 minute window
+    public static final String RATE_LIMIT_LIMIT_HEADER = "X-RateLimit-Limit";
+    public static final String RATE_LIMIT_REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String RATE_LIMIT_RESET_HEADER = "X-RateLimit-Reset";
 
 //    logging
     public static final String CORRELATION_ID_HEADER = "X-Correlation-Id";
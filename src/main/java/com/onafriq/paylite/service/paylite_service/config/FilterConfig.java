@@ -0,0 +1,94 @@
+package com.onafriq.paylite.service.paylite_service.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.cache.PaymentCache;
+import com.onafriq.paylite.service.paylite_service.concurrency.AdaptiveConcurrencyLimiter;
+import com.onafriq.paylite.service.paylite_service.filter.ApiKeyAuthFilter;
+import com.onafriq.paylite.service.paylite_service.filter.ConcurrencyLimitFilter;
+import com.onafriq.paylite.service.paylite_service.filter.RateLimitFilter;
+import com.onafriq.paylite.service.paylite_service.filter.WebhookSignatureFilter;
+import com.onafriq.paylite.service.paylite_service.service.RateLimiterService;
+import com.onafriq.paylite.service.paylite_service.service.SecurityService;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Request admission filters, run in this order before Spring MVC reads or binds the body:
+ * webhook signature presence, API key authentication, rate limiting, then load shedding by the
+ * adaptive concurrency limit. They come after Spring Boot's encoding and observation filters, so
+ * rejected requests still show up in HTTP metrics.
+ */
+@Configuration
+public class FilterConfig {
+
+    public static final int WEBHOOK_SIGNATURE_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 100;
+    public static final int API_KEY_AUTH_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 110;
+    public static final int RATE_LIMIT_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 120;
+    public static final int CONCURRENCY_LIMIT_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 130;
+
+    private static final String PAYMENT_ROUTES = "/api/v1/payments/*";
+    private static final String WEBHOOK_ROUTES = "/api/v1/webhooks/*";
+
+    @Bean
+    public FilterRegistrationBean<WebhookSignatureFilter> webhookSignatureFilter(SecurityService securityService,
+                                                                                 ObjectMapper objectMapper) {
+        FilterRegistrationBean<WebhookSignatureFilter> registration =
+                new FilterRegistrationBean<>(new WebhookSignatureFilter(securityService, objectMapper));
+        registration.addUrlPatterns(WEBHOOK_ROUTES);
+        registration.setOrder(WEBHOOK_SIGNATURE_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ApiKeyAuthFilter> apiKeyAuthFilter(SecurityService securityService,
+                                                                     ObjectMapper objectMapper) {
+        FilterRegistrationBean<ApiKeyAuthFilter> registration =
+                new FilterRegistrationBean<>(new ApiKeyAuthFilter(securityService, objectMapper));
+        registration.addUrlPatterns(PAYMENT_ROUTES);
+        registration.setOrder(API_KEY_AUTH_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> paymentRateLimitFilter(RateLimiterService rateLimiter,
+                                                                          ObjectMapper objectMapper) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(RateLimitFilter.forPayments(rateLimiter, objectMapper));
+        registration.addUrlPatterns(PAYMENT_ROUTES);
+        registration.setOrder(RATE_LIMIT_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> webhookRateLimitFilter(RateLimiterService rateLimiter,
+                                                                          ObjectMapper objectMapper) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(RateLimitFilter.forWebhooks(rateLimiter, objectMapper));
+        registration.addUrlPatterns(WEBHOOK_ROUTES);
+        registration.setOrder(RATE_LIMIT_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> paymentConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter,
+                                                                                        PaymentCache paymentCache,
+                                                                                        ObjectMapper objectMapper) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(ConcurrencyLimitFilter.forPayments(limiter, paymentCache, objectMapper));
+        registration.addUrlPatterns(PAYMENT_ROUTES);
+        registration.setOrder(CONCURRENCY_LIMIT_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> webhookConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter,
+                                                                                        ObjectMapper objectMapper) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration =
+                new FilterRegistrationBean<>(ConcurrencyLimitFilter.forWebhooks(limiter, objectMapper));
+        registration.addUrlPatterns(WEBHOOK_ROUTES);
+        registration.setOrder(CONCURRENCY_LIMIT_FILTER_ORDER);
+        return registration;
+    }
+}
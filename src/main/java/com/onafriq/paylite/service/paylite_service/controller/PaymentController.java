@@ -1,91 +1,200 @@
 package com.onafriq.paylite.service.paylite_service.controller;
 
 
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentItemsDeserializer;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentRequest;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentResponse;
 import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
 import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
+import com.onafriq.paylite.service.paylite_service.enums.PaymentStatus;
+import com.onafriq.paylite.service.paylite_service.event.PaymentStatusNotifier;
+import com.onafriq.paylite.service.paylite_service.event.PaymentStatusNotifier.Subscription;
 import com.onafriq.paylite.service.paylite_service.exception.BadRequestException;
-import com.onafriq.paylite.service.paylite_service.exception.ErrorResponse;
-import com.onafriq.paylite.service.paylite_service.exception.RateLimitExceedeException;
-import com.onafriq.paylite.service.paylite_service.exception.UnauthorizedException;
-import com.onafriq.paylite.service.paylite_service.service.IdempotencyService;
 import com.onafriq.paylite.service.paylite_service.service.PaymentService;
-import com.onafriq.paylite.service.paylite_service.service.RateLimiterService;
-import com.onafriq.paylite.service.paylite_service.service.SecurityService;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.Optional;
 
+/**
+ * Payment API. X-API-Key authentication and rate limiting are applied by ApiKeyAuthFilter and
+ * RateLimitFilter before a request reaches these handlers.
+ */
 @RestController
 @RequestMapping("/api/v1/payments")
 public class PaymentController {
     private static final Logger logger = LoggerFactory.getLogger(PaymentController.class);
 
     private final PaymentService paymentService;
-    private final IdempotencyService idempotencyService;
-    private final SecurityService securityService;
-    private final ObjectMapper objectMapper;
-    @Autowired
-    private RateLimiterService rateLimiter;
+    private final PaymentStatusNotifier paymentStatusNotifier;
+    @Value("${app.payments.subscriptions.timeout:PT30S}")
+    private Duration subscriptionTimeout;
 
     public PaymentController(PaymentService paymentService,
-                             IdempotencyService idempotencyService,
-                             SecurityService securityService,
-                             ObjectMapper objectMapper) {
+                             PaymentStatusNotifier paymentStatusNotifier) {
         this.paymentService = paymentService;
-        this.idempotencyService = idempotencyService;
-        this.securityService = securityService;
-        this.objectMapper = objectMapper;
+        this.paymentStatusNotifier = paymentStatusNotifier;
     }
 
     @PostMapping
     public ResponseEntity<?> createPayment(
-            @RequestHeader("X-API-Key") String apiKey,
             @RequestHeader("Idempotency-Key") String idempotencyKey,
             @Valid @RequestBody PaymentRequest request,
             HttpServletRequest httpRequest) throws Exception {
 
         logger.warn("Starting create payment: {}", httpRequest.getRemoteAddr());
-        // Validate API key
-        if (!securityService.isValidApiKey(apiKey)) {
-            logger.warn("Unauthorized API key attempt from: {}", httpRequest.getRemoteAddr());
-            throw new UnauthorizedException("Unauthorized access. Please check your credentials.");
-        }
-
         // Validate idempotency key
         if (idempotencyKey == null || idempotencyKey.trim().isEmpty()) {
             throw new BadRequestException("Idempotency-Key header is required");
         }
 
-        if (!rateLimiter.allowRequest(httpRequest.getRemoteAddr())) {
-            long resetTime = rateLimiter.getResetTime(httpRequest.getRemoteAddr());
-            throw new RateLimitExceedeException("Rate limit exceeded. Try again later");
-        }
-
         PaymentResponse response = paymentService.createPayment(request, idempotencyKey);
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Creates up to app.payments.batch.max-items payments in one call. Each item carries its own
+     * idempotency key; the batch is authenticated and rate limited once. The item cap is enforced
+     * while the body is bound, by {@link BatchPaymentItemsDeserializer}.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<?> createPayments(
+            @Valid @RequestBody BatchPaymentRequest request) {
+
+        BatchPaymentResponse response = paymentService.createPayments(request.getItems());
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Returns the payment status with a strong ETag built from the payment version.
+     * When If-None-Match matches the current version, only the version column is read and 304 is returned.
+     */
     @GetMapping("/{paymentId}")
     public ResponseEntity<?> getPayment(
-            @RequestHeader("X-API-Key") String apiKey,
             @PathVariable String paymentId,
-            HttpServletRequest httpRequest) throws SQLTransientException {
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) throws SQLTransientException {
 
-        // Validate API key
-        if (!securityService.isValidApiKey(apiKey)) {
-            logger.warn("Unauthorized API key attempt from: {}", httpRequest.getRemoteAddr());
-            throw new UnauthorizedException("Unauthorized access. Please check your credentials.");
+        if (ifNoneMatch != null) {
+            Optional<String> currentETag = paymentService.getPaymentVersion(paymentId).map(PaymentController::eTag);
+            if (currentETag.isPresent() && eTagMatches(ifNoneMatch, currentETag.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(currentETag.get()).build();
+            }
         }
+
         PaymentResponse response = paymentService.getPayment(paymentId);
-        return ResponseEntity.ok(response);
+        if (response.getVersion() == null) {
+            return ResponseEntity.ok(response);
+        }
+        return ResponseEntity.ok().eTag(eTag(response.getVersion())).body(response);
+
+    }
+
+    /**
+     * Long-poll: completes as soon as the payment leaves PENDING, or with the current status after
+     * app.payments.subscriptions.timeout. The request thread is released while waiting.
+     */
+    @GetMapping("/{paymentId}/await")
+    public DeferredResult<PaymentResponse> awaitPayment(
+            @PathVariable String paymentId) throws SQLTransientException {
+
+        DeferredResult<PaymentResponse> result = new DeferredResult<>(subscriptionTimeout.toMillis());
+        PaymentResponse current = paymentService.getPayment(paymentId);
+        if (isFinal(current)) {
+            result.setResult(current);
+            return result;
+        }
+
+        Subscription subscription = paymentStatusNotifier.subscribe(paymentId, () -> completeWithCurrent(result, paymentId));
+        result.onTimeout(() -> completeWithCurrent(result, paymentId));
+        result.onCompletion(subscription::cancel);
+
+        // The status may have changed before the subscription was registered
+        PaymentResponse latest = paymentService.getPayment(paymentId);
+        if (isFinal(latest)) {
+            result.setResult(latest);
+        }
+        return result;
+    }
+
+    /**
+     * Server-Sent Events: sends the current status, then one more "status" event when the payment
+     * leaves PENDING, and completes.
+     */
+    @GetMapping(value = "/{paymentId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamPayment(
+            @PathVariable String paymentId) throws IOException, SQLTransientException {
+
+        SseEmitter emitter = new SseEmitter(subscriptionTimeout.toMillis());
+        PaymentResponse current = paymentService.getPayment(paymentId);
+        emitter.send(SseEmitter.event().name("status").data(current));
+        if (isFinal(current)) {
+            emitter.complete();
+            return emitter;
+        }
+
+        Subscription subscription = paymentStatusNotifier.subscribe(paymentId, () -> sendFinalStatus(emitter, paymentId));
+        emitter.onCompletion(subscription::cancel);
+        emitter.onTimeout(emitter::complete);
+        emitter.onError(e -> subscription.cancel());
 
+        if (isFinal(paymentService.getPayment(paymentId))) {
+            subscription.cancel();
+            sendFinalStatus(emitter, paymentId);
+        }
+        return emitter;
+    }
+
+    private void completeWithCurrent(DeferredResult<PaymentResponse> result, String paymentId) {
+        try {
+            result.setResult(paymentService.getPayment(paymentId));
+        } catch (Exception e) {
+            result.setErrorResult(e);
+        }
+    }
+
+    private void sendFinalStatus(SseEmitter emitter, String paymentId) {
+        try {
+            emitter.send(SseEmitter.event().name("status").data(paymentService.getPayment(paymentId)));
+            emitter.complete();
+        } catch (Exception e) {
+            emitter.completeWithError(e);
+        }
+    }
+
+    private static boolean isFinal(PaymentResponse response) {
+        return !PaymentStatus.PENDING.toString().equals(response.getStatus());
+    }
+
+    private static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * If-None-Match uses weak comparison, so W/ prefixes are ignored; "*" matches any existing payment.
+     */
+    private static boolean eTagMatches(String ifNoneMatch, String eTag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
     }
 }
\ No newline at end of file
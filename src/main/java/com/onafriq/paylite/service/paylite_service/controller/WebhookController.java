@@ -2,25 +2,26 @@ package com.onafriq.paylite.service.paylite_service.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.dto.BatchWebhookResponse;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookBody;
 import com.onafriq.paylite.service.paylite_service.dto.WebhookRequest;
 import com.onafriq.paylite.service.paylite_service.exception.InvalidWebhookPayloadException;
-import com.onafriq.paylite.service.paylite_service.exception.PaymentIdGenerationException;
 import com.onafriq.paylite.service.paylite_service.exception.PaymentNotFoundException;
-import com.onafriq.paylite.service.paylite_service.exception.UnauthorizedException;
+import com.onafriq.paylite.service.paylite_service.exception.WebhookBacklogFullException;
 import com.onafriq.paylite.service.paylite_service.service.PaymentService;
 import com.onafriq.paylite.service.paylite_service.service.SecurityService;
+import com.onafriq.paylite.service.paylite_service.service.WebhookBatchService;
+import com.onafriq.paylite.service.paylite_service.service.WebhookInboxService;
 import com.onafriq.paylite.service.paylite_service.service.WebhookService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/v1/webhooks")
@@ -38,28 +39,42 @@ public class WebhookController {
     @Autowired
     private ObjectMapper objectMapper;
 
-    @PostMapping("/psp")
-    public ResponseEntity<Void> handleWebhook(
-            @RequestBody String rawBody,
-            HttpServletRequest httpRequest) {
+    @Autowired
+    private WebhookInboxService webhookInboxService;
+
+    @Autowired
+    private WebhookBatchService webhookBatchService;
 
-        String signature = httpRequest.getHeader(SIGNATURE_HEADER);
+    // When enabled, verified webhooks are appended to webhook_inbox and acked; WebhookInboxDrainJob processes them
+    @Value("${app.webhooks.async.enabled:false}")
+    private boolean asyncIngestion;
 
-        logger.info("Received webhook with raw body: {}", rawBody);
+    // The body is read from the request stream rather than bound with @RequestBody, so the signature
+    // is computed over the bytes as they arrive and Jackson parses the same buffer
+    @PostMapping("/psp")
+    public ResponseEntity<Void> handleWebhook(HttpServletRequest httpRequest) throws IOException {
 
         // Validate signature
-        if (!securityService.verifyWebhookSignature(signature, rawBody)) {
-            logger.warn("Invalid webhook signature");
-            throw new UnauthorizedException("Invalid webhook signature");
-        }
+        WebhookBody body = securityService.readSignedWebhookBody(
+                httpRequest.getHeader(SIGNATURE_HEADER), httpRequest.getInputStream(), httpRequest.getContentLength());
 
         WebhookRequest request =new WebhookRequest();
         try {
             // Parse JSON using ObjectMapper
-            request= objectMapper.readValue(rawBody, WebhookRequest.class);
-            logger.info("Processing webhook for payment: {}, event: {}", request.getPaymentId(), request.getEvent());
+            request= objectMapper.readValue(body.buffer(), 0, body.length(), WebhookRequest.class);
+
+            if (asyncIngestion) {
+                if (webhookInboxService.isOverloaded()) {
+                    throw new WebhookBacklogFullException("Webhook inbox backlog is full");
+                }
+                webhookInboxService.enqueue(body.asString(), httpRequest.getHeader("X-Request-Id"));
+                logger.info("Queued webhook for payment: {}, event: {}", request.getPaymentId(), request.getEvent());
+                return ResponseEntity.ok().build();
+            }
 
-            webhookService.processWebhook(request, rawBody, httpRequest);
+            logger.info("Processing webhook for payment: {}, event: {}", request.getPaymentId(), request.getEvent());
+            // Decoded only here, as the raw_payload stored with the event and compared on duplicates
+            webhookService.processWebhook(request, body.asString(), httpRequest);
             return ResponseEntity.ok().build();
         } catch (InvalidWebhookPayloadException | JsonProcessingException e) {
             logger.error("Error processing webhook", e);
@@ -71,4 +86,16 @@ public class WebhookController {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * Signed batch of PSP events. One signature covers the whole body; the response carries an
+     * outcome per event, in request order. Always processed synchronously.
+     */
+    @PostMapping("/psp/batch")
+    public ResponseEntity<BatchWebhookResponse> handleWebhookBatch(HttpServletRequest httpRequest) throws IOException {
+
+        WebhookBody body = securityService.readSignedWebhookBody(
+                httpRequest.getHeader(SIGNATURE_HEADER), httpRequest.getInputStream(), httpRequest.getContentLength());
+
+        return ResponseEntity.ok(webhookBatchService.processBatch(body));
+    }
+}
@@ -0,0 +1,71 @@
+package com.onafriq.paylite.service.paylite_service.crypto;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.HMAC_ALGORITHM;
+
+/**
+ * Holder of pooled, initialized JCA primitives. Mac.getInstance and MessageDigest.getInstance walk
+ * the provider list, and Mac.init schedules the key, on every call; borrowing from these pools pays
+ * that once per pooled instance. New HMAC instances are cloned from a keyed template, so even a pool
+ * miss skips the key schedule.
+ */
+public final class CryptoPrimitives {
+
+    public static final int POOL_CAPACITY = Math.max(4, 2 * Runtime.getRuntime().availableProcessors());
+
+    private static final PrimitivePool<MessageDigest> SHA_256 =
+            new PrimitivePool<>(CryptoPrimitives::newSha256, MessageDigest::reset, POOL_CAPACITY);
+
+    private CryptoPrimitives() {
+
+    }
+
+    /**
+     * Shared pool of SHA-256 digests, for callers that feed a digest incrementally.
+     */
+    public static PrimitivePool<MessageDigest> sha256() {
+        return SHA_256;
+    }
+
+    public static byte[] sha256(byte[] input) {
+        return SHA_256.apply(digest -> digest.digest(input));
+    }
+
+    public static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Pool of HmacSHA256 instances initialized with the given key. Create one per key and keep it.
+     */
+    public static PrimitivePool<Mac> hmacSha256(byte[] key) {
+        Mac template = newHmacSha256(key);
+        return new PrimitivePool<>(() -> copyOf(template, key), Mac::reset, POOL_CAPACITY);
+    }
+
+    private static Mac copyOf(Mac template, byte[] key) {
+        try {
+            return (Mac) template.clone();
+        } catch (CloneNotSupportedException e) {
+            return newHmacSha256(key);
+        }
+    }
+
+    private static Mac newHmacSha256(byte[] key) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, HMAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC could not be initialized", e);
+        }
+    }
+}
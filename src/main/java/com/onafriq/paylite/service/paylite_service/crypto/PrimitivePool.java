@@ -0,0 +1,83 @@
+package com.onafriq.paylite.service.paylite_service.crypto;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool of initialized, non-thread-safe objects such as Mac and MessageDigest.
+ * Idle instances sit in a fixed array of slots taken and refilled by CAS, starting from a slot
+ * picked by the calling thread, so concurrent callers rarely touch the same slot and nobody takes a lock.
+ * Borrowing never blocks: when no nearby slot holds an instance a new one is created, and an
+ * instance that finds no free slot on release is dropped. Unlike a ThreadLocal, the pool does not
+ * grow with the number of threads, so it stays cheap under virtual threads and when an instance is
+ * held across blocking I/O.
+ */
+public final class PrimitivePool<T> {
+
+    // Slots probed per borrow or release before giving up
+    private static final int MAX_PROBES = 4;
+
+    private final AtomicReferenceArray<T> slots;
+    private final Supplier<T> factory;
+    private final Consumer<T> reset;
+
+    public PrimitivePool(Supplier<T> factory, Consumer<T> reset, int capacity) {
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.factory = factory;
+        this.reset = reset;
+    }
+
+    /**
+     * Runs the work with an instance borrowed from the pool. The instance is reset before it is
+     * returned, so state left by a failed operation never leaks into the next one.
+     */
+    public <R> R apply(Function<T, R> work) {
+        T instance = borrow();
+        try {
+            return work.apply(instance);
+        } finally {
+            release(instance);
+        }
+    }
+
+    public T borrow() {
+        int start = startSlot();
+        for (int i = 0; i < Math.min(MAX_PROBES, slots.length()); i++) {
+            int slot = (start + i) % slots.length();
+            if (slots.get(slot) != null) {
+                T instance = slots.getAndSet(slot, null);
+                if (instance != null) {
+                    return instance;
+                }
+            }
+        }
+        return factory.get();
+    }
+
+    public void release(T instance) {
+        reset.accept(instance);
+        int start = startSlot();
+        for (int i = 0; i < Math.min(MAX_PROBES, slots.length()); i++) {
+            int slot = (start + i) % slots.length();
+            if (slots.get(slot) == null && slots.compareAndSet(slot, null, instance)) {
+                return;
+            }
+        }
+    }
+
+    private int startSlot() {
+        return Math.floorMod(System.identityHashCode(Thread.currentThread()), slots.length());
+    }
+
+    int idle() {
+        int idle = 0;
+        for (int i = 0; i < slots.length(); i++) {
+            if (slots.get(i) != null) {
+                idle++;
+            }
+        }
+        return idle;
+    }
+}
@@ -0,0 +1,20 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchPaymentItem {
+    @NotBlank(message = "Idempotency key is required")
+    private String idempotencyKey;
+
+    @NotNull(message = "Payment is required")
+    @Valid
+    private PaymentRequest payment;
+}
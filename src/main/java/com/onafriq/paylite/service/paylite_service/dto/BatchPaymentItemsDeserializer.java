@@ -0,0 +1,48 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.onafriq.paylite.service.paylite_service.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binds the items of a batch one at a time and stops at app.payments.batch.max-items, so an
+ * oversized batch is rejected before the rest of the array is read, bound or validated.
+ * Spring's Jackson setup creates this through the bean factory, which injects the limit.
+ */
+public class BatchPaymentItemsDeserializer extends StdDeserializer<List<BatchPaymentItem>> {
+
+    private final int maxItems;
+
+    @Autowired
+    public BatchPaymentItemsDeserializer(@Value("${app.payments.batch.max-items:100}") int maxItems) {
+        super(List.class);
+        this.maxItems = maxItems;
+    }
+
+    @Override
+    public List<BatchPaymentItem> deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+        if (!p.isExpectedStartArrayToken()) {
+            return ctxt.reportInputMismatch(this, "Batch items must be an array");
+        }
+        List<BatchPaymentItem> items = new ArrayList<>();
+        JsonToken token;
+        while ((token = p.nextToken()) != JsonToken.END_ARRAY) {
+            if (token == null) {
+                return ctxt.reportInputMismatch(this, "Unexpected end of batch items");
+            }
+            if (items.size() == maxItems) {
+                throw new BadRequestException("A batch may contain at most " + maxItems + " payments");
+            }
+            items.add(ctxt.readValue(p, BatchPaymentItem.class));
+        }
+        return items;
+    }
+}
@@ -0,0 +1,20 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchPaymentRequest {
+    @NotEmpty(message = "At least one payment is required")
+    @Valid
+    @JsonDeserialize(using = BatchPaymentItemsDeserializer.class)
+    private List<BatchPaymentItem> items;
+}
@@ -0,0 +1,24 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.onafriq.paylite.service.paylite_service.enums.BatchItemOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch payment request, in the same position as the item.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchPaymentResult {
+    private String idempotencyKey;
+    private BatchItemOutcome outcome;
+    private String paymentId;
+    private String status;
+    private String error;
+}
@@ -0,0 +1,17 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One event of a PSP webhook batch. The eventId plays the role of X-Request-Id on the single endpoint.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchWebhookEvent {
+    private String eventId;
+    private String paymentId;
+    private String event;
+}
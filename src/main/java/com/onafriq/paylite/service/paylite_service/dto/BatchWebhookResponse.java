@@ -0,0 +1,14 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchWebhookResponse {
+    private List<BatchWebhookResult> results;
+}
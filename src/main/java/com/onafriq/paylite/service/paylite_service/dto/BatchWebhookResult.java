@@ -0,0 +1,23 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookEventOutcome;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one event of a webhook batch, in the same position as the event.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchWebhookResult {
+    private String eventId;
+    private String paymentId;
+    private WebhookEventOutcome outcome;
+    private String error;
+}
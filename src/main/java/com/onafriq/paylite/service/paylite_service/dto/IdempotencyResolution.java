@@ -0,0 +1,40 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import com.onafriq.paylite.service.paylite_service.enums.IdempotencyOutcome;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Result of resolving an Idempotency-Key against the stored keys:
+ * a new request, a replay of a stored response, or a conflicting reuse of the key.
+ */
+@Getter
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class IdempotencyResolution {
+    private static final IdempotencyResolution NEW = new IdempotencyResolution(IdempotencyOutcome.NEW, null);
+    private static final IdempotencyResolution CONFLICT = new IdempotencyResolution(IdempotencyOutcome.CONFLICT, null);
+
+    private final IdempotencyOutcome outcome;
+    private final String responseBody;
+
+    public static IdempotencyResolution newRequest() {
+        return NEW;
+    }
+
+    public static IdempotencyResolution conflict() {
+        return CONFLICT;
+    }
+
+    public static IdempotencyResolution replay(String responseBody) {
+        return new IdempotencyResolution(IdempotencyOutcome.REPLAY, responseBody);
+    }
+
+    public boolean isReplay() {
+        return outcome == IdempotencyOutcome.REPLAY;
+    }
+
+    public boolean isConflict() {
+        return outcome == IdempotencyOutcome.CONFLICT;
+    }
+}
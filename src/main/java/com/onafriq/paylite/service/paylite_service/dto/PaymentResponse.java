@@ -1,5 +1,6 @@
 package com.onafriq.paylite.service.paylite_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.AllArgsConstructor;
@@ -20,4 +21,8 @@ public class PaymentResponse {
     private String reference;
     private String customerEmail;
 
+    // Sent as the ETag header rather than in the body
+    @JsonIgnore
+    private Long version;
+
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Raw bytes of a webhook request whose signature has been verified. The buffer can be longer than
+ * the body; only the first {@code length} bytes are content. Parse it in place with
+ * {@code objectMapper.readValue(buffer, 0, length, ...)}.
+ */
+public record WebhookBody(byte[] buffer, int length) {
+
+    /**
+     * Decodes the body as UTF-8, for callers that store the raw payload.
+     */
+    public String asString() {
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+}
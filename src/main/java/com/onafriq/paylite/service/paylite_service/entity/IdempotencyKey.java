@@ -13,7 +13,7 @@ import java.time.LocalDateTime;
 public class IdempotencyKey {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
     
     @Column(name = "idempotency_key", unique = true, nullable = false)
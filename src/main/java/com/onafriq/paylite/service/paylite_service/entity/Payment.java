@@ -11,8 +11,9 @@ import java.time.LocalDateTime;
 @Builder
 public class Payment {
     
+    // Assigned in memory instead of IDENTITY so Hibernate can batch inserts
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
     
     @Column(name = "payment_id", unique = true, nullable = false)
@@ -33,6 +34,10 @@ public class Payment {
     @Column(nullable = false)
     private String status;
     
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
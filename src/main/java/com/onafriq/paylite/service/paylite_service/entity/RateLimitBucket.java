@@ -0,0 +1,55 @@
+package com.onafriq.paylite.service.paylite_service.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Shared rate limit state of one client on one route: its GCRA theoretical arrival time in epoch
+ * nanoseconds. Nodes lock the row to lease blocks of requests from it.
+ */
+@Entity
+@Table(name = "rate_limit_buckets")
+@Getter
+@Setter
+@NoArgsConstructor
+public class RateLimitBucket implements Persistable<String> {
+
+    @Id
+    @Column(name = "bucket_key", length = 320)
+    private String bucketKey;
+
+    @Column(name = "theoretical_arrival_nanos", nullable = false)
+    private long theoreticalArrivalNanos;
+
+    // A new bucket is inserted rather than merged, so a bucket another node created meanwhile
+    // fails on the primary key instead of being overwritten without a lock
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newBucket;
+
+    public static RateLimitBucket create(String bucketKey, long theoreticalArrivalNanos) {
+        RateLimitBucket bucket = new RateLimitBucket();
+        bucket.bucketKey = bucketKey;
+        bucket.theoreticalArrivalNanos = theoreticalArrivalNanos;
+        bucket.newBucket = true;
+        return bucket;
+    }
+
+    @Override
+    public String getId() {
+        return bucketKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return newBucket;
+    }
+
+    @PostPersist
+    @PostLoad
+    protected void markPersisted() {
+        this.newBucket = false;
+    }
+}
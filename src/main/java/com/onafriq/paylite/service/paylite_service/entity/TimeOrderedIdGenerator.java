@@ -0,0 +1,38 @@
+package com.onafriq.paylite.service.paylite_service.entity;
+
+import com.onafriq.paylite.service.paylite_service.service.PaymentIdGenerator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.EnumSet;
+
+/**
+ * Row ids generated in memory with the same layout as payment IDs: millisecond timestamp, node id and
+ * sequence. Unlike IDENTITY ids they are known before the insert, so Hibernate can batch inserts, and
+ * unlike a table generator they never need a second pooled connection to reserve a block of ids while
+ * the caller's transaction holds the first. Hibernate creates one per entity through Spring's bean
+ * container, so each takes the instance's app.payment-id.node-id.
+ */
+public class TimeOrderedIdGenerator implements BeforeExecutionGenerator {
+
+    private final PaymentIdGenerator ids;
+
+    public TimeOrderedIdGenerator(@Value("${app.payment-id.node-id:#{null}}") Integer nodeId,
+                                  @Value("${app.payment-id.max-clock-drift-ms:5000}") long maxClockDriftMillis) {
+        this.ids = new PaymentIdGenerator(nodeId, maxClockDriftMillis);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue,
+                           EventType eventType) {
+        return ids.nextId();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
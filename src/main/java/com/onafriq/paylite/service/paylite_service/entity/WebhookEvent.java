@@ -14,7 +14,7 @@ import java.time.LocalDateTime;
 public class WebhookEvent {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
     
     @Column(name = "event_id", unique = true, nullable = false)
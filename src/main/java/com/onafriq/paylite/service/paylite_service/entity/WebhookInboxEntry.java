@@ -0,0 +1,51 @@
+package com.onafriq.paylite.service.paylite_service.entity;
+
+import com.onafriq.paylite.service.paylite_service.enums.WebhookInboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+import java.time.LocalDateTime;
+
+/**
+ * A verified PSP webhook waiting to be processed. Rows are deleted once processed;
+ * rows that keep failing are left in DEAD status for inspection.
+ */
+@Entity
+@Table(name = "webhook_inbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookInboxEntry {
+
+    @Id
+    @TimeOrderedId
+    private Long id;
+
+    @Column(name = "psp_request_id")
+    private String pspRequestId;
+
+    @Column(name = "raw_payload", nullable = false, columnDefinition = "TEXT")
+    private String rawPayload;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private WebhookInboxStatus status;
+
+    @Column(nullable = false)
+    private int attempts;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+}
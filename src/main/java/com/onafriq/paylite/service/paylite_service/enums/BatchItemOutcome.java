@@ -0,0 +1,8 @@
+package com.onafriq.paylite.service.paylite_service.enums;
+
+public enum BatchItemOutcome
+{
+    CREATED,
+    REPLAYED,
+    CONFLICT
+}
@@ -0,0 +1,11 @@
+package com.onafriq.paylite.service.paylite_service.enums;
+
+public enum WebhookEventOutcome
+{
+    APPLIED,
+    ALREADY_FINAL,
+    DUPLICATE,
+    CONFLICT,
+    NOT_FOUND,
+    INVALID
+}
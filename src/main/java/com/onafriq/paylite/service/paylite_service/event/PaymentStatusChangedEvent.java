@@ -0,0 +1,7 @@
+package com.onafriq.paylite.service.paylite_service.event;
+
+/**
+ * Published by PaymentService when a webhook moves a payment to a new status.
+ */
+public record PaymentStatusChangedEvent(String paymentId, String status) {
+}
@@ -0,0 +1,103 @@
+package com.onafriq.paylite.service.paylite_service.event;
+
+import com.onafriq.paylite.service.paylite_service.exception.SubscriptionLimitExceededException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-process registry of clients waiting for a payment to change status.
+ * A waiter is only a callback in a map; the request thread and database connection are released
+ * while it waits (async servlet). Waiters are signalled once the status change has committed.
+ */
+@Component
+public class PaymentStatusNotifier {
+    private static final Logger logger = LoggerFactory.getLogger(PaymentStatusNotifier.class);
+
+    private final ConcurrentHashMap<String, Set<Subscription>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiterCount = new AtomicInteger();
+    private final int maxWaiters;
+
+    public PaymentStatusNotifier(@Value("${app.payments.subscriptions.max-waiters:10000}") int maxWaiters,
+                                 MeterRegistry meterRegistry) {
+        this.maxWaiters = maxWaiters;
+        Gauge.builder("paylite.payment.subscriptions.waiting", waiterCount, AtomicInteger::get)
+                .description("Clients waiting for a payment status change")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Registers a callback run once, on the notifying thread, when the payment changes status.
+     *
+     * @throws SubscriptionLimitExceededException if max-waiters clients are already waiting
+     */
+    public Subscription subscribe(String paymentId, Runnable onStatusChange) {
+        if (waiterCount.incrementAndGet() > maxWaiters) {
+            waiterCount.decrementAndGet();
+            throw new SubscriptionLimitExceededException("Too many clients are waiting for payment updates");
+        }
+        Subscription subscription = new Subscription(paymentId, onStatusChange);
+        waiters.computeIfAbsent(paymentId, id -> ConcurrentHashMap.newKeySet()).add(subscription);
+        return subscription;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(PaymentStatusChangedEvent event) {
+        Set<Subscription> subscriptions = waiters.remove(event.paymentId());
+        if (subscriptions == null) {
+            return;
+        }
+        for (Subscription subscription : subscriptions) {
+            if (subscription.release()) {
+                try {
+                    subscription.onStatusChange.run();
+                } catch (RuntimeException e) {
+                    logger.warn("Failed to notify waiter for payment {}", event.paymentId(), e);
+                }
+            }
+        }
+    }
+
+    public int waiterCount() {
+        return waiterCount.get();
+    }
+
+    public final class Subscription {
+        private final String paymentId;
+        private final Runnable onStatusChange;
+        private final AtomicInteger active = new AtomicInteger(1);
+
+        private Subscription(String paymentId, Runnable onStatusChange) {
+            this.paymentId = paymentId;
+            this.onStatusChange = onStatusChange;
+        }
+
+        /**
+         * Stops waiting. Safe to call more than once and after the waiter has been notified.
+         */
+        public void cancel() {
+            if (release()) {
+                waiters.computeIfPresent(paymentId, (id, subscriptions) -> {
+                    subscriptions.remove(this);
+                    return subscriptions.isEmpty() ? null : subscriptions;
+                });
+            }
+        }
+
+        private boolean release() {
+            if (active.compareAndSet(1, 0)) {
+                waiterCount.decrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -3,7 +3,9 @@ package com.onafriq.paylite.service.paylite_service.exception;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.core.NestedExceptionUtils;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
@@ -33,6 +35,30 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
 
+    @ExceptionHandler({BadRequestException.class, InvalidWebhookPayloadException.class})
+    public ResponseEntity<ErrorResponse> handleBadRequest(RuntimeException ex) {
+        logger.warn("Bad request: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+                ex.getMessage(),
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request"
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponse> handleUnreadableBody(HttpMessageNotReadableException ex) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(ex);
+        String message = cause instanceof BadRequestException ? cause.getMessage() : "Malformed request body";
+        logger.warn("Unreadable request body: {}", cause.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+                message,
+                HttpStatus.BAD_REQUEST.value(),
+                "Bad Request"
+        );
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
+    }
+
     @ExceptionHandler(UnauthorizedException.class)
     public ResponseEntity<ErrorResponse> handleUnauthorized(UnauthorizedException ex) {
         logger.warn("Unauthorized access: {}", ex.getMessage());
@@ -88,6 +114,28 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(errorResponse);
     }
 
+    @ExceptionHandler(WebhookBacklogFullException.class)
+    public ResponseEntity<ErrorResponse> handleWebhookBacklogFull(WebhookBacklogFullException ex) {
+        logger.warn("Webhook rejected: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+                "Webhook backlog is full. Retry later.",
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "webhook_backlog_full"
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
+
+    @ExceptionHandler(SubscriptionLimitExceededException.class)
+    public ResponseEntity<ErrorResponse> handleSubscriptionLimit(SubscriptionLimitExceededException ex) {
+        logger.warn("Payment subscription rejected: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+                "Too many clients are waiting for payment updates. Poll GET /api/v1/payments/{paymentId} instead.",
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "subscription_limit_exceeded"
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(errorResponse);
+    }
+
     @ExceptionHandler(RateLimitExceedeException.class)
     public ResponseEntity<ErrorResponse> handlePaymentIdGeneration(RateLimitExceedeException ex) {
         logger.error("Rate limit exceeded. Try again later: {}", ex.getMessage());
@@ -0,0 +1,8 @@
+package com.onafriq.paylite.service.paylite_service.exception;
+
+public class SubscriptionLimitExceededException extends RuntimeException {
+
+    public SubscriptionLimitExceededException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.onafriq.paylite.service.paylite_service.exception;
+
+public class WebhookBacklogFullException extends RuntimeException {
+
+    public WebhookBacklogFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,51 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.security.ApiKeyDetails;
+import com.onafriq.paylite.service.paylite_service.service.SecurityService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.API_KEY_HEADER;
+
+/**
+ * Rejects payment API requests without a valid X-API-Key with 401 before the body is read.
+ * The key's details are stored in the API_KEY_DETAILS_ATTRIBUTE request attribute.
+ */
+public class ApiKeyAuthFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyAuthFilter.class);
+
+    public static final String API_KEY_DETAILS_ATTRIBUTE = ApiKeyAuthFilter.class.getName() + ".details";
+
+    private final SecurityService securityService;
+    private final ObjectMapper objectMapper;
+
+    public ApiKeyAuthFilter(SecurityService securityService, ObjectMapper objectMapper) {
+        this.securityService = securityService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Optional<ApiKeyDetails> details = securityService.authenticate(request.getHeader(API_KEY_HEADER));
+        if (details.isEmpty()) {
+            logger.warn("Unauthorized API key attempt from: {}", request.getRemoteAddr());
+            FilterResponses.reject(response, objectMapper, HttpStatus.UNAUTHORIZED,
+                    "Unauthorized access. Please check your credentials.", "Unauthorized");
+            return;
+        }
+
+        request.setAttribute(API_KEY_DETAILS_ATTRIBUTE, details.get());
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,104 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.cache.PaymentCache;
+import com.onafriq.paylite.service.paylite_service.concurrency.AdaptiveConcurrencyLimiter;
+import com.onafriq.paylite.service.paylite_service.concurrency.RequestPriority;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
+import com.onafriq.paylite.service.paylite_service.enums.PaymentStatus;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.function.Function;
+
+/**
+ * Sheds load with 503 once AdaptiveConcurrencyLimiter's limit for the request's priority is reached,
+ * after rate limiting so a client over its own limit takes no capacity. Webhooks and reads of payments
+ * already in a final status (answered from PaymentCache) are CRITICAL, batch creation is BULK and
+ * everything else NORMAL. Shed responses carry Retry-After: 1.
+ * <p>
+ * Requests that go asynchronous (long-poll and event streams) give their slot back when the request
+ * thread does, without a latency sample, since they hold no thread or connection while waiting.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    private static final String PAYMENTS_PATH = "/api/v1/payments/";
+    private static final String RETRY_AFTER_SECONDS = "1";
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final Function<HttpServletRequest, RequestPriority> priorityOf;
+
+    private ConcurrencyLimitFilter(AdaptiveConcurrencyLimiter limiter, ObjectMapper objectMapper,
+                                   Function<HttpServletRequest, RequestPriority> priorityOf) {
+        this.limiter = limiter;
+        this.objectMapper = objectMapper;
+        this.priorityOf = priorityOf;
+    }
+
+    /**
+     * Prioritises payment requests by route, and reads by the cached status of the payment.
+     */
+    public static ConcurrencyLimitFilter forPayments(AdaptiveConcurrencyLimiter limiter, PaymentCache paymentCache,
+                                                     ObjectMapper objectMapper) {
+        return new ConcurrencyLimitFilter(limiter, objectMapper, request -> paymentPriority(request, paymentCache));
+    }
+
+    /**
+     * Admits webhook deliveries as CRITICAL.
+     */
+    public static ConcurrencyLimitFilter forWebhooks(AdaptiveConcurrencyLimiter limiter, ObjectMapper objectMapper) {
+        return new ConcurrencyLimitFilter(limiter, objectMapper, request -> RequestPriority.CRITICAL);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestPriority priority = priorityOf.apply(request);
+        if (!limiter.tryAcquire(priority)) {
+            logger.debug("Shedding {} request {} {}: concurrency limit {} reached",
+                    priority, request.getMethod(), request.getRequestURI(), limiter.getLimit());
+            response.setHeader(HttpHeaders.RETRY_AFTER, RETRY_AFTER_SECONDS);
+            FilterResponses.reject(response, objectMapper, HttpStatus.SERVICE_UNAVAILABLE,
+                    "Service is busy. Try again shortly", "overloaded");
+            return;
+        }
+
+        long startedAt = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                limiter.release();
+            } else {
+                limiter.release(System.nanoTime() - startedAt);
+            }
+        }
+    }
+
+    private static RequestPriority paymentPriority(HttpServletRequest request, PaymentCache paymentCache) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            return path.endsWith("/batch") ? RequestPriority.BULK : RequestPriority.NORMAL;
+        }
+        if (HttpMethod.GET.matches(request.getMethod()) && path.startsWith(PAYMENTS_PATH)) {
+            String rest = path.substring(PAYMENTS_PATH.length());
+            int end = rest.indexOf('/');
+            PaymentResponse cached = paymentCache.getIfPresent(end < 0 ? rest : rest.substring(0, end));
+            if (cached != null && !PaymentStatus.PENDING.toString().equals(cached.getStatus())) {
+                return RequestPriority.CRITICAL;
+            }
+        }
+        return RequestPriority.NORMAL;
+    }
+}
@@ -0,0 +1,27 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.exception.ErrorResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+
+/**
+ * Writes the same ErrorResponse body as GlobalExceptionHandler, for requests rejected in a filter
+ * before they reach a controller.
+ */
+final class FilterResponses {
+
+    private FilterResponses() {
+
+    }
+
+    static void reject(HttpServletResponse response, ObjectMapper objectMapper, HttpStatus status,
+                       String message, String error) throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(message, status.value(), error));
+    }
+}
@@ -0,0 +1,101 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitDecision;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitRoute;
+import com.onafriq.paylite.service.paylite_service.security.ApiKeyDetails;
+import com.onafriq.paylite.service.paylite_service.service.RateLimiterService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Instant;
+
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.RATE_LIMIT_LIMIT_HEADER;
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.RATE_LIMIT_REMAINING_HEADER;
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.RATE_LIMIT_RESET_HEADER;
+
+/**
+ * Applies RateLimiterService with 429, after authentication and before the body is read.
+ * Requests carrying API key details (set by ApiKeyAuthFilter) are limited per merchant under the
+ * key's tier; anything else, such as PSP webhooks, per remote address under the default tier.
+ * Every limited response carries X-RateLimit-Limit (the burst), X-RateLimit-Remaining and
+ * X-RateLimit-Reset (epoch second when the full allowance is back); a 429 adds Retry-After in
+ * seconds, so clients can back off instead of retrying straight away.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    private final RateLimiterService rateLimiter;
+    private final ObjectMapper objectMapper;
+    private final RateLimitRoute postRoute;
+    private final RateLimitRoute getRoute;
+
+    private RateLimitFilter(RateLimiterService rateLimiter, ObjectMapper objectMapper,
+                            RateLimitRoute postRoute, RateLimitRoute getRoute) {
+        this.rateLimiter = rateLimiter;
+        this.objectMapper = objectMapper;
+        this.postRoute = postRoute;
+        this.getRoute = getRoute;
+    }
+
+    /**
+     * Limits payment creation (POST) and payment reads (GET) separately.
+     */
+    public static RateLimitFilter forPayments(RateLimiterService rateLimiter, ObjectMapper objectMapper) {
+        return new RateLimitFilter(rateLimiter, objectMapper, RateLimitRoute.CREATE, RateLimitRoute.READ);
+    }
+
+    /**
+     * Limits webhook deliveries (POST).
+     */
+    public static RateLimitFilter forWebhooks(RateLimiterService rateLimiter, ObjectMapper objectMapper) {
+        return new RateLimitFilter(rateLimiter, objectMapper, RateLimitRoute.WEBHOOK, null);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return routeOf(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RateLimitRoute route = routeOf(request);
+        ApiKeyDetails details = (ApiKeyDetails) request.getAttribute(ApiKeyAuthFilter.API_KEY_DETAILS_ATTRIBUTE);
+        String clientId = details != null ? details.merchantId() : request.getRemoteAddr();
+        String tier = details != null ? details.tier() : null;
+
+        RateLimitDecision decision = rateLimiter.tryAcquire(route, clientId, tier);
+        response.setIntHeader(RATE_LIMIT_LIMIT_HEADER, decision.limit());
+        response.setIntHeader(RATE_LIMIT_REMAINING_HEADER, decision.remaining());
+        response.setHeader(RATE_LIMIT_RESET_HEADER,
+                Long.toString(Instant.now().getEpochSecond() + decision.resetAfterSeconds()));
+        if (!decision.allowed()) {
+            logger.warn("Rate limit exceeded for: {} on {} requests", clientId, route);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(decision.retryAfterSeconds()));
+            FilterResponses.reject(response, objectMapper, HttpStatus.TOO_MANY_REQUESTS,
+                    "Rate limit exceeded. Try again later", "rate_limit_exceeded");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private RateLimitRoute routeOf(HttpServletRequest request) {
+        if (HttpMethod.POST.matches(request.getMethod())) {
+            return postRoute;
+        }
+        if (HttpMethod.GET.matches(request.getMethod())) {
+            return getRoute;
+        }
+        return null;
+    }
+}
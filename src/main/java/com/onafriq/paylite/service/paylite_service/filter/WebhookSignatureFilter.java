@@ -0,0 +1,43 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.service.SecurityService;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.WEBHOOK_SIGNATURE_HEADER;
+
+/**
+ * Rejects webhook requests whose X-PSP-Signature is missing or cannot be an HMAC-SHA256 with 401,
+ * without reading the body. The HMAC itself is checked by the controller while it reads the body.
+ */
+public class WebhookSignatureFilter extends OncePerRequestFilter {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookSignatureFilter.class);
+
+    private final SecurityService securityService;
+    private final ObjectMapper objectMapper;
+
+    public WebhookSignatureFilter(SecurityService securityService, ObjectMapper objectMapper) {
+        this.securityService = securityService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!securityService.isWellFormedWebhookSignature(request.getHeader(WEBHOOK_SIGNATURE_HEADER))) {
+            logger.warn("Missing or malformed webhook signature from: {}", request.getRemoteAddr());
+            FilterResponses.reject(response, objectMapper, HttpStatus.UNAUTHORIZED, "Invalid webhook signature", "Unauthorized");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
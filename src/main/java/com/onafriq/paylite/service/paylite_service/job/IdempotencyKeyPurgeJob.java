@@ -0,0 +1,107 @@
+package com.onafriq.paylite.service.paylite_service.job;
+
+import com.onafriq.paylite.service.paylite_service.repository.IdempotencyKeyRepository;
+import com.onafriq.paylite.service.paylite_service.repository.IdempotencyKeyRepository.ExpiredKey;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Deletes idempotency keys older than the retention window.
+ * Expired rows are walked in (created_at, id) keyset order and deleted in small batches,
+ * each in its own short transaction, so the purge never holds long locks on idempotency_keys.
+ */
+@Component
+@ConditionalOnProperty(name = "app.idempotency.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyKeyPurgeJob {
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyKeyPurgeJob.class);
+
+    private static final LocalDateTime START_CURSOR = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final Duration retention;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Counter purgedRows;
+    private final DistributionSummary purgedRowsPerRun;
+
+    @Autowired
+    public IdempotencyKeyPurgeJob(IdempotencyKeyRepository idempotencyKeyRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${app.idempotency.retention:P7D}") Duration retention,
+                                  @Value("${app.idempotency.purge.batch-size:500}") int batchSize,
+                                  @Value("${app.idempotency.purge.max-batches-per-run:200}") int maxBatchesPerRun) {
+        this(idempotencyKeyRepository, new TransactionTemplate(transactionManager), meterRegistry, Clock.systemDefaultZone(),
+                retention, batchSize, maxBatchesPerRun);
+    }
+
+    IdempotencyKeyPurgeJob(IdempotencyKeyRepository idempotencyKeyRepository, TransactionTemplate transactionTemplate,
+                           MeterRegistry meterRegistry, Clock clock,
+                           Duration retention, int batchSize, int maxBatchesPerRun) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.retention = retention;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.purgedRows = Counter.builder("paylite.idempotency.purge.rows")
+                .description("Expired idempotency keys deleted")
+                .register(meterRegistry);
+        this.purgedRowsPerRun = DistributionSummary.builder("paylite.idempotency.purge.rows.per.run")
+                .description("Expired idempotency keys deleted per purge run")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${app.idempotency.purge.initial-delay:PT1M}",
+            fixedDelayString = "${app.idempotency.purge.interval:PT15M}")
+    public void purgeExpiredKeys() {
+        LocalDateTime cutoff = LocalDateTime.now(clock).minus(retention);
+        LocalDateTime afterCreatedAt = START_CURSOR;
+        long afterId = 0L;
+        int totalDeleted = 0;
+
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<ExpiredKey> expired = idempotencyKeyRepository.findExpiredKeys(
+                    cutoff, afterCreatedAt, afterId, PageRequest.of(0, batchSize));
+            if (expired.isEmpty()) {
+                break;
+            }
+
+            List<Long> ids = expired.stream().map(ExpiredKey::getId).toList();
+            Integer deleted = transactionTemplate.execute(status -> idempotencyKeyRepository.deleteByIdIn(ids));
+            totalDeleted += deleted == null ? 0 : deleted;
+
+            ExpiredKey last = expired.get(expired.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+
+            if (expired.size() < batchSize) {
+                break;
+            }
+        }
+
+        purgedRows.increment(totalDeleted);
+        purgedRowsPerRun.record(totalDeleted);
+        if (totalDeleted > 0) {
+            logger.info("Purged {} idempotency keys created before {}", totalDeleted, cutoff);
+        }
+    }
+}
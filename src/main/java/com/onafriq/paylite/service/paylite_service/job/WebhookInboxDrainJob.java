@@ -0,0 +1,102 @@
+package com.onafriq.paylite.service.paylite_service.job;
+
+import com.onafriq.paylite.service.paylite_service.service.WebhookInboxService;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the webhook inbox with a bounded worker pool. Each poll claims at most as many entries as
+ * there are idle workers, so a burst queues up in webhook_inbox instead of in memory, and never
+ * uses more than app.webhooks.async.workers database connections at once.
+ */
+@Component
+@ConditionalOnProperty(name = "app.webhooks.async.enabled", havingValue = "true")
+public class WebhookInboxDrainJob {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxDrainJob.class);
+
+    private final WebhookInboxService webhookInboxService;
+    private final ExecutorService workers;
+    private final Semaphore idleWorkers;
+
+    @Autowired
+    public WebhookInboxDrainJob(WebhookInboxService webhookInboxService,
+                                @Value("${app.webhooks.async.workers:2}") int workerCount) {
+        this(webhookInboxService, Executors.newFixedThreadPool(workerCount, workerThreadFactory()), workerCount);
+    }
+
+    WebhookInboxDrainJob(WebhookInboxService webhookInboxService, ExecutorService workers, int workerCount) {
+        this.webhookInboxService = webhookInboxService;
+        this.workers = workers;
+        this.idleWorkers = new Semaphore(workerCount);
+    }
+
+    @Scheduled(fixedDelayString = "${app.webhooks.async.poll-interval:PT1S}")
+    public void drain() {
+        webhookInboxService.refreshBacklog();
+
+        int idle = idleWorkers.availablePermits();
+        if (idle == 0) {
+            return;
+        }
+
+        List<Long> dueIds = webhookInboxService.findDueIds(idle);
+        for (Long id : dueIds) {
+            if (!idleWorkers.tryAcquire()) {
+                return;
+            }
+            if (!webhookInboxService.claim(id)) {
+                // Claimed by another instance
+                idleWorkers.release();
+                continue;
+            }
+            try {
+                workers.execute(() -> {
+                    try {
+                        webhookInboxService.process(id);
+                    } catch (RuntimeException e) {
+                        logger.error("Unexpected error processing webhook inbox entry {}", id, e);
+                    } finally {
+                        idleWorkers.release();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // Shutting down; the claim lease expires and the entry is picked up again
+                idleWorkers.release();
+                return;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Webhook workers did not finish within 30s; unfinished entries will be retried after their lease");
+            workers.shutdownNow();
+        }
+    }
+
+    private static ThreadFactory workerThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "webhook-worker-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,109 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Rate limit state held on this node with the generic cell rate algorithm (GCRA). A client's whole
+ * state on a route is one long, its theoretical arrival time (TAT) in System.nanoTime units, advanced
+ * by CAS: a request is allowed while the TAT it would leave behind is at most the burst ahead of now.
+ * A client can send its burst at once and then one request per emission interval, and concurrent
+ * requests can never be allowed past that.
+ * <p>
+ * Known clients are found with a plain get, so no bucket is allocated per request. Clients whose TAT has
+ * passed have a full bucket, the same as an unknown client, and are evicted in the background.
+ * Each replica enforces the limit on its own, so N replicas allow N times the configured rate.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryRateLimitStore implements RateLimitStore {
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryRateLimitStore.class);
+
+    // Marks a cell that eviction has claimed; callers holding it look the client up again
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final EnumMap<RateLimitRoute, ConcurrentHashMap<String, AtomicLong>> buckets =
+            new EnumMap<>(RateLimitRoute.class);
+    private final LongSupplier nanoClock;
+
+    @Autowired
+    public InMemoryRateLimitStore() {
+        this(System::nanoTime);
+    }
+
+    public InMemoryRateLimitStore(LongSupplier nanoClock) {
+        this.nanoClock = nanoClock;
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            buckets.put(route, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(RateLimitRoute route, String clientId, RateLimit limit) {
+        long interval = limit.emissionIntervalNanos();
+        long burst = limit.burstNanos();
+        ConcurrentHashMap<String, AtomicLong> routeBuckets = buckets.get(route);
+        while (true) {
+            AtomicLong cell = routeBuckets.get(clientId);
+            if (cell == null) {
+                long now = nanoClock.getAsLong();
+                cell = routeBuckets.computeIfAbsent(clientId, id -> new AtomicLong(now));
+            }
+            while (true) {
+                long tat = cell.get();
+                if (tat == EVICTED) {
+                    routeBuckets.remove(clientId, cell);
+                    break;
+                }
+                long now = nanoClock.getAsLong();
+                long newTat = Math.max(tat - now, 0) + now + interval;
+                if (newTat - now > burst) {
+                    return RateLimitDecision.of(false, limit, tat - now);
+                }
+                if (cell.compareAndSet(tat, newTat)) {
+                    return RateLimitDecision.of(true, limit, newTat - now);
+                }
+            }
+        }
+    }
+
+    /**
+     * Drops clients whose bucket has refilled. A cell is claimed by CAS before it is removed, so a
+     * request racing with eviction retries against a fresh cell instead of updating a removed one.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval:PT1M}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        int evicted = 0;
+        for (ConcurrentHashMap<String, AtomicLong> routeBuckets : buckets.values()) {
+            Iterator<Map.Entry<String, AtomicLong>> entries = routeBuckets.entrySet().iterator();
+            while (entries.hasNext()) {
+                Map.Entry<String, AtomicLong> entry = entries.next();
+                AtomicLong cell = entry.getValue();
+                long tat = cell.get();
+                if (tat != EVICTED && tat - now <= 0 && cell.compareAndSet(tat, EVICTED)) {
+                    routeBuckets.remove(entry.getKey(), cell);
+                    evicted++;
+                }
+            }
+        }
+        if (evicted > 0) {
+            logger.debug("Evicted {} idle rate limit buckets, {} remain", evicted, size());
+        }
+    }
+
+    int size() {
+        return buckets.values().stream().mapToInt(ConcurrentHashMap::size).sum();
+    }
+}
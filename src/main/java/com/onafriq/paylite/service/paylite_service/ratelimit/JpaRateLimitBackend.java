@@ -0,0 +1,81 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import com.onafriq.paylite.service.paylite_service.entity.RateLimitBucket;
+import com.onafriq.paylite.service.paylite_service.repository.RateLimitBucketRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Shared rate limit buckets in the rate_limit_buckets table. Each reservation locks the bucket's row,
+ * so concurrent nodes take turns and the GCRA schedule is never advanced past the burst. Times are
+ * wall-clock epoch nanoseconds, so node clocks must be kept in sync (NTP).
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "shared")
+public class JpaRateLimitBackend implements SharedRateLimitBackend {
+    private static final Logger logger = LoggerFactory.getLogger(JpaRateLimitBackend.class);
+
+    private final RateLimitBucketRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+
+    @Autowired
+    public JpaRateLimitBackend(RateLimitBucketRepository repository, PlatformTransactionManager transactionManager) {
+        this(repository, new TransactionTemplate(transactionManager), Clock.systemUTC());
+    }
+
+    JpaRateLimitBackend(RateLimitBucketRepository repository, TransactionTemplate transactionTemplate, Clock clock) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+    }
+
+    @Override
+    public Reservation reserve(String bucketKey, int requests, RateLimit limit) {
+        try {
+            return transactionTemplate.execute(status -> reserveLocked(bucketKey, requests, limit));
+        } catch (DataIntegrityViolationException | PessimisticLockingFailureException e) {
+            // Another node created the bucket first, either winning the insert or, on MySQL, the deadlock
+            // between two gap locks on the missing row; its row now exists to lock
+            return transactionTemplate.execute(status -> reserveLocked(bucketKey, requests, limit));
+        }
+    }
+
+    @Override
+    public void purgeRefilled() {
+        Integer purged = transactionTemplate.execute(status -> repository.deleteRefilled(nowNanos()));
+        if (purged != null && purged > 0) {
+            logger.debug("Purged {} refilled shared rate limit buckets", purged);
+        }
+    }
+
+    private Reservation reserveLocked(String bucketKey, int requests, RateLimit limit) {
+        long now = nowNanos();
+        RateLimitBucket bucket = repository.findForUpdate(bucketKey)
+                .orElseGet(() -> RateLimitBucket.create(bucketKey, now));
+        long tat = Math.max(bucket.getTheoreticalArrivalNanos(), now);
+        long interval = limit.emissionIntervalNanos();
+        long headroom = limit.burstNanos() - (tat - now);
+        int granted = (int) Math.min(requests, Math.max(headroom / interval, 0));
+        if (granted > 0) {
+            tat += granted * interval;
+            bucket.setTheoreticalArrivalNanos(tat);
+            repository.saveAndFlush(bucket);
+        }
+        return new Reservation(granted, tat - now);
+    }
+
+    private long nowNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(clock.millis());
+    }
+}
@@ -0,0 +1,153 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Cluster-wide rate limiting that leases blocks of requests from a SharedRateLimitBackend instead of
+ * going to it per request. A node reserves a quarter of the burst at a time, at least
+ * app.rate-limit.shared.min-lease-size and at most app.rate-limit.shared.lease-size (and never more
+ * than the burst), and serves them locally until they run out or the lease expires. The minimum keeps
+ * small tiers, such as the default create burst of 5, from going to the database on every request.
+ * Refusals are remembered until the next request could fit, so a client hammering a node past its
+ * limit costs nothing either.
+ * <p>
+ * Every request served was reserved in the shared bucket first, so leasing never admits more than the
+ * shared limit, across any number of replicas. What a larger lease costs is fairness between nodes:
+ * a node can hold up to one lease of a client's allowance for lease-ttl, so the other nodes may refuse
+ * up to that many requests early, and requests leased but not used before the lease expires are lost.
+ * Both err on the side of allowing fewer.
+ * If the backend is unavailable requests are allowed rather than failing the API on the limiter.
+ */
+@Component
+@ConditionalOnProperty(name = "app.rate-limit.store", havingValue = "shared")
+public class LeasingRateLimitStore implements RateLimitStore {
+    private static final Logger logger = LoggerFactory.getLogger(LeasingRateLimitStore.class);
+
+    private final SharedRateLimitBackend backend;
+    private final int minLeaseSize;
+    private final int maxLeaseSize;
+    private final long leaseTtlNanos;
+    private final LongSupplier nanoClock;
+    private final EnumMap<RateLimitRoute, ConcurrentHashMap<String, Lease>> leases = new EnumMap<>(RateLimitRoute.class);
+
+    @Autowired
+    public LeasingRateLimitStore(SharedRateLimitBackend backend,
+                                 @Value("${app.rate-limit.shared.min-lease-size:3}") int minLeaseSize,
+                                 @Value("${app.rate-limit.shared.lease-size:10}") int maxLeaseSize,
+                                 @Value("${app.rate-limit.shared.lease-ttl:PT1S}") Duration leaseTtl) {
+        this(backend, minLeaseSize, maxLeaseSize, leaseTtl, System::nanoTime);
+    }
+
+    LeasingRateLimitStore(SharedRateLimitBackend backend, int minLeaseSize, int maxLeaseSize, Duration leaseTtl,
+                          LongSupplier nanoClock) {
+        this.backend = backend;
+        this.maxLeaseSize = Math.max(1, maxLeaseSize);
+        this.minLeaseSize = Math.min(Math.max(1, minLeaseSize), this.maxLeaseSize);
+        this.leaseTtlNanos = leaseTtl.toNanos();
+        this.nanoClock = nanoClock;
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            leases.put(route, new ConcurrentHashMap<>());
+        }
+    }
+
+    @Override
+    public RateLimitDecision tryAcquire(RateLimitRoute route, String clientId, RateLimit limit) {
+        ConcurrentHashMap<String, Lease> routeLeases = leases.get(route);
+        Lease lease = routeLeases.get(clientId);
+        if (lease == null) {
+            lease = routeLeases.computeIfAbsent(clientId, id -> new Lease(route.name() + ":" + id, nanoClock.getAsLong()));
+        }
+        return lease.tryTake(limit);
+    }
+
+    /**
+     * Drops expired leases and purges refilled buckets from the backend. A request still holding a
+     * dropped lease may reserve into it; those requests are lost, never double-counted.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.eviction-interval:PT1M}")
+    public void evictIdle() {
+        long now = nanoClock.getAsLong();
+        for (ConcurrentHashMap<String, Lease> routeLeases : leases.values()) {
+            routeLeases.values().removeIf(lease -> lease.isIdle(now));
+        }
+        try {
+            backend.purgeRefilled();
+        } catch (DataAccessException e) {
+            logger.warn("Could not purge shared rate limit buckets: {}", e.getMessage());
+        }
+    }
+
+    int size() {
+        return leases.values().stream().mapToInt(ConcurrentHashMap::size).sum();
+    }
+
+    private final class Lease {
+        private final String bucketKey;
+        private int remaining;
+        private long expiresAt;
+        private long refusedUntil;
+        private long fullAt;
+
+        Lease(String bucketKey, long now) {
+            this.bucketKey = bucketKey;
+            this.expiresAt = now;
+            this.refusedUntil = now;
+            this.fullAt = now;
+        }
+
+        synchronized RateLimitDecision tryTake(RateLimit limit) {
+            long now = nanoClock.getAsLong();
+            if (remaining > 0 && now - expiresAt < 0) {
+                remaining--;
+                return decision(true, limit, now);
+            }
+            if (now - refusedUntil < 0) {
+                return decision(false, limit, now);
+            }
+
+            int leaseSize = Math.min(limit.burst(), Math.max(minLeaseSize, Math.min(maxLeaseSize, limit.burst() / 4)));
+            SharedRateLimitBackend.Reservation reservation;
+            try {
+                reservation = backend.reserve(bucketKey, leaseSize, limit);
+            } catch (DataAccessException e) {
+                logger.warn("Shared rate limit store unavailable, allowing request for {}: {}", bucketKey, e.getMessage());
+                return RateLimitDecision.of(true, limit, 0);
+            }
+            fullAt = now + reservation.nanosUntilFull();
+            if (reservation.granted() == 0) {
+                remaining = 0;
+                // The next request fits once the schedule is within one interval of the burst
+                long nextFits = reservation.nanosUntilFull() - (limit.burstNanos() - limit.emissionIntervalNanos());
+                refusedUntil = now + Math.min(Math.max(nextFits, 0), leaseTtlNanos);
+                return decision(false, limit, now);
+            }
+            remaining = reservation.granted() - 1;
+            expiresAt = now + leaseTtlNanos;
+            return decision(true, limit, now);
+        }
+
+        // The shared schedule counts leased requests as used, so requests still held here are added back
+        private RateLimitDecision decision(boolean allowed, RateLimit limit, long now) {
+            RateLimitDecision shared = RateLimitDecision.of(allowed, limit, Math.max(fullAt - now, 0));
+            int held = now - expiresAt < 0 ? remaining : 0;
+            return new RateLimitDecision(allowed, shared.limit(), Math.min(shared.remaining() + held, shared.limit()),
+                    shared.nanosUntilFull(), shared.nanosUntilNextRequest());
+        }
+
+        synchronized boolean isIdle(long now) {
+            return now - expiresAt >= 0 && now - refusedUntil >= 0 && now - fullAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import java.time.Duration;
+
+/**
+ * A sustained rate of {@code requests} per {@code period}, of which up to {@code burst} may arrive at once.
+ */
+public record RateLimit(int requests, Duration period, int burst) {
+
+    public RateLimit {
+        if (requests < 1 || burst < 1 || period == null || period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("Rate limits need requests >= 1, burst >= 1 and a positive period");
+        }
+    }
+
+    /**
+     * Time one request's worth of allowance takes to refill.
+     */
+    public long emissionIntervalNanos() {
+        return period.toNanos() / requests;
+    }
+
+    /**
+     * How far ahead of now a client's schedule may run before requests are refused.
+     */
+    public long burstNanos() {
+        return emissionIntervalNanos() * burst;
+    }
+}
@@ -0,0 +1,48 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of a rate limit check and the client's allowance after it, as reported in the
+ * X-RateLimit-* and Retry-After response headers.
+ *
+ * @param allowed              whether the request was admitted
+ * @param limit                requests the client can send at once when its allowance is full (the burst)
+ * @param remaining            requests the client can send right now
+ * @param nanosUntilFull       time until the full allowance is available again
+ * @param nanosUntilNextRequest time until the next request would be admitted, 0 if it would be now
+ */
+public record RateLimitDecision(boolean allowed, int limit, int remaining, long nanosUntilFull,
+                                long nanosUntilNextRequest) {
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * Decision for a GCRA schedule that runs {@code nanosUntilFull} ahead of now.
+     */
+    public static RateLimitDecision of(boolean allowed, RateLimit limit, long nanosUntilFull) {
+        long interval = limit.emissionIntervalNanos();
+        long headroom = limit.burstNanos() - nanosUntilFull;
+        int remaining = (int) Math.min(limit.burst(), Math.max(headroom / interval, 0));
+        long untilNext = Math.max(nanosUntilFull - (limit.burstNanos() - interval), 0);
+        return new RateLimitDecision(allowed, limit.burst(), remaining, nanosUntilFull, untilNext);
+    }
+
+    /**
+     * Whole seconds until the full allowance is back, rounded up.
+     */
+    public long resetAfterSeconds() {
+        return ceilSeconds(nanosUntilFull);
+    }
+
+    /**
+     * Whole seconds to wait before retrying, rounded up and at least 1.
+     */
+    public long retryAfterSeconds() {
+        return Math.max(ceilSeconds(nanosUntilNextRequest), 1);
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND;
+    }
+}
@@ -0,0 +1,11 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+/**
+ * Groups of endpoints limited independently, so a merchant polling payment status does not use up
+ * its allowance for creating payments. Configured under app.rate-limit.tiers.<tier>.<route>.
+ */
+public enum RateLimitRoute {
+    CREATE,
+    READ,
+    WEBHOOK
+}
@@ -0,0 +1,13 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+/**
+ * Where rate limit state lives. Chosen with app.rate-limit.store: {@code memory} (default) keeps it
+ * on this node, {@code shared} keeps it in the database so limits hold across replicas.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Takes one request from the client's allowance on the route. A refused request takes nothing.
+     */
+    RateLimitDecision tryAcquire(RateLimitRoute route, String clientId, RateLimit limit);
+}
@@ -0,0 +1,135 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.env.Environment;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Rate limits per API key tier and route, from app.rate-limit.tiers and an optional YAML file,
+ * app.rate-limit.tiers-file, holding a {@code tiers:} block of the same shape. File entries override
+ * application.yml route by route, and the file is re-read when it changes, so limits can be raised for
+ * a merchant's tier without a restart; a file that fails to load leaves the current limits in place.
+ * <p>
+ * Unknown tiers, and routes a tier leaves out, fall back to the default tier, which must define every route.
+ */
+@Component
+public class RateLimitTiers {
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitTiers.class);
+
+    private static final Bindable<Map<String, Map<RateLimitRoute, RateLimit>>> TIERS = Bindable.of(
+            ResolvableType.forClassWithGenerics(Map.class, ResolvableType.forClass(String.class),
+                    ResolvableType.forClassWithGenerics(Map.class, RateLimitRoute.class, RateLimit.class)));
+
+    private final Map<String, Map<RateLimitRoute, RateLimit>> configuredTiers;
+    private final String defaultTier;
+    private final Path file;
+    private volatile Map<String, Map<RateLimitRoute, RateLimit>> tiers = Map.of();
+    private FileTime loadedModifiedTime;
+    private long loadedSize = -1;
+
+    @Autowired
+    public RateLimitTiers(Environment environment,
+                          @Value("${app.rate-limit.default-tier:standard}") String defaultTier,
+                          @Value("${app.rate-limit.tiers-file:}") String file) {
+        this(Binder.get(environment).bind("app.rate-limit.tiers", TIERS).orElse(Map.of()), defaultTier, file);
+    }
+
+    public RateLimitTiers(Map<String, Map<RateLimitRoute, RateLimit>> configuredTiers, String defaultTier, String file) {
+        this.configuredTiers = configuredTiers;
+        this.defaultTier = defaultTier;
+        this.file = file == null || file.isBlank() ? null : Path.of(file);
+        reload();
+    }
+
+    /**
+     * Limit for the route under the given tier, or under the default tier if the tier is null,
+     * unknown or does not limit the route.
+     */
+    public RateLimit limitFor(String tier, RateLimitRoute route) {
+        Map<String, Map<RateLimitRoute, RateLimit>> current = tiers;
+        Map<RateLimitRoute, RateLimit> limits = tier == null ? null : current.get(tier);
+        RateLimit limit = limits == null ? null : limits.get(route);
+        return limit != null ? limit : current.get(defaultTier).get(route);
+    }
+
+    /**
+     * Re-reads the tiers file if its size or modification time changed since the last load.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.reload-interval:PT30S}")
+    public synchronized void reloadIfChanged() {
+        if (file == null) {
+            return;
+        }
+        try {
+            if (Files.size(file) == loadedSize && Files.getLastModifiedTime(file).equals(loadedModifiedTime)) {
+                return;
+            }
+            reload();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not reload rate limit tiers from {}; keeping the current limits", file, e);
+        }
+    }
+
+    /**
+     * Rebuilds the limits from application.yml and the tiers file, then swaps them in atomically.
+     *
+     * @throws IllegalStateException if the file cannot be read or the default tier does not limit every route
+     */
+    public synchronized void reload() {
+        Map<String, Map<RateLimitRoute, RateLimit>> newTiers = new HashMap<>();
+        merge(newTiers, configuredTiers);
+
+        if (file != null) {
+            try {
+                // Recorded first, so a broken file is reported once rather than on every poll
+                loadedModifiedTime = Files.getLastModifiedTime(file);
+                loadedSize = Files.size(file);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read rate limit tiers file " + file, e);
+            }
+            merge(newTiers, readFile());
+        }
+
+        Map<RateLimitRoute, RateLimit> defaults = newTiers.get(defaultTier);
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            if (defaults == null || !defaults.containsKey(route)) {
+                throw new IllegalStateException("Default rate limit tier '" + defaultTier + "' has no "
+                        + route.name().toLowerCase() + " limit");
+            }
+        }
+        tiers = newTiers;
+        logger.info("Loaded rate limits for tiers {}", newTiers.keySet());
+    }
+
+    private Map<String, Map<RateLimitRoute, RateLimit>> readFile() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new FileSystemResource(file));
+        Properties properties = yaml.getObject();
+        return new Binder(new MapConfigurationPropertySource(properties)).bind("tiers", TIERS).orElse(Map.of());
+    }
+
+    private static void merge(Map<String, Map<RateLimitRoute, RateLimit>> target,
+                              Map<String, Map<RateLimitRoute, RateLimit>> source) {
+        source.forEach((tier, limits) ->
+                target.computeIfAbsent(tier, t -> new EnumMap<>(RateLimitRoute.class)).putAll(limits));
+    }
+}
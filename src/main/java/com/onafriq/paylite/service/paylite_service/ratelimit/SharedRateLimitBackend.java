@@ -0,0 +1,24 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+/**
+ * Cluster-wide GCRA state that nodes lease blocks of requests from.
+ */
+public interface SharedRateLimitBackend {
+
+    /**
+     * Reserves up to {@code requests} requests from the bucket's allowance, as many as fit under the limit.
+     */
+    Reservation reserve(String bucketKey, int requests, RateLimit limit);
+
+    /**
+     * Removes buckets whose allowance has fully refilled.
+     */
+    void purgeRefilled();
+
+    /**
+     * @param granted        requests reserved, possibly 0
+     * @param nanosUntilFull time until the bucket's full allowance is available again
+     */
+    record Reservation(int granted, long nanosUntilFull) {
+    }
+}
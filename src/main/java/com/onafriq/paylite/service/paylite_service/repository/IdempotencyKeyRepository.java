@@ -2,12 +2,42 @@ package com.onafriq.paylite.service.paylite_service.repository;
 
 
 import com.onafriq.paylite.service.paylite_service.entity.IdempotencyKey;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
     Optional<IdempotencyKey> findByKey(String key);
-    boolean existsByKey(String key);
-}
\ No newline at end of file
+    List<IdempotencyKey> findByKeyIn(Collection<String> keys);
+
+    /**
+     * Next page of keys created before the cutoff, in (createdAt, id) order after the given cursor.
+     * Served from idx_idempotency_keys_created_at.
+     */
+    @Query("SELECT k.id AS id, k.createdAt AS createdAt FROM IdempotencyKey k " +
+            "WHERE k.createdAt < :cutoff " +
+            "AND (k.createdAt > :afterCreatedAt OR (k.createdAt = :afterCreatedAt AND k.id > :afterId)) " +
+            "ORDER BY k.createdAt, k.id")
+    List<ExpiredKey> findExpiredKeys(@Param("cutoff") LocalDateTime cutoff,
+                                     @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+                                     @Param("afterId") long afterId,
+                                     Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    interface ExpiredKey {
+        Long getId();
+        LocalDateTime getCreatedAt();
+    }
+}
@@ -1,22 +1,45 @@
 package com.onafriq.paylite.service.paylite_service.repository;
 
 import com.onafriq.paylite.service.paylite_service.entity.Payment;
-import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
-import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PaymentRepository extends JpaRepository<Payment, Long> {
+public interface PaymentRepository extends JpaRepository<Payment, Long>, PaymentTransitionRepository {
     Optional<Payment> findByPaymentId(String paymentId);
 
-    @Lock(LockModeType.PESSIMISTIC_WRITE)
-    @Query("SELECT p FROM Payment p WHERE p.paymentId = :paymentId")
-    Optional<Payment> findByPaymentIdForUpdate(@Param("paymentId") String paymentId);
-    boolean existsByPaymentId(String paymentId);
+    @Query("SELECT p.version FROM Payment p WHERE p.paymentId = :paymentId")
+    Optional<Long> findVersionByPaymentId(@Param("paymentId") String paymentId);
+
+    @Query("SELECT p.status FROM Payment p WHERE p.paymentId = :paymentId")
+    Optional<String> findStatusByPaymentId(@Param("paymentId") String paymentId);
+
+    /**
+     * Moves the payment from {@code fromStatus} to {@code toStatus} in a single UPDATE, bumping the
+     * version so ETags change. Returns 0 if the payment does not exist or is not in {@code fromStatus}.
+     */
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :toStatus, p.version = p.version + 1, p.updatedAt = :now " +
+            "WHERE p.paymentId = :paymentId AND p.status = :fromStatus")
+    int transitionStatus(@Param("paymentId") String paymentId,
+                         @Param("fromStatus") String fromStatus,
+                         @Param("toStatus") String toStatus,
+                         @Param("now") LocalDateTime now);
+
+    @Query("SELECT p.paymentId AS paymentId, p.status AS status FROM Payment p WHERE p.paymentId IN :paymentIds")
+    List<PaymentStatusView> findStatusesByPaymentIdIn(@Param("paymentIds") Collection<String> paymentIds);
 
+    interface PaymentStatusView {
+        String getPaymentId();
 
-}
\ No newline at end of file
+        String getStatus();
+    }
+}
@@ -0,0 +1,19 @@
+package com.onafriq.paylite.service.paylite_service.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Status transitions for many payments in one JDBC batch, with the outcome of each row.
+ */
+public interface PaymentTransitionRepository {
+
+    /**
+     * Moves each payment from {@code fromStatus} to {@code toStatus} with the same conditional UPDATE
+     * as {@link PaymentRepository#transitionStatus}, sent as a single JDBC batch.
+     *
+     * @return per payment, in order, 1 if this UPDATE moved it and 0 if it was missing or no longer in
+     *         {@code fromStatus}
+     */
+    int[] transitionStatuses(List<String> paymentIds, String fromStatus, String toStatus, LocalDateTime now);
+}
@@ -0,0 +1,41 @@
+package com.onafriq.paylite.service.paylite_service.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JDBC side of PaymentRepository. Runs on the connection of the surrounding JPA transaction; the
+ * rows it changes are not loaded by Hibernate on that path, so there is nothing to flush first.
+ */
+class PaymentTransitionRepositoryImpl implements PaymentTransitionRepository {
+
+    private static final String TRANSITION_SQL = "UPDATE payments SET status = ?, version = version + 1, updated_at = ? " +
+            "WHERE payment_id = ? AND status = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    PaymentTransitionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int[] transitionStatuses(List<String> paymentIds, String fromStatus, String toStatus, LocalDateTime now) {
+        Timestamp updatedAt = Timestamp.valueOf(now);
+        int[] counts = jdbcTemplate.batchUpdate(TRANSITION_SQL, paymentIds, paymentIds.size(), (statement, paymentId) -> {
+            statement.setString(1, toStatus);
+            statement.setTimestamp(2, updatedAt);
+            statement.setString(3, paymentId);
+            statement.setString(4, fromStatus);
+        })[0];
+        // Outcomes are decided from these counts, so a driver that cannot report them must not pass silently
+        if (Arrays.stream(counts).anyMatch(count -> count == Statement.SUCCESS_NO_INFO)) {
+            throw new IllegalStateException("JDBC driver did not report per-row update counts for payment transitions");
+        }
+        return counts;
+    }
+}
@@ -0,0 +1,30 @@
+package com.onafriq.paylite.service.paylite_service.repository;
+
+import com.onafriq.paylite.service.paylite_service.entity.RateLimitBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface RateLimitBucketRepository extends JpaRepository<RateLimitBucket, String> {
+
+    /**
+     * Reads the bucket and locks its row until the transaction ends, so leases are taken one at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM RateLimitBucket b WHERE b.bucketKey = :bucketKey")
+    Optional<RateLimitBucket> findForUpdate(@Param("bucketKey") String bucketKey);
+
+    /**
+     * Deletes buckets whose allowance has fully refilled; a missing bucket means the same thing.
+     */
+    @Modifying
+    @Query("DELETE FROM RateLimitBucket b WHERE b.theoreticalArrivalNanos < :nowNanos")
+    int deleteRefilled(@Param("nowNanos") long nowNanos);
+}
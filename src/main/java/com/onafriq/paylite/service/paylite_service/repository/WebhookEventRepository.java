@@ -2,17 +2,24 @@ package com.onafriq.paylite.service.paylite_service.repository;
 
 import com.onafriq.paylite.service.paylite_service.entity.WebhookEvent;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 public interface WebhookEventRepository extends JpaRepository<WebhookEvent, Long> {
-    Optional<WebhookEvent> findByEventId(String eventId);
-    boolean existsByPaymentId(String paymentId);
-    boolean existsByPaymentIdAndEventType(String paymentId, String eventType);
-    List<WebhookEvent> findByPaymentIdOrderByProcessedAtDesc(String paymentId);
-    WebhookEvent findByPaymentId(String paymentId);
-    WebhookEvent findByPaymentIdAndEventType(String paymentId, String eventType);
+    List<WebhookEvent> findByEventIdIn(Collection<String> eventIds);
+
+    /**
+     * Events that make a webhook a duplicate: the same PSP event ID (unique index), or the same
+     * payment and event type (idx_payment_id_event_type). A null eventId matches nothing.
+     */
+    @Query("SELECT e FROM WebhookEvent e " +
+            "WHERE e.eventId = :eventId OR (e.paymentId = :paymentId AND e.eventType = :eventType)")
+    List<WebhookEvent> findDuplicates(@Param("eventId") String eventId,
+                                      @Param("paymentId") String paymentId,
+                                      @Param("eventType") String eventType);
 }
\ No newline at end of file
@@ -0,0 +1,43 @@
+package com.onafriq.paylite.service.paylite_service.repository;
+
+import com.onafriq.paylite.service.paylite_service.entity.WebhookInboxEntry;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookInboxStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface WebhookInboxRepository extends JpaRepository<WebhookInboxEntry, Long> {
+
+    /**
+     * Entries due for processing: PENDING entries whose backoff has passed, and PROCESSING entries
+     * whose lease has expired because the worker holding them died.
+     */
+    @Query("SELECT e.id FROM WebhookInboxEntry e " +
+            "WHERE e.status IN :statuses AND e.nextAttemptAt <= :now " +
+            "ORDER BY e.nextAttemptAt")
+    List<Long> findDueIds(@Param("statuses") Collection<WebhookInboxStatus> statuses,
+                          @Param("now") LocalDateTime now,
+                          Pageable pageable);
+
+    /**
+     * Claims a due entry for this worker until the lease ends. Returns 0 if another worker claimed it first.
+     */
+    @Modifying
+    @Query("UPDATE WebhookInboxEntry e SET e.status = :processing, e.nextAttemptAt = :leaseUntil " +
+            "WHERE e.id = :id AND e.status IN :statuses AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id,
+              @Param("statuses") Collection<WebhookInboxStatus> statuses,
+              @Param("processing") WebhookInboxStatus processing,
+              @Param("now") LocalDateTime now,
+              @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    long countByStatusIn(Collection<WebhookInboxStatus> statuses);
+}
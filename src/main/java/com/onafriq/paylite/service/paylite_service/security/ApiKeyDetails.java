@@ -0,0 +1,9 @@
+package com.onafriq.paylite.service.paylite_service.security;
+
+/**
+ * Metadata of an authenticated API key. The merchantId keys the rate limit buckets and the tier
+ * names a rate limit tier.
+ */
+public record ApiKeyDetails(String merchantId, String tier) {
+    public static final String DEFAULT_TIER = "standard";
+}
@@ -0,0 +1,190 @@
+package com.onafriq.paylite.service.paylite_service.security;
+
+import com.onafriq.paylite.service.paylite_service.crypto.CryptoPrimitives;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * API keys held as SHA-256 digests, indexed by the first 8 digest bytes and confirmed with a
+ * constant-time comparison of the full digest. A lookup costs one hash and one map probe however
+ * many merchants are configured, and plaintext keys are never kept in memory.
+ * <p>
+ * Keys come from app.api-keys (default tier) and from an optional file, app.api-key-store.file, with
+ * one {@code <key or sha256:hex digest>,<merchantId>,<tier>} entry per line. A key without a merchantId
+ * is identified by {@code key-} and the first 8 bytes of its digest in hex, so each such key is rate
+ * limited on its own. The file is re-read when it changes; a file that fails to parse leaves the
+ * current keys in place.
+ */
+@Component
+public class ApiKeyStore {
+    private static final Logger logger = LoggerFactory.getLogger(ApiKeyStore.class);
+
+    static final String DIGEST_PREFIX = "sha256:";
+    static final String CLIENT_ID_PREFIX = "key-";
+
+    private final String[] configuredKeys;
+    private final Path file;
+    private volatile Map<Long, List<Entry>> index = Map.of();
+    private int keyCount;
+    private FileTime loadedModifiedTime;
+    private long loadedSize = -1;
+
+    public ApiKeyStore(@Value("${app.api-keys:}") String[] configuredKeys,
+                       @Value("${app.api-key-store.file:}") String file) {
+        this.configuredKeys = configuredKeys;
+        this.file = file == null || file.isBlank() ? null : Path.of(file);
+        reload();
+    }
+
+    /**
+     * Details of the given API key, or empty if it is not a configured key.
+     */
+    public Optional<ApiKeyDetails> find(String apiKey) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            return Optional.empty();
+        }
+        byte[] digest = CryptoPrimitives.sha256(apiKey.getBytes(StandardCharsets.UTF_8));
+        List<Entry> candidates = index.get(indexKey(digest));
+        if (candidates == null) {
+            return Optional.empty();
+        }
+        ApiKeyDetails match = null;
+        for (Entry candidate : candidates) {
+            if (MessageDigest.isEqual(candidate.digest(), digest)) {
+                match = candidate.details();
+            }
+        }
+        return Optional.ofNullable(match);
+    }
+
+    /**
+     * Re-reads the key file if its size or modification time changed since the last load.
+     */
+    @Scheduled(fixedDelayString = "${app.api-key-store.reload-interval:PT30S}")
+    public synchronized void reloadIfChanged() {
+        if (file == null) {
+            return;
+        }
+        try {
+            if (Files.size(file) == loadedSize && Files.getLastModifiedTime(file).equals(loadedModifiedTime)) {
+                return;
+            }
+            reload();
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not reload API keys from {}; keeping the current {} keys", file, keyCount, e);
+        }
+    }
+
+    /**
+     * Rebuilds the key set from app.api-keys and the key file, then swaps it in atomically.
+     *
+     * @throws IllegalStateException if the key file cannot be read or has an invalid entry
+     */
+    public synchronized void reload() {
+        Map<String, Entry> entries = new LinkedHashMap<>();
+        if (configuredKeys != null) {
+            for (String key : configuredKeys) {
+                if (key != null && !key.isEmpty()) {
+                    byte[] digest = digestOf(key);
+                    put(entries, digest, new ApiKeyDetails(clientIdOf(digest), ApiKeyDetails.DEFAULT_TIER));
+                }
+            }
+        }
+
+        if (file != null) {
+            try {
+                // Recorded first, so a broken file is reported once rather than on every poll
+                loadedModifiedTime = Files.getLastModifiedTime(file);
+                loadedSize = Files.size(file);
+                readFile(entries);
+            } catch (IOException e) {
+                throw new IllegalStateException("Could not read API key file " + file, e);
+            }
+        }
+
+        Map<Long, List<Entry>> newIndex = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            newIndex.computeIfAbsent(indexKey(entry.digest()), k -> new ArrayList<>(1)).add(entry);
+        }
+        index = newIndex;
+        keyCount = entries.size();
+        logger.info("Loaded {} API keys", keyCount);
+    }
+
+    int size() {
+        return keyCount;
+    }
+
+    private void readFile(Map<String, Entry> entries) throws IOException {
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split(",", -1);
+            if (fields.length > 3 || fields[0].isBlank()) {
+                // The line may hold a key, so it is never logged
+                throw new IllegalStateException("Invalid API key entry on line " + (i + 1) + " of " + file);
+            }
+            byte[] digest = parseKey(fields[0].trim(), i + 1);
+            String merchantId = fields.length > 1 && !fields[1].isBlank() ? fields[1].trim() : clientIdOf(digest);
+            String tier = fields.length > 2 && !fields[2].isBlank() ? fields[2].trim() : ApiKeyDetails.DEFAULT_TIER;
+            put(entries, digest, new ApiKeyDetails(merchantId, tier));
+        }
+    }
+
+    private byte[] parseKey(String key, int lineNumber) {
+        if (!key.startsWith(DIGEST_PREFIX)) {
+            return digestOf(key);
+        }
+        try {
+            byte[] digest = HexFormat.of().parseHex(key.substring(DIGEST_PREFIX.length()));
+            if (digest.length == 32) {
+                return digest;
+            }
+        } catch (IllegalArgumentException e) {
+            // Reported below
+        }
+        throw new IllegalStateException("Invalid SHA-256 digest on line " + lineNumber + " of " + file);
+    }
+
+    // A key listed twice keeps the details of its last entry
+    private static void put(Map<String, Entry> entries, byte[] digest, ApiKeyDetails details) {
+        entries.put(HexFormat.of().formatHex(digest), new Entry(digest, details));
+    }
+
+    private static byte[] digestOf(String key) {
+        return CryptoPrimitives.sha256(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Stable across reloads and nodes, and safe to log since it is a digest prefix, not the key
+    static String clientIdOf(byte[] digest) {
+        return CLIENT_ID_PREFIX + HexFormat.of().formatHex(digest, 0, Long.BYTES);
+    }
+
+    private static long indexKey(byte[] digest) {
+        return ByteBuffer.wrap(digest).getLong();
+    }
+
+    private record Entry(byte[] digest, ApiKeyDetails details) {
+    }
+}
@@ -1,5 +1,11 @@
 package com.onafriq.paylite.service.paylite_service.service;
 
+import com.onafriq.paylite.service.paylite_service.cache.IdempotencyCache;
+import com.onafriq.paylite.service.paylite_service.cache.IdempotencyCache.CachedIdempotencyKey;
+import com.onafriq.paylite.service.paylite_service.crypto.CryptoPrimitives;
+import com.onafriq.paylite.service.paylite_service.crypto.PrimitivePool;
+import com.onafriq.paylite.service.paylite_service.dto.IdempotencyResolution;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
 import com.onafriq.paylite.service.paylite_service.entity.IdempotencyKey;
 import com.onafriq.paylite.service.paylite_service.exception.HashCalculationException;
 import com.onafriq.paylite.service.paylite_service.repository.IdempotencyKeyRepository;
@@ -10,45 +16,139 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
 public class IdempotencyService {
     private static final Logger logger = LoggerFactory.getLogger(IdempotencyService.class);
+
+    static final String REQUEST_HASH_VERSION_PREFIX = "v1:";
+    private static final PrimitivePool<HashBuffer> HASH_BUFFERS =
+            new PrimitivePool<>(HashBuffer::new, HashBuffer::reset, CryptoPrimitives.POOL_CAPACITY);
     
     private final IdempotencyKeyRepository idempotencyKeyRepository;
     private final RetryTemplate retryTemplate;
+    private final IdempotencyCache idempotencyCache;
     
-    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, RetryTemplate retryTemplate) {
+    public IdempotencyService(IdempotencyKeyRepository idempotencyKeyRepository, RetryTemplate retryTemplate,
+                              IdempotencyCache idempotencyCache) {
         this.idempotencyKeyRepository = idempotencyKeyRepository;
         this.retryTemplate = retryTemplate;
+        this.idempotencyCache = idempotencyCache;
     }
     
-    public String calculateRequestHash(Object request) {
-        try {
-            String requestString = request.toString();
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(requestString.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(hash);
-        } catch (NoSuchAlgorithmException e) {
-            throw new HashCalculationException("Failed to calculate request hash", e);
-        }
+    /**
+     * Hashes the PaymentRequest fields in a fixed, length-prefixed layout straight into a reused digest.
+     * The result carries a format version prefix so stored hashes stay comparable across releases.
+     */
+    public String calculateRequestHash(PaymentRequest request) {
+        byte[] hash = HASH_BUFFERS.apply(buffer -> {
+            buffer.putLong(request.getAmount());
+            buffer.putString(request.getCurrency());
+            buffer.putString(request.getCustomerEmail());
+            buffer.putString(request.getReference());
+            return buffer.digest();
+        });
+        return REQUEST_HASH_VERSION_PREFIX + Base64.getEncoder().encodeToString(hash);
     }
-    
+
+    /**
+     * Hash format used before request hashes were versioned: SHA-256 of the Lombok toString() of the request.
+     * Only consulted for idempotency keys stored by earlier releases.
+     */
+    String calculateLegacyRequestHash(PaymentRequest request) {
+        byte[] hash = CryptoPrimitives.sha256(request.toString().getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    /**
+     * Resolves an Idempotency-Key with a single lookup on the unique key index.
+     * Keys already seen by this instance are answered from the idempotency cache.
+     */
+    @Transactional(readOnly = true)
+    public IdempotencyResolution resolve(String idempotencyKey, String requestHash) {
+        return resolve(idempotencyKey, requestHash, null);
+    }
+
+    /**
+     * Same as {@link #resolve(String, String)}, additionally matching keys stored with the legacy,
+     * unversioned hash format against the given request.
+     */
     @Transactional(readOnly = true)
-    public Optional<String> getExistingResponse(String idempotencyKey, String requestHash) {
+    public IdempotencyResolution resolve(String idempotencyKey, String requestHash, PaymentRequest request) {
+        Optional<CachedIdempotencyKey> cached = idempotencyCache.get(idempotencyKey);
+        if (cached.isPresent()) {
+            return toResolution(cached.get(), requestHash, request);
+        }
+
         return retryTemplate.execute(context -> {
-            return idempotencyKeyRepository.findByKey(idempotencyKey)
-                    .filter(storedKey -> storedKey.getRequestHash().equals(requestHash))
-                    .map(IdempotencyKey::getResponseBody);
+            Optional<CachedIdempotencyKey> existingRecord = findAndCache(idempotencyKey);
+
+            if (existingRecord.isEmpty()) {
+                return IdempotencyResolution.newRequest();
+            }
+            return toResolution(existingRecord.get(), requestHash, request);
         }, context -> {
-            // Recovery logic if retries exhausted
-            throw new HashCalculationException("Failed to retrieve idempotency key after retries", context.getLastThrowable());
+            throw new HashCalculationException(
+                    "Failed to resolve idempotency key [" + idempotencyKey + "] after retries",
+                    context.getLastThrowable()
+            );
         });
     }
-    
+
+    /**
+     * Resolves many Idempotency-Keys at once. Keys not in the idempotency cache are read with a single IN query.
+     *
+     * @param requestHashesByKey request hash for each key
+     * @param requestsByKey      request for each key, used to match keys stored with the legacy hash format
+     * @return resolution for every key in requestHashesByKey
+     */
+    @Transactional(readOnly = true)
+    public Map<String, IdempotencyResolution> resolveAll(Map<String, String> requestHashesByKey,
+                                                         Map<String, PaymentRequest> requestsByKey) {
+        Map<String, IdempotencyResolution> resolutions = new HashMap<>();
+        List<String> uncachedKeys = new ArrayList<>();
+
+        requestHashesByKey.forEach((idempotencyKey, requestHash) -> {
+            Optional<CachedIdempotencyKey> cached = idempotencyCache.get(idempotencyKey);
+            if (cached.isPresent()) {
+                resolutions.put(idempotencyKey, toResolution(cached.get(), requestHash, requestsByKey.get(idempotencyKey)));
+            } else {
+                uncachedKeys.add(idempotencyKey);
+            }
+        });
+
+        if (uncachedKeys.isEmpty()) {
+            return resolutions;
+        }
+
+        List<IdempotencyKey> storedKeys = retryTemplate.execute(context -> {
+            return idempotencyKeyRepository.findByKeyIn(uncachedKeys);
+        }, context -> {
+            throw new HashCalculationException(
+                    "Failed to resolve " + uncachedKeys.size() + " idempotency keys after retries",
+                    context.getLastThrowable()
+            );
+        });
+
+        for (IdempotencyKey record : storedKeys) {
+            idempotencyCache.put(record.getKey(), record.getRequestHash(), record.getResponseBody());
+            CachedIdempotencyKey storedKey = new CachedIdempotencyKey(record.getRequestHash(), record.getResponseBody());
+            resolutions.put(record.getKey(), toResolution(storedKey,
+                    requestHashesByKey.get(record.getKey()), requestsByKey.get(record.getKey())));
+        }
+        for (String idempotencyKey : uncachedKeys) {
+            resolutions.putIfAbsent(idempotencyKey, IdempotencyResolution.newRequest());
+        }
+        return resolutions;
+    }
+
     @Transactional
     public void storeIdempotencyKey(String idempotencyKey, String requestHash,
                                     String responseBody, String paymentId) {
@@ -69,29 +169,128 @@ public class IdempotencyService {
                     context.getLastThrowable()
             );
         });
-    }
-
-
-    public boolean hasConflict(String idempotencyKey, String requestHash) {
-        return retryTemplate.execute(context -> {
-            Optional<IdempotencyKey> existingRecord =
-                    idempotencyKeyRepository.findByKey(idempotencyKey);
 
-            if (existingRecord.isEmpty()) {
-                return false; // No conflict - key doesn't exist
-            }
+        idempotencyCache.putAfterCommit(idempotencyKey, requestHash, responseBody);
+    }
 
-            IdempotencyKey record = existingRecord.get();
+    /**
+     * Stores many idempotency keys with one saveAll, so Hibernate can send the inserts as a JDBC batch.
+     */
+    @Transactional
+    public void storeIdempotencyKeys(List<IdempotencyKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
 
-            // Conflict if hash is different
-            return !record.getRequestHash().equals(requestHash);
+        retryTemplate.execute(context -> {
+            idempotencyKeyRepository.saveAll(keys);
+            logger.info("Stored {} idempotency keys", keys.size());
+            return null;
         }, context -> {
-            // Recovery callback if retries exhausted
-            throw new RuntimeException(
-                    "Failed to check idempotency conflict for key [" + idempotencyKey + "] after retries",
+            throw new HashCalculationException(
+                    "Failed to store " + keys.size() + " idempotency keys after retries",
                     context.getLastThrowable()
             );
         });
+
+        for (IdempotencyKey key : keys) {
+            idempotencyCache.putAfterCommit(key.getKey(), key.getRequestHash(), key.getResponseBody());
+        }
+    }
+
+    private Optional<CachedIdempotencyKey> findAndCache(String idempotencyKey) {
+        Optional<IdempotencyKey> existingRecord = idempotencyKeyRepository.findByKey(idempotencyKey);
+        existingRecord.ifPresent(record ->
+                idempotencyCache.put(record.getKey(), record.getRequestHash(), record.getResponseBody()));
+        return existingRecord.map(record -> new CachedIdempotencyKey(record.getRequestHash(), record.getResponseBody()));
+    }
+
+    private IdempotencyResolution toResolution(CachedIdempotencyKey storedKey, String requestHash, PaymentRequest request) {
+        String storedHash = storedKey.requestHash();
+        if (storedHash.equals(requestHash)) {
+            return IdempotencyResolution.replay(storedKey.responseBody());
+        }
+        if (request != null && !storedHash.startsWith(REQUEST_HASH_VERSION_PREFIX)
+                && storedHash.equals(calculateLegacyRequestHash(request))) {
+            return IdempotencyResolution.replay(storedKey.responseBody());
+        }
+        return IdempotencyResolution.conflict();
+    }
+
+    /**
+     * Pooled SHA-256 digest plus scratch buffer, so hashing a request allocates nothing but the encoded result.
+     * Every field starts with a tag byte, 0 for null and 1 for a value, so the layout stays prefix-free:
+     * longs follow as 8 bytes, strings as a char count and UTF-16 code units.
+     */
+    private static final class HashBuffer {
+        private static final byte NULL_TAG = 0;
+        private static final byte VALUE_TAG = 1;
+
+        private final MessageDigest digest;
+        private byte[] scratch = new byte[256];
+        private int position;
+
+        private HashBuffer() {
+            this.digest = CryptoPrimitives.newSha256();
+        }
+
+        void reset() {
+            digest.reset();
+            position = 0;
+        }
+
+        void putLong(Long value) {
+            if (value == null) {
+                putByte(NULL_TAG);
+                return;
+            }
+            putByte(VALUE_TAG);
+            ensureCapacity(Long.BYTES);
+            long v = value;
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                scratch[position++] = (byte) (v >>> shift);
+            }
+        }
+
+        void putString(String value) {
+            if (value == null) {
+                putByte(NULL_TAG);
+                return;
+            }
+            putByte(VALUE_TAG);
+            int length = value.length();
+            putInt(length);
+            ensureCapacity(length * 2);
+            for (int i = 0; i < length; i++) {
+                char c = value.charAt(i);
+                scratch[position++] = (byte) (c >>> 8);
+                scratch[position++] = (byte) c;
+            }
+        }
+
+        byte[] digest() {
+            digest.update(scratch, 0, position);
+            return digest.digest();
+        }
+
+        private void putByte(byte value) {
+            ensureCapacity(1);
+            scratch[position++] = value;
+        }
+
+        private void putInt(int value) {
+            ensureCapacity(Integer.BYTES);
+            scratch[position++] = (byte) (value >>> 24);
+            scratch[position++] = (byte) (value >>> 16);
+            scratch[position++] = (byte) (value >>> 8);
+            scratch[position++] = (byte) value;
+        }
+
+        private void ensureCapacity(int additional) {
+            if (position + additional > scratch.length) {
+                scratch = Arrays.copyOf(scratch, Math.max(scratch.length * 2, position + additional));
+            }
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,111 @@
+package com.onafriq.paylite.service.paylite_service.service;
+
+import com.onafriq.paylite.service.paylite_service.exception.PaymentIdGenerationException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.PAYMENT_ID_PREFIX;
+
+/**
+ * Generates payment IDs that are unique per node without a database round trip.
+ * <p>
+ * Each ID is a 63-bit value made of a 41-bit millisecond timestamp (since {@link #EPOCH}),
+ * a 10-bit node id and a 12-bit per-millisecond sequence, written as 13 fixed-width
+ * Crockford base32 characters after the {@code pl_} prefix. IDs sort in creation order,
+ * so inserts land at the right edge of idx_payment_id instead of at random pages.
+ * <p>
+ * Every running instance must be configured with a distinct app.payment-id.node-id (PAYLITE_NODE_ID);
+ * there is no default, since two instances left on the same one would issue colliding IDs.
+ */
+@Component
+public class PaymentIdGenerator {
+
+    static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+
+    static final int NODE_ID_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final int MAX_NODE_ID = (1 << NODE_ID_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789abcdefghjkmnpqrstvwxyz".toCharArray();
+
+    private final long nodeId;
+    private final LongSupplier currentTimeMillis;
+    private final long maxClockDriftMillis;
+
+    // Last issued (timestamp << SEQUENCE_BITS | sequence); advanced with CAS so generation never blocks
+    private final AtomicLong lastState = new AtomicLong();
+
+    @Autowired
+    public PaymentIdGenerator(@Value("${app.payment-id.node-id:#{null}}") Integer nodeId,
+                              @Value("${app.payment-id.max-clock-drift-ms:5000}") long maxClockDriftMillis) {
+        this(requireNodeId(nodeId), maxClockDriftMillis, System::currentTimeMillis);
+    }
+
+    PaymentIdGenerator(int nodeId, long maxClockDriftMillis, LongSupplier currentTimeMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.payment-id.node-id must be between 0 and " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.maxClockDriftMillis = maxClockDriftMillis;
+        this.currentTimeMillis = currentTimeMillis;
+    }
+
+    private static int requireNodeId(Integer nodeId) {
+        if (nodeId == null) {
+            throw new IllegalStateException(
+                    "app.payment-id.node-id (PAYLITE_NODE_ID) must be set to a value unique to this instance, 0-" + MAX_NODE_ID);
+        }
+        return nodeId;
+    }
+
+    public String nextPaymentId() {
+        return PAYMENT_ID_PREFIX + encode(nextId());
+    }
+
+    /**
+     * Returns the next raw ID. If the clock stands still or steps back, the last timestamp keeps being
+     * used and the sequence rolls over into the following millisecond, so IDs stay monotonic.
+     *
+     * @throws PaymentIdGenerationException if issued IDs run ahead of the clock by more than the allowed drift
+     */
+    public long nextId() {
+        while (true) {
+            long now = currentTimeMillis.getAsLong() - EPOCH.toEpochMilli();
+            long last = lastState.get();
+            long lastTimestamp = last >>> SEQUENCE_BITS;
+
+            long next;
+            if (now > lastTimestamp) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                if (lastTimestamp - now > maxClockDriftMillis) {
+                    throw new PaymentIdGenerationException(String.format(
+                            "System clock is %d ms behind the last issued payment ID", lastTimestamp - now));
+                }
+                // Same millisecond or clock stepped back: continue the sequence; overflow carries into the timestamp
+                next = last + 1;
+            }
+
+            if (lastState.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                long sequence = next & SEQUENCE_MASK;
+                return (timestamp << (NODE_ID_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+            }
+        }
+    }
+
+    static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
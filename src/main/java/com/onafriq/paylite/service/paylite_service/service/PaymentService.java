@@ -2,26 +2,42 @@ package com.onafriq.paylite.service.paylite_service.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.cache.PaymentCache;
+import com.onafriq.paylite.service.paylite_service.concurrency.InFlightRequestRegistry;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentItem;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentResponse;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentResult;
+import com.onafriq.paylite.service.paylite_service.dto.IdempotencyResolution;
 import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
 import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
 import com.onafriq.paylite.service.paylite_service.entity.IdempotencyKey;
 import com.onafriq.paylite.service.paylite_service.entity.Payment;
+import com.onafriq.paylite.service.paylite_service.enums.BatchItemOutcome;
+import com.onafriq.paylite.service.paylite_service.event.PaymentStatusChangedEvent;
 import com.onafriq.paylite.service.paylite_service.enums.PaymentStatus;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookEventOutcome;
 import com.onafriq.paylite.service.paylite_service.exception.IdempotencyConflictException;
-import com.onafriq.paylite.service.paylite_service.exception.PaymentIdGenerationException;
 import com.onafriq.paylite.service.paylite_service.exception.PaymentNotFoundException;
 import com.onafriq.paylite.service.paylite_service.repository.IdempotencyKeyRepository;
 import com.onafriq.paylite.service.paylite_service.repository.PaymentRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.sql.SQLTransientException;
-import java.util.UUID;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
-import static com.onafriq.paylite.service.paylite_service.config.AppConstants.PAYMENT_ID_PREFIX;
 import static com.onafriq.paylite.service.paylite_service.config.AppConstants.WEBHOOK_EVENT_SUCCEEDED;
 
 @Service
@@ -33,30 +49,50 @@ public class PaymentService {
 
     private final ObjectMapper objectMapper;
     private final RetryTemplate retryTemplate;
+    private final InFlightRequestRegistry inFlightRequests;
+    private final PaymentIdGenerator paymentIdGenerator;
+    private final PaymentCache paymentCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
-    public PaymentService(PaymentRepository paymentRepository, IdempotencyService idempotencyService, ObjectMapper objectMapper, RetryTemplate retryTemplate) {
+    public PaymentService(PaymentRepository paymentRepository, IdempotencyService idempotencyService, ObjectMapper objectMapper, RetryTemplate retryTemplate,
+                          InFlightRequestRegistry inFlightRequests, PaymentIdGenerator paymentIdGenerator,
+                          PaymentCache paymentCache, ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager) {
         this.paymentRepository = paymentRepository;
         this.idempotencyService = idempotencyService;
         this.objectMapper = objectMapper;
         this.retryTemplate = retryTemplate;
+        this.inFlightRequests = inFlightRequests;
+        this.paymentIdGenerator = paymentIdGenerator;
+        this.paymentCache = paymentCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
-    @Transactional
-    public PaymentResponse createPayment(PaymentRequest request, String idempotencyKey) throws JsonProcessingException {
+    /**
+     * Creates a payment, or replays the stored response for a repeated Idempotency-Key.
+     * Concurrent requests with the same key are coalesced: only the first runs the transaction,
+     * the others wait for it to commit and share its response.
+     */
+    public PaymentResponse createPayment(PaymentRequest request, String idempotencyKey) {
         String requestHash = idempotencyService.calculateRequestHash(request);
 
-        // Check for existing response
-        var existingResponse = idempotencyService.getExistingResponse(idempotencyKey, requestHash);
-        if (existingResponse.isPresent()) {
-            return objectMapper.readValue(existingResponse.get(), PaymentResponse.class);
-        }
+        return inFlightRequests.execute(idempotencyKey, requestHash, () ->
+                transactionTemplate.execute(status -> createPaymentInTransaction(request, idempotencyKey, requestHash)));
+    }
 
-        // Check for conflict
-        if (idempotencyService.hasConflict(idempotencyKey, requestHash)) {
+    private PaymentResponse createPaymentInTransaction(PaymentRequest request, String idempotencyKey, String requestHash) {
+        // Replay, conflict or new request - resolved from a single idempotency key lookup
+        IdempotencyResolution resolution = idempotencyService.resolve(idempotencyKey, requestHash, request);
+        if (resolution.isReplay()) {
+            return readStoredResponse(resolution.getResponseBody());
+        }
+        if (resolution.isConflict()) {
             throw new IdempotencyConflictException("Idempotency-Key already used with different request");
         }
 
-        String paymentId = generatePaymentId();
+        String paymentId = paymentIdGenerator.nextPaymentId();
 
         Payment payment = Payment.builder()
                 .paymentId(paymentId)
@@ -71,7 +107,7 @@ public class PaymentService {
         logger.info("Created payment with ID: {}", paymentId);
 
         // Store idempotency key with response
-        String responseBody = String.format("{\"paymentId\":\"%s\",\"status\":\"PENDING\"}", paymentId);
+        String responseBody = createdResponseBody(paymentId);
 
         idempotencyService.storeIdempotencyKey(idempotencyKey,requestHash, responseBody, paymentId);
         logger.info("Stored idempotency key for payment: {}", paymentId);
@@ -81,56 +117,233 @@ public class PaymentService {
                 .build();
     }
 
+    /**
+     * Creates a batch of payments, each with its own Idempotency-Key, in one transaction.
+     * All keys are resolved with one IN query and the new payments and keys are inserted with saveAll.
+     * A key repeated within the batch replays the first item's result, or conflicts if the payload differs.
+     * If a concurrent request stores one of the keys first, the unique key index rejects this batch and it
+     * is resolved again, so its items replay the stored results instead of failing.
+     *
+     * @return one result per item, in item order
+     */
+    public BatchPaymentResponse createPayments(List<BatchPaymentItem> items) {
+        try {
+            return transactionTemplate.execute(status -> createPaymentsInTransaction(items));
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Idempotency keys of a payment batch were stored concurrently, resolving again: {}", e.getMessage());
+            return transactionTemplate.execute(status -> createPaymentsInTransaction(items));
+        }
+    }
+
+    private BatchPaymentResponse createPaymentsInTransaction(List<BatchPaymentItem> items) {
+        Map<String, String> requestHashesByKey = new HashMap<>();
+        Map<String, PaymentRequest> requestsByKey = new HashMap<>();
+        List<String> requestHashes = new ArrayList<>(items.size());
+        for (BatchPaymentItem item : items) {
+            String requestHash = idempotencyService.calculateRequestHash(item.getPayment());
+            requestHashes.add(requestHash);
+            requestHashesByKey.putIfAbsent(item.getIdempotencyKey(), requestHash);
+            requestsByKey.putIfAbsent(item.getIdempotencyKey(), item.getPayment());
+        }
+
+        Map<String, IdempotencyResolution> resolutions = idempotencyService.resolveAll(requestHashesByKey, requestsByKey);
+
+        Map<String, BatchPaymentResult> resultsByKey = new HashMap<>();
+        List<BatchPaymentResult> results = new ArrayList<>(items.size());
+        List<Payment> newPayments = new ArrayList<>();
+        List<IdempotencyKey> newKeys = new ArrayList<>();
+
+        for (int i = 0; i < items.size(); i++) {
+            BatchPaymentItem item = items.get(i);
+            String idempotencyKey = item.getIdempotencyKey();
+            String requestHash = requestHashes.get(i);
+
+            BatchPaymentResult earlier = resultsByKey.get(idempotencyKey);
+            if (earlier != null) {
+                // Same key earlier in this batch
+                results.add(requestHash.equals(requestHashesByKey.get(idempotencyKey)) && earlier.getOutcome() != BatchItemOutcome.CONFLICT
+                        ? batchResult(idempotencyKey, BatchItemOutcome.REPLAYED, earlier.getPaymentId(), earlier.getStatus())
+                        : conflictResult(idempotencyKey));
+                continue;
+            }
+
+            IdempotencyResolution resolution = resolutions.get(idempotencyKey);
+            BatchPaymentResult result;
+            if (resolution.isReplay()) {
+                PaymentResponse stored = readStoredResponse(resolution.getResponseBody());
+                result = batchResult(idempotencyKey, BatchItemOutcome.REPLAYED, stored.getPaymentId(), stored.getStatus());
+            } else if (resolution.isConflict()) {
+                result = conflictResult(idempotencyKey);
+            } else {
+                String paymentId = paymentIdGenerator.nextPaymentId();
+                PaymentRequest request = item.getPayment();
+                newPayments.add(Payment.builder()
+                        .paymentId(paymentId)
+                        .amount(request.getAmount())
+                        .currency(request.getCurrency())
+                        .reference(request.getReference())
+                        .customerEmail(request.getCustomerEmail())
+                        .status(PaymentStatus.PENDING.toString())
+                        .build());
+                newKeys.add(IdempotencyKey.builder()
+                        .key(idempotencyKey)
+                        .requestHash(requestHash)
+                        .responseBody(createdResponseBody(paymentId))
+                        .paymentId(paymentId)
+                        .build());
+                result = batchResult(idempotencyKey, BatchItemOutcome.CREATED, paymentId, PaymentStatus.PENDING.toString());
+            }
+            resultsByKey.put(idempotencyKey, result);
+            results.add(result);
+        }
+
+        if (!newPayments.isEmpty()) {
+            paymentRepository.saveAll(newPayments);
+            idempotencyService.storeIdempotencyKeys(newKeys);
+        }
+        logger.info("Processed payment batch of {} items, created {}", items.size(), newPayments.size());
+
+        return new BatchPaymentResponse(results);
+    }
+
+    /**
+     * Returns the payment status, read through the payment cache.
+     */
     public PaymentResponse getPayment(String paymentId) throws SQLTransientException {
+        return paymentCache.get(paymentId, this::loadPayment);
+    }
+
+    /**
+     * Current version of the payment, for conditional GETs. A cached final status is authoritative;
+     * otherwise only the version column is read, without loading the entity.
+     */
+    public Optional<Long> getPaymentVersion(String paymentId) {
+        PaymentResponse cached = paymentCache.getIfPresent(paymentId);
+        if (cached != null && cached.getVersion() != null && !PaymentStatus.PENDING.toString().equals(cached.getStatus())) {
+            return Optional.of(cached.getVersion());
+        }
+        return retryTemplate.execute(context -> paymentRepository.findVersionByPaymentId(paymentId));
+    }
+
+    private PaymentResponse loadPayment(String paymentId) {
         return retryTemplate.execute(context -> {
             Payment payment = paymentRepository.findByPaymentId(paymentId)
                     .orElseThrow(() -> new PaymentNotFoundException(
                             String.format("Payment with ID '%s' not found", paymentId)));
 
-            return new PaymentResponse(
-                    payment.getPaymentId(),
-                    payment.getStatus(),
-                    payment.getAmount(),
-                    payment.getCurrency(),
-                    payment.getReference(),
-                    payment.getCustomerEmail()
-            );
+            return PaymentResponse.builder()
+                    .paymentId(payment.getPaymentId())
+                    .status(payment.getStatus())
+                    .amount(payment.getAmount())
+                    .currency(payment.getCurrency())
+                    .reference(payment.getReference())
+                    .customerEmail(payment.getCustomerEmail())
+                    .version(payment.getVersion())
+                    .build();
         });
     }
 
     @Transactional
     public void processWebhook(String paymentId, String event) {
-        retryTemplate.execute(context -> {
-            Payment payment = paymentRepository.findByPaymentIdForUpdate(paymentId)
-                    .orElseThrow(() -> new PaymentNotFoundException(
-                            String.format("Payment with ID '%s' not found", paymentId)));
+        String newStatus = WEBHOOK_EVENT_SUCCEEDED.equals(event) ? PaymentStatus.SUCCEEDED.toString() : PaymentStatus.FAILED.toString();
+
+        // Single conditional UPDATE, no row read or lock; 0 rows means missing or already final
+        int updated = retryTemplate.execute(context -> paymentRepository.transitionStatus(
+                paymentId, PaymentStatus.PENDING.toString(), newStatus, LocalDateTime.now()));
+
+        if (updated == 1) {
+            paymentCache.invalidateAfterCommit(paymentId);
+            eventPublisher.publishEvent(new PaymentStatusChangedEvent(paymentId, newStatus));
+            logger.info("Updated payment {} status to {}", paymentId, newStatus);
+            return;
+        }
+
+        String currentStatus = paymentRepository.findStatusByPaymentId(paymentId)
+                .orElseThrow(() -> new PaymentNotFoundException(
+                        String.format("Payment with ID '%s' not found", paymentId)));
+        logger.info("Payment {} already in final status: {}", paymentId, currentStatus);
+    }
+
+    /**
+     * Applies one webhook transition per payment for the batch webhook endpoint: one status read for
+     * the whole batch, then one JDBC batch of conditional UPDATEs per target status for the payments
+     * still pending. Must run inside the caller's transaction.
+     *
+     * @param targetStatusByPaymentId new status per paymentId
+     * @return per paymentId: APPLIED, ALREADY_FINAL or NOT_FOUND
+     */
+    @Transactional
+    public Map<String, WebhookEventOutcome> applyWebhookTransitions(Map<String, String> targetStatusByPaymentId) {
+        Map<String, WebhookEventOutcome> outcomes = new HashMap<>();
+        if (targetStatusByPaymentId.isEmpty()) {
+            return outcomes;
+        }
 
-            String newStatus = WEBHOOK_EVENT_SUCCEEDED.equals(event) ? PaymentStatus.SUCCEEDED.toString() : PaymentStatus.FAILED.toString();
+        Map<String, String> currentStatuses = new HashMap<>();
+        paymentRepository.findStatusesByPaymentIdIn(targetStatusByPaymentId.keySet())
+                .forEach(view -> currentStatuses.put(view.getPaymentId(), view.getStatus()));
 
-            if (!PaymentStatus.SUCCEEDED.toString().equals(payment.getStatus()) && !PaymentStatus.FAILED.toString().equals(payment.getStatus())) {
-                payment.setStatus(newStatus);
-                paymentRepository.save(payment);
-                logger.info("Updated payment {} status to {}", paymentId, newStatus);
+        Map<String, List<String>> pendingByTarget = new HashMap<>();
+        targetStatusByPaymentId.forEach((paymentId, target) -> {
+            String current = currentStatuses.get(paymentId);
+            if (current == null) {
+                outcomes.put(paymentId, WebhookEventOutcome.NOT_FOUND);
+            } else if (PaymentStatus.PENDING.toString().equals(current)) {
+                pendingByTarget.computeIfAbsent(target, status -> new ArrayList<>()).add(paymentId);
             } else {
-                logger.info("Payment {} already in final status: {}", paymentId, payment.getStatus());
+                outcomes.put(paymentId, WebhookEventOutcome.ALREADY_FINAL);
+            }
+        });
+
+        LocalDateTime now = LocalDateTime.now();
+        pendingByTarget.forEach((target, paymentIds) -> {
+            // One JDBC batch per target; each outcome comes from that payment's own update count, not
+            // from a status another writer may have set between the read and the UPDATE
+            int[] counts = paymentRepository.transitionStatuses(paymentIds, PaymentStatus.PENDING.toString(), target, now);
+            int applied = 0;
+            for (int i = 0; i < paymentIds.size(); i++) {
+                String paymentId = paymentIds.get(i);
+                if (counts[i] == 1) {
+                    applied++;
+                    outcomes.put(paymentId, WebhookEventOutcome.APPLIED);
+                    paymentCache.invalidateAfterCommit(paymentId);
+                    eventPublisher.publishEvent(new PaymentStatusChangedEvent(paymentId, target));
+                } else {
+                    outcomes.put(paymentId, WebhookEventOutcome.ALREADY_FINAL);
+                }
             }
-            return null;
+            logger.info("Updated {} payments to {} from webhook batch", applied, target);
         });
+        return outcomes;
     }
 
-    private String generatePaymentId() {
-        String paymentId;
-        int attempts = 0;
+    private static String createdResponseBody(String paymentId) {
+        return String.format("{\"paymentId\":\"%s\",\"status\":\"PENDING\"}", paymentId);
+    }
 
-        do {
-            paymentId = PAYMENT_ID_PREFIX + UUID.randomUUID().toString().substring(0, 8);
-            attempts++;
+    private static BatchPaymentResult batchResult(String idempotencyKey, BatchItemOutcome outcome,
+                                                  String paymentId, String status) {
+        return BatchPaymentResult.builder()
+                .idempotencyKey(idempotencyKey)
+                .outcome(outcome)
+                .paymentId(paymentId)
+                .status(status)
+                .build();
+    }
 
-            if (attempts > 5) {
-                throw new PaymentIdGenerationException("Failed to generate unique payment ID after 5 attempts");
-            }
-        } while (paymentRepository.existsByPaymentId(paymentId));
+    private static BatchPaymentResult conflictResult(String idempotencyKey) {
+        return BatchPaymentResult.builder()
+                .idempotencyKey(idempotencyKey)
+                .outcome(BatchItemOutcome.CONFLICT)
+                .error("Idempotency-Key already used with different request")
+                .build();
+    }
 
-        return paymentId;
+    private PaymentResponse readStoredResponse(String responseBody) {
+        try {
+            return objectMapper.readValue(responseBody, PaymentResponse.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response could not be read", e);
+        }
     }
 }
\ No newline at end of file
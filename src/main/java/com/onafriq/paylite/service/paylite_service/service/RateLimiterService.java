@@ -1,51 +1,32 @@
 package com.onafriq.paylite.service.paylite_service.service;
 
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitDecision;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitRoute;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitStore;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitTiers;
 import org.springframework.stereotype.Service;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
-import java.time.Instant;
-
-import static com.onafriq.paylite.service.paylite_service.config.AppConstants.MAX_REQUESTS;
-import static com.onafriq.paylite.service.paylite_service.config.AppConstants.WINDOW_SIZE_SECONDS;
 
+/**
+ * Per-client, per-route rate limiting. Limits come from the client's API key tier and are looked up
+ * per request, so reloaded tiers apply to existing clients straight away; the state lives in the
+ * configured RateLimitStore.
+ */
 @Service
 public class RateLimiterService {
-    
-    private final ConcurrentHashMap<String, UserBucket> buckets = new ConcurrentHashMap<>();
-    
-    public boolean allowRequest(String clientId) {
-        buckets.putIfAbsent(clientId, new UserBucket());
-        UserBucket bucket = buckets.get(clientId);
-        
-        long now = Instant.now().getEpochSecond();
-        
-        // Reset if window has passed
-        if (now - bucket.windowStart >= WINDOW_SIZE_SECONDS) {
-            bucket.reset(now);
-        }
-        
-        // Check if under limit
-        if (bucket.requestCount.get() < MAX_REQUESTS) {
-            bucket.requestCount.incrementAndGet();
-            return true;
-        }
-        
-        return false;
-    }
-    
-    public long getResetTime(String clientId) {
-        UserBucket bucket = buckets.get(clientId);
-        if (bucket == null) return Instant.now().getEpochSecond();
-        return bucket.windowStart + WINDOW_SIZE_SECONDS;
+
+    private final RateLimitTiers tiers;
+    private final RateLimitStore store;
+
+    public RateLimiterService(RateLimitTiers tiers, RateLimitStore store) {
+        this.tiers = tiers;
+        this.store = store;
     }
-    
-    private static class UserBucket {
-        AtomicInteger requestCount = new AtomicInteger(0);
-        long windowStart = Instant.now().getEpochSecond();
-        
-        void reset(long newWindowStart) {
-            requestCount.set(0);
-            windowStart = newWindowStart;
-        }
+
+    /**
+     * Takes one request from the client's allowance on the route, using the limit of the given API key
+     * tier (the default tier if null). A refused request takes nothing.
+     */
+    public RateLimitDecision tryAcquire(RateLimitRoute route, String clientId, String tier) {
+        return store.tryAcquire(route, clientId, tiers.limitFor(tier, route));
     }
-}
\ No newline at end of file
+}
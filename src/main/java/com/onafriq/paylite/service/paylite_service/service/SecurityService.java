@@ -1,70 +1,155 @@
 package com.onafriq.paylite.service.paylite_service.service;
 
+import com.onafriq.paylite.service.paylite_service.crypto.CryptoPrimitives;
+import com.onafriq.paylite.service.paylite_service.crypto.PrimitivePool;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookBody;
+import com.onafriq.paylite.service.paylite_service.exception.BadRequestException;
+import com.onafriq.paylite.service.paylite_service.exception.UnauthorizedException;
+import com.onafriq.paylite.service.paylite_service.security.ApiKeyDetails;
+import com.onafriq.paylite.service.paylite_service.security.ApiKeyStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import javax.crypto.Mac;
-import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.security.MessageDigest;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Optional;
 
-import static com.onafriq.paylite.service.paylite_service.config.AppConstants.HMAC_ALGORITHM;
 import static javax.xml.crypto.dsig.SignatureMethod.HMAC_SHA256;
 
 @Service
 public class SecurityService {
     private static final Logger logger = LoggerFactory.getLogger(SecurityService.class);
     
-    @Value("${app.api-keys}")
-    private String[] validApiKeys;
+    @Autowired
+    private ApiKeyStore apiKeyStore;
     
     @Value("${app.webhook-secret}")
     private String webhookSecret;
 
+    @Value("${app.webhooks.max-body-bytes:1048576}")
+    private int maxWebhookBodyBytes;
+
     private static final String HMAC_SHA256q = "HmacSHA256";
+    private static final int MIN_BODY_BUFFER = 8192;
+    private static final int HMAC_SHA256_LENGTH = 32;
+
+    // Keyed lazily because the secret is field-injected
+    private volatile PrimitivePool<Mac> webhookMacs;
     
-    public boolean isValidApiKey(String apiKey) {
+    /**
+     * Details of the merchant the API key belongs to, or empty if the key is missing or unknown.
+     * Keys are never logged.
+     */
+    public Optional<ApiKeyDetails> authenticate(String apiKey) {
         if (apiKey == null || apiKey.trim().isEmpty()) {
             logger.warn("No api Key set");
-            return false;
+            return Optional.empty();
         }
-        
-        for (String validKey : validApiKeys) {
-            logger.warn("set api key: {}", validKey);
-            if (validKey.equals(apiKey)) {
 
-                return true;
-            }
+        Optional<ApiKeyDetails> details = apiKeyStore.find(apiKey);
+        if (details.isEmpty()) {
+            logger.warn("Invalid API key attempted");
         }
-        
-        logger.warn("Invalid API key attempted");
-        return false;
+        return details;
     }
     
-    public boolean verifyWebhookSignature(String signature, String payload) {
-        if (signature == null || payload == null) {
-            return false;
+    /**
+     * Reads a webhook body from the request stream, feeding each chunk to the HMAC as it arrives, and
+     * checks the result against the signature in constant time. The body is never decoded to a String;
+     * the returned buffer can be parsed in place.
+     *
+     * @param contentLength the request's Content-Length, or -1 if unknown; only trusted to shrink the
+     *                      initial buffer, which otherwise starts at 8 KiB and grows as bytes arrive
+     * @throws UnauthorizedException if the signature is missing or does not match
+     * @throws BadRequestException   if the body is longer than app.webhooks.max-body-bytes
+     */
+    public WebhookBody readSignedWebhookBody(String signature, InputStream body, int contentLength) throws IOException {
+        // Reject unsigned requests before reading the body
+        byte[] expected = decodeSignature(signature);
+        if (expected == null) {
+            logger.warn("Missing or malformed webhook signature");
+            throw new UnauthorizedException("Invalid webhook signature");
         }
-        
+
+        PrimitivePool<Mac> macs = webhookMacs();
+        Mac mac = macs.borrow();
         try {
-            String computedSignature = computeHmacSha256(payload, webhookSecret);
-            logger.info("computedSignature {}, received signature {}", computedSignature, signature );
-            return computedSignature.equals(signature);
-        } catch (Exception e) {
-            logger.error("Error verifying webhook signature", e);
-            return false;
+            return readSignedBody(expected, mac, body, contentLength);
+        } finally {
+            macs.release(mac);
         }
     }
-    
-    private String computeHmacSha256(String data, String secret) 
-            throws NoSuchAlgorithmException, InvalidKeyException {
-        Mac mac = Mac.getInstance(HMAC_ALGORITHM);
-        SecretKeySpec secretKeySpec = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_ALGORITHM);
-        mac.init(secretKeySpec);
-        byte[] hmacBytes = mac.doFinal(data.getBytes(StandardCharsets.UTF_8));
-        return Base64.getEncoder().encodeToString(hmacBytes);
+
+    private WebhookBody readSignedBody(byte[] expected, Mac mac, InputStream body, int contentLength) throws IOException {
+        // The declared length is unauthenticated until the HMAC checks out, so it never sizes a large buffer
+        int initial = contentLength >= 0 ? Math.min(contentLength, MIN_BODY_BUFFER) : MIN_BODY_BUFFER;
+        byte[] buffer = new byte[Math.min(initial, maxWebhookBodyBytes)];
+        int length = 0;
+        while (true) {
+            if (length == buffer.length) {
+                // Full buffer; only grow it if the body is actually longer
+                int next = body.read();
+                if (next < 0) {
+                    break;
+                }
+                if (length >= maxWebhookBodyBytes) {
+                    throw new BadRequestException("Webhook body exceeds " + maxWebhookBodyBytes + " bytes");
+                }
+                buffer = Arrays.copyOf(buffer, (int) Math.min(maxWebhookBodyBytes, Math.max(MIN_BODY_BUFFER, 2L * length)));
+                buffer[length] = (byte) next;
+                mac.update((byte) next);
+                length++;
+                continue;
+            }
+            int read = body.read(buffer, length, buffer.length - length);
+            if (read < 0) {
+                break;
+            }
+            mac.update(buffer, length, read);
+            length += read;
+        }
+
+        if (!MessageDigest.isEqual(expected, mac.doFinal())) {
+            logger.warn("Invalid webhook signature");
+            throw new UnauthorizedException("Invalid webhook signature");
+        }
+        return new WebhookBody(buffer, length);
+    }
+
+    /**
+     * Whether the X-PSP-Signature value could be a valid HMAC-SHA256: present, Base64, 32 bytes.
+     * Cheap enough to check before any of the body is read.
+     */
+    public boolean isWellFormedWebhookSignature(String signature) {
+        byte[] decoded = decodeSignature(signature);
+        return decoded != null && decoded.length == HMAC_SHA256_LENGTH;
+    }
+
+    // Base64 HMAC from the X-PSP-Signature header, or null if absent or not Base64
+    private static byte[] decodeSignature(String signature) {
+        if (signature == null || signature.isEmpty()) {
+            return null;
+        }
+        try {
+            return Base64.getDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private PrimitivePool<Mac> webhookMacs() {
+        PrimitivePool<Mac> macs = webhookMacs;
+        if (macs == null) {
+            macs = CryptoPrimitives.hmacSha256(webhookSecret.getBytes(StandardCharsets.UTF_8));
+            webhookMacs = macs;
+        }
+        return macs;
     }
-}
\ No newline at end of file
+}
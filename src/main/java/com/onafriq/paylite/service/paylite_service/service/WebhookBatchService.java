@@ -0,0 +1,250 @@
+package com.onafriq.paylite.service.paylite_service.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.cache.RecentWebhookEventCache;
+import com.onafriq.paylite.service.paylite_service.dto.BatchWebhookEvent;
+import com.onafriq.paylite.service.paylite_service.dto.BatchWebhookResponse;
+import com.onafriq.paylite.service.paylite_service.dto.BatchWebhookResult;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookBody;
+import com.onafriq.paylite.service.paylite_service.entity.WebhookEvent;
+import com.onafriq.paylite.service.paylite_service.enums.PaymentStatus;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookEventOutcome;
+import com.onafriq.paylite.service.paylite_service.exception.BadRequestException;
+import com.onafriq.paylite.service.paylite_service.exception.InvalidWebhookPayloadException;
+import com.onafriq.paylite.service.paylite_service.repository.WebhookEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.WEBHOOK_EVENT_FAILED;
+import static com.onafriq.paylite.service.paylite_service.config.AppConstants.WEBHOOK_EVENT_SUCCEEDED;
+
+/**
+ * Processes signed PSP webhook batches of the form {"events":[{"eventId","paymentId","event"}, ...]}.
+ * Events are read with the streaming parser and handled in chunks, one transaction per chunk:
+ * one query finds already-recorded event IDs, one query reads the payment statuses, one JDBC batch of
+ * conditional UPDATEs per target status applies the transitions, and the new events are inserted with
+ * JDBC batching. Every event gets its own outcome, from its payment's own update count.
+ */
+@Service
+public class WebhookBatchService {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookBatchService.class);
+
+    private final WebhookEventRepository webhookEventRepository;
+    private final PaymentService paymentService;
+    private final RecentWebhookEventCache recentWebhookEvents;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxEvents;
+    private final int chunkSize;
+
+    @Autowired
+    public WebhookBatchService(WebhookEventRepository webhookEventRepository,
+                               PaymentService paymentService,
+                               RecentWebhookEventCache recentWebhookEvents,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.webhooks.batch.max-events:1000}") int maxEvents,
+                               @Value("${app.webhooks.batch.chunk-size:200}") int chunkSize) {
+        this(webhookEventRepository, paymentService, recentWebhookEvents, objectMapper,
+                new TransactionTemplate(transactionManager), maxEvents, chunkSize);
+    }
+
+    WebhookBatchService(WebhookEventRepository webhookEventRepository, PaymentService paymentService,
+                        RecentWebhookEventCache recentWebhookEvents, ObjectMapper objectMapper,
+                        TransactionTemplate transactionTemplate, int maxEvents, int chunkSize) {
+        this.webhookEventRepository = webhookEventRepository;
+        this.paymentService = paymentService;
+        this.recentWebhookEvents = recentWebhookEvents;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.maxEvents = maxEvents;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Processes a verified batch body. The whole body is parsed before any chunk is applied, so a
+     * malformed batch changes nothing. A chunk that fails rolls back on its own; earlier chunks stay
+     * committed and are reported as DUPLICATE when the PSP retries the batch.
+     *
+     * @throws InvalidWebhookPayloadException if the body is not a valid batch
+     * @throws BadRequestException            if the batch has more than max-events events
+     */
+    public BatchWebhookResponse processBatch(WebhookBody body) {
+        List<BatchWebhookEvent> events = parseEvents(body);
+        BatchWebhookResult[] results = new BatchWebhookResult[events.size()];
+
+        for (int start = 0; start < events.size(); start += chunkSize) {
+            int offset = start;
+            List<BatchWebhookEvent> chunk = events.subList(start, Math.min(start + chunkSize, events.size()));
+            transactionTemplate.executeWithoutResult(status -> processChunk(chunk, offset, results));
+        }
+
+        logger.info("Processed webhook batch of {} events", events.size());
+        return new BatchWebhookResponse(Arrays.asList(results));
+    }
+
+    List<BatchWebhookEvent> parseEvents(WebhookBody body) {
+        try (JsonParser parser = objectMapper.createParser(body.buffer(), 0, body.length())) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new InvalidWebhookPayloadException("Webhook batch must be a JSON object");
+            }
+            List<BatchWebhookEvent> events = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("events".equals(field) && value == JsonToken.START_ARRAY) {
+                    events = new ArrayList<>();
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        if (events.size() == maxEvents) {
+                            throw new BadRequestException("A webhook batch may contain at most " + maxEvents + " events");
+                        }
+                        events.add(objectMapper.readValue(parser, BatchWebhookEvent.class));
+                    }
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            if (events == null) {
+                throw new InvalidWebhookPayloadException("Webhook batch has no events array");
+            }
+            return events;
+        } catch (IOException e) {
+            throw new InvalidWebhookPayloadException("Invalid JSON payload", e);
+        }
+    }
+
+    private void processChunk(List<BatchWebhookEvent> chunk, int offset, BatchWebhookResult[] results) {
+        List<String> eventIds = new ArrayList<>();
+        for (BatchWebhookEvent event : chunk) {
+            if (validationError(event) == null) {
+                eventIds.add(eventId(event));
+            }
+        }
+
+        // Payloads of events already recorded, plus those accepted earlier in this chunk
+        Map<String, String> knownPayloads = new HashMap<>();
+        if (!eventIds.isEmpty()) {
+            webhookEventRepository.findByEventIdIn(eventIds)
+                    .forEach(stored -> knownPayloads.put(stored.getEventId(), stored.getRawPayload()));
+        }
+
+        Map<String, String> targetStatuses = new LinkedHashMap<>();
+        Map<String, Integer> firstEventForPayment = new HashMap<>();
+        Map<Integer, String> acceptedPayloads = new LinkedHashMap<>();
+
+        for (int i = 0; i < chunk.size(); i++) {
+            BatchWebhookEvent event = chunk.get(i);
+            String error = validationError(event);
+            if (error != null) {
+                results[offset + i] = result(event, WebhookEventOutcome.INVALID, error);
+                continue;
+            }
+
+            String eventId = eventId(event);
+            String payload = serialize(event);
+            String knownPayload = knownPayloads.get(eventId);
+            if (knownPayload != null) {
+                results[offset + i] = knownPayload.equals(payload)
+                        ? result(event, WebhookEventOutcome.DUPLICATE, null)
+                        : result(event, WebhookEventOutcome.CONFLICT, "Event ID already used with a different payload");
+                continue;
+            }
+
+            knownPayloads.put(eventId, payload);
+            acceptedPayloads.put(i, payload);
+            if (targetStatuses.putIfAbsent(event.getPaymentId(), targetStatus(event)) == null) {
+                firstEventForPayment.put(event.getPaymentId(), i);
+            }
+        }
+
+        if (acceptedPayloads.isEmpty()) {
+            return;
+        }
+        Map<String, WebhookEventOutcome> transitions = paymentService.applyWebhookTransitions(targetStatuses);
+
+        List<WebhookEvent> newEvents = new ArrayList<>();
+        acceptedPayloads.forEach((i, payload) -> {
+            BatchWebhookEvent event = chunk.get(i);
+            WebhookEventOutcome transition = transitions.get(event.getPaymentId());
+            if (transition == WebhookEventOutcome.NOT_FOUND) {
+                results[offset + i] = result(event, WebhookEventOutcome.NOT_FOUND, "Payment not found");
+                return;
+            }
+
+            // Only the first event for a payment can move it out of PENDING
+            boolean applied = transition == WebhookEventOutcome.APPLIED && firstEventForPayment.get(event.getPaymentId()) == i;
+            results[offset + i] = result(event, applied ? WebhookEventOutcome.APPLIED : WebhookEventOutcome.ALREADY_FINAL, null);
+            newEvents.add(WebhookEvent.builder()
+                    .eventId(eventId(event))
+                    .paymentId(event.getPaymentId())
+                    .eventType(event.getEvent())
+                    .rawPayload(payload)
+                    .build());
+        });
+
+        webhookEventRepository.saveAll(newEvents);
+        newEvents.forEach(stored -> recentWebhookEvents.putAfterCommit(stored.getEventId(), stored.getPaymentId(),
+                stored.getEventType(), stored.getRawPayload()));
+    }
+
+    private static String validationError(BatchWebhookEvent event) {
+        if (isBlank(event.getEventId())) {
+            return "eventId is required";
+        }
+        if (isBlank(event.getPaymentId())) {
+            return "paymentId is required";
+        }
+        if (!WEBHOOK_EVENT_SUCCEEDED.equals(event.getEvent()) && !WEBHOOK_EVENT_FAILED.equals(event.getEvent())) {
+            return "event must be 'payment.succeeded' or 'payment.failed'";
+        }
+        return null;
+    }
+
+    // Same namespace as X-Request-Id on the single endpoint, so an event delivered both ways is deduplicated
+    private static String eventId(BatchWebhookEvent event) {
+        return "psp_" + event.getEventId();
+    }
+
+    private static String targetStatus(BatchWebhookEvent event) {
+        return WEBHOOK_EVENT_SUCCEEDED.equals(event.getEvent())
+                ? PaymentStatus.SUCCEEDED.toString()
+                : PaymentStatus.FAILED.toString();
+    }
+
+    private String serialize(BatchWebhookEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Webhook event could not be serialized", e);
+        }
+    }
+
+    private static BatchWebhookResult result(BatchWebhookEvent event, WebhookEventOutcome outcome, String error) {
+        return BatchWebhookResult.builder()
+                .eventId(event.getEventId())
+                .paymentId(event.getPaymentId())
+                .outcome(outcome)
+                .error(error)
+                .build();
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.trim().isEmpty();
+    }
+}
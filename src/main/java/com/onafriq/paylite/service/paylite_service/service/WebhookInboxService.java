@@ -0,0 +1,194 @@
+package com.onafriq.paylite.service.paylite_service.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookRequest;
+import com.onafriq.paylite.service.paylite_service.entity.WebhookInboxEntry;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookInboxStatus;
+import com.onafriq.paylite.service.paylite_service.exception.InvalidWebhookPayloadException;
+import com.onafriq.paylite.service.paylite_service.exception.WebhookConflictException;
+import com.onafriq.paylite.service.paylite_service.repository.WebhookInboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable inbox for PSP webhooks received in async mode.
+ * The controller appends verified webhooks and acks; workers claim due entries, run them through
+ * {@link WebhookService#processWebhook(WebhookRequest, String, String)} and delete them on success.
+ * Failures are retried with exponential backoff until max-attempts, then left in DEAD status.
+ */
+@Service
+public class WebhookInboxService {
+    private static final Logger logger = LoggerFactory.getLogger(WebhookInboxService.class);
+
+    private static final Set<WebhookInboxStatus> DUE_STATUSES = EnumSet.of(WebhookInboxStatus.PENDING, WebhookInboxStatus.PROCESSING);
+    private static final int MAX_ERROR_LENGTH = 1000;
+
+    private final WebhookInboxRepository webhookInboxRepository;
+    private final WebhookService webhookService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final Clock clock;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final long maxBacklog;
+
+    private final AtomicLong backlog = new AtomicLong();
+    private final Counter processed;
+    private final Counter retried;
+    private final Counter dead;
+
+    @Autowired
+    public WebhookInboxService(WebhookInboxRepository webhookInboxRepository,
+                               WebhookService webhookService,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${app.webhooks.async.max-attempts:8}") int maxAttempts,
+                               @Value("${app.webhooks.async.initial-backoff:PT2S}") Duration initialBackoff,
+                               @Value("${app.webhooks.async.max-backoff:PT10M}") Duration maxBackoff,
+                               @Value("${app.webhooks.async.lease:PT5M}") Duration lease,
+                               @Value("${app.webhooks.async.max-backlog:50000}") long maxBacklog) {
+        this(webhookInboxRepository, webhookService, objectMapper, new TransactionTemplate(transactionManager), meterRegistry,
+                Clock.systemDefaultZone(), maxAttempts, initialBackoff, maxBackoff, lease, maxBacklog);
+    }
+
+    WebhookInboxService(WebhookInboxRepository webhookInboxRepository, WebhookService webhookService,
+                        ObjectMapper objectMapper, TransactionTemplate transactionTemplate, MeterRegistry meterRegistry,
+                        Clock clock, int maxAttempts, Duration initialBackoff, Duration maxBackoff, Duration lease,
+                        long maxBacklog) {
+        this.webhookInboxRepository = webhookInboxRepository;
+        this.webhookService = webhookService;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.clock = clock;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.maxBacklog = maxBacklog;
+        this.processed = Counter.builder("paylite.webhook.inbox.processed").tag("outcome", "done").register(meterRegistry);
+        this.retried = Counter.builder("paylite.webhook.inbox.processed").tag("outcome", "retry").register(meterRegistry);
+        this.dead = Counter.builder("paylite.webhook.inbox.processed").tag("outcome", "dead").register(meterRegistry);
+        Gauge.builder("paylite.webhook.inbox.backlog", backlog, AtomicLong::get)
+                .description("Webhooks waiting in the inbox, as of the last drain")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Durably appends a verified webhook. Commits before returning, so the PSP can be acked.
+     */
+    public void enqueue(String rawBody, String pspRequestId) {
+        WebhookInboxEntry entry = WebhookInboxEntry.builder()
+                .pspRequestId(pspRequestId)
+                .rawPayload(rawBody)
+                .status(WebhookInboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now(clock))
+                .build();
+        webhookInboxRepository.save(entry);
+        backlog.incrementAndGet();
+    }
+
+    /**
+     * True when the backlog seen by the last drain has reached max-backlog; new webhooks should then
+     * be refused so the PSP retries later.
+     */
+    public boolean isOverloaded() {
+        return backlog.get() >= maxBacklog;
+    }
+
+    public long refreshBacklog() {
+        long count = webhookInboxRepository.countByStatusIn(DUE_STATUSES);
+        backlog.set(count);
+        return count;
+    }
+
+    public List<Long> findDueIds(int limit) {
+        return webhookInboxRepository.findDueIds(DUE_STATUSES, LocalDateTime.now(clock), PageRequest.of(0, limit));
+    }
+
+    /**
+     * Claims the entry with a conditional UPDATE so only one worker across all instances processes it.
+     */
+    public boolean claim(Long id) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        Integer claimed = transactionTemplate.execute(status ->
+                webhookInboxRepository.claim(id, DUE_STATUSES, WebhookInboxStatus.PROCESSING, now, now.plus(lease)));
+        return claimed != null && claimed == 1;
+    }
+
+    /**
+     * Processes a claimed entry: deleted on success, rescheduled or marked DEAD on failure.
+     */
+    public void process(Long id) {
+        WebhookInboxEntry entry = webhookInboxRepository.findById(id).orElse(null);
+        if (entry == null) {
+            return;
+        }
+
+        try {
+            WebhookRequest request = objectMapper.readValue(entry.getRawPayload(), WebhookRequest.class);
+            webhookService.processWebhook(request, entry.getRawPayload(), entry.getPspRequestId());
+            transactionTemplate.executeWithoutResult(status -> webhookInboxRepository.deleteById(id));
+            processed.increment();
+        } catch (JsonProcessingException e) {
+            recordFailure(entry, e, false);
+        } catch (RuntimeException e) {
+            recordFailure(entry, e, isRetryable(e));
+        }
+    }
+
+    private void recordFailure(WebhookInboxEntry entry, Exception e, boolean retryable) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(truncate(e.getClass().getSimpleName() + ": " + e.getMessage()));
+
+        if (!retryable || attempts >= maxAttempts) {
+            entry.setStatus(WebhookInboxStatus.DEAD);
+            dead.increment();
+            logger.error("Webhook inbox entry {} moved to DEAD after {} attempts: {}", entry.getId(), attempts, e.getMessage());
+        } else {
+            entry.setStatus(WebhookInboxStatus.PENDING);
+            entry.setNextAttemptAt(LocalDateTime.now(clock).plus(backoff(attempts)));
+            retried.increment();
+            logger.warn("Webhook inbox entry {} failed (attempt {}), retrying: {}", entry.getId(), attempts, e.getMessage());
+        }
+        transactionTemplate.executeWithoutResult(status -> webhookInboxRepository.save(entry));
+    }
+
+    Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    // Rejected payloads and conflicting duplicates fail the same way on every attempt
+    private static boolean isRetryable(RuntimeException e) {
+        return !(e instanceof InvalidWebhookPayloadException
+                || e instanceof WebhookConflictException
+                || e instanceof IllegalArgumentException);
+    }
+
+    private static String truncate(String message) {
+        return message.length() <= MAX_ERROR_LENGTH ? message : message.substring(0, MAX_ERROR_LENGTH);
+    }
+}
@@ -1,7 +1,8 @@
 package com.onafriq.paylite.service.paylite_service.service;
 
+import com.onafriq.paylite.service.paylite_service.cache.RecentWebhookEventCache;
+import com.onafriq.paylite.service.paylite_service.concurrency.PaymentLaneExecutor;
 import com.onafriq.paylite.service.paylite_service.dto.WebhookRequest;
-import com.onafriq.paylite.service.paylite_service.exception.IdempotencyConflictException;
 import com.onafriq.paylite.service.paylite_service.exception.WebhookConflictException;
 import com.onafriq.paylite.service.paylite_service.repository.WebhookEventRepository;
 import com.onafriq.paylite.service.paylite_service.entity.WebhookEvent;
@@ -9,31 +10,53 @@ import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 @Service
-@Transactional
 public class WebhookService {
     private static final Logger logger = LoggerFactory.getLogger(WebhookService.class);
 
     private final PaymentService paymentService;
     private final WebhookEventRepository webhookEventRepository;
+    private final PaymentLaneExecutor paymentLaneExecutor;
+    private final RecentWebhookEventCache recentWebhookEvents;
+    private final TransactionTemplate transactionTemplate;
 
     // Event type constants
     private static final String EVENT_SUCCEEDED = "payment.succeeded";
     private static final String EVENT_FAILED = "payment.failed";
 
     public WebhookService(PaymentService paymentService,
-                          WebhookEventRepository webhookEventRepository) {
+                          WebhookEventRepository webhookEventRepository,
+                          PaymentLaneExecutor paymentLaneExecutor,
+                          RecentWebhookEventCache recentWebhookEvents,
+                          PlatformTransactionManager transactionManager) {
         this.paymentService = paymentService;
         this.webhookEventRepository = webhookEventRepository;
+        this.paymentLaneExecutor = paymentLaneExecutor;
+        this.recentWebhookEvents = recentWebhookEvents;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
 
     public void processWebhook(WebhookRequest webhookRequest, String rawBody, HttpServletRequest request) {
+        processWebhook(webhookRequest, rawBody, request.getHeader("X-Request-Id"));
+    }
+
+    /**
+     * Processes a webhook outside of the HTTP request, e.g. when draining the webhook inbox.
+     * Runs in its own transaction on the payment's lane, so webhooks for one payment are applied
+     * one at a time without holding a row lock.
+     *
+     * @param pspRequestId the PSP's X-Request-Id header value, or null
+     */
+    public void processWebhook(WebhookRequest webhookRequest, String rawBody, String pspRequestId) {
         String paymentId = webhookRequest.getPaymentId();
         String eventType = webhookRequest.getEvent();
 
@@ -44,42 +67,56 @@ public class WebhookService {
                     ". Must be 'payment.succeeded' or 'payment.failed'");
         }
 
-        String eventId = generateEventId(request, webhookRequest);
+        String pspEventId = pspEventId(pspRequestId);
+        String eventId = pspEventId != null ? pspEventId : fallbackEventId(webhookRequest);
+
+        // Most PSP retries are answered here, without queueing on the lane or reading webhook_events
+        Optional<String> recentPayload = recentWebhookEvents.findPayload(pspEventId, paymentId, eventType);
+        if (recentPayload.isPresent()) {
+            handleDuplicate(recentPayload.get(), rawBody, paymentId);
+            return;
+        }
 
-        // Fetch existing event if duplicate
-        WebhookEvent existingEvent = getDuplicateEvent(paymentId, eventType);
+        paymentLaneExecutor.run(paymentId, () -> transactionTemplate.executeWithoutResult(status ->
+                applyWebhook(eventId, pspEventId, paymentId, eventType, rawBody)));
+    }
 
+    private void applyWebhook(String eventId, String pspEventId, String paymentId, String eventType, String rawBody) {
+        WebhookEvent existingEvent = findDuplicateEvent(pspEventId, paymentId, eventType);
         if (existingEvent != null) {
-            if (existingEvent.getRawPayload().equals(rawBody)) {
-                logger.info("Duplicate webhook with same payload detected - returning same response");
-                return; // idempotent: same payload, do nothing
-            } else {
-                logger.warn("Duplicate webhook with different payload detected - returning 409 Conflict");
-                throw new WebhookConflictException("Duplicate webhook with different payload for payment: " + paymentId);
-            }
+            recentWebhookEvents.put(pspEventId, existingEvent.getPaymentId(), existingEvent.getEventType(),
+                    existingEvent.getRawPayload());
+            handleDuplicate(existingEvent.getRawPayload(), rawBody, paymentId);
+            return;
         }
 
         paymentService.processWebhook(paymentId, eventType);
 
         recordWebhookEvent(eventId, paymentId, eventType, rawBody);
+        recentWebhookEvents.putAfterCommit(pspEventId, paymentId, eventType, rawBody);
 
         logger.info("Completed webhook processing - payment: {}, event: {}", paymentId, eventType);
     }
 
-    private WebhookEvent getDuplicateEvent(String paymentId, String eventType) {
-        // Strategy 1: by paymentId
-        WebhookEvent byPaymentId = webhookEventRepository.findByPaymentId(paymentId);
-        if (byPaymentId != null) {
-            return byPaymentId;
+    private void handleDuplicate(String storedPayload, String rawBody, String paymentId) {
+        if (storedPayload.equals(rawBody)) {
+            logger.info("Duplicate webhook with same payload detected - returning same response");
+            return; // idempotent: same payload, do nothing
         }
+        logger.warn("Duplicate webhook with different payload detected - returning 409 Conflict");
+        throw new WebhookConflictException("Duplicate webhook with different payload for payment: " + paymentId);
+    }
 
-        // Strategy 2: by business key (paymentId + eventType)
-        WebhookEvent byBusinessKey = webhookEventRepository.findByPaymentIdAndEventType(paymentId, eventType);
-        if (byBusinessKey != null) {
-            return byBusinessKey;
+    private WebhookEvent findDuplicateEvent(String pspEventId, String paymentId, String eventType) {
+        List<WebhookEvent> duplicates = webhookEventRepository.findDuplicates(pspEventId, paymentId, eventType);
+        if (duplicates.isEmpty()) {
+            return null;
         }
-
-        return null;
+        // The same PSP event ID is the stronger match
+        return duplicates.stream()
+                .filter(event -> event.getEventId().equals(pspEventId))
+                .findFirst()
+                .orElse(duplicates.get(0));
     }
 
     /**
@@ -90,36 +127,23 @@ public class WebhookService {
     }
 
     /**
-     * Generate unique event ID for deduplication
+     * Event ID from the PSP's X-Request-Id header, or null if it sent none
      */
-    private String generateEventId(HttpServletRequest request, WebhookRequest webhookRequest) {
-        // Try to get event ID from PSP headers
-        String pspEventId = request.getHeader("X-Request-Id");
-        if (pspEventId != null && !pspEventId.trim().isEmpty()) {
-            return "psp_" + pspEventId;
+    private static String pspEventId(String pspRequestId) {
+        if (pspRequestId != null && !pspRequestId.trim().isEmpty()) {
+            return "psp_" + pspRequestId;
         }
+        return null;
+    }
 
-        // Fallback: generate deterministic ID from content + timestamp
+    /**
+     * Generate unique event ID when the PSP sent no X-Request-Id
+     */
+    private static String fallbackEventId(WebhookRequest webhookRequest) {
         return "psp_" + webhookRequest.getPaymentId() + "_" + webhookRequest.getEvent() + "_" +
                 System.currentTimeMillis() + "_" + UUID.randomUUID().toString().substring(0, 6);
     }
 
-    public boolean isDuplicateWebhook(String eventId, String paymentId, String eventType) {
-        // Strategy 1: Payment ID-based deduplication
-        if (eventId != null && webhookEventRepository.existsByPaymentId(paymentId)) {
-            logger.debug("Duplicate detected by payment ID: {}", eventId);
-            return true;
-        }
-
-        // Strategy 2: Business key-based deduplication (paymentId + eventType)
-        if (webhookEventRepository.existsByPaymentIdAndEventType(paymentId, eventType)) {
-            logger.debug("Duplicate detected by business key - payment: {}, event: {}", paymentId, eventType);
-            return true;
-        }
-
-        return false;
-    }
-
     /**
      * Record webhook event in database for audit and deduplication
      */
@@ -0,0 +1,62 @@
+package com.onafriq.paylite.service.paylite_service.benchmark;
+
+import com.onafriq.paylite.service.paylite_service.crypto.CryptoPrimitives;
+import com.onafriq.paylite.service.paylite_service.crypto.PrimitivePool;
+import org.openjdk.jmh.annotations.*;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation cost of a webhook-sized HMAC and SHA-256 with pooled primitives, compared with
+ * looking the algorithm up (and, for HMAC, scheduling the key) on every call as before.
+ * Runs with 4 threads so pool contention is included.
+ * Run with: mvn -Pbenchmark test -DskipTests -Dbenchmark=CryptoPrimitivesBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class CryptoPrimitivesBenchmark {
+
+    private static final String SECRET = "default-webhook-secret";
+
+    private PrimitivePool<Mac> macs;
+    private byte[] payload;
+
+    @Setup
+    public void setUp() {
+        macs = CryptoPrimitives.hmacSha256(SECRET.getBytes(StandardCharsets.UTF_8));
+        payload = "{\"paymentId\":\"pl_0A1B2C3D4E5F\",\"event\":\"payment.succeeded\"}".getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] hmacPooled() {
+        return macs.apply(mac -> mac.doFinal(payload));
+    }
+
+    @Benchmark
+    public byte[] hmacGetInstancePerCall() throws GeneralSecurityException {
+        // Previous SecurityService.computeHmacSha256
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return mac.doFinal(payload);
+    }
+
+    @Benchmark
+    public byte[] sha256Pooled() {
+        return CryptoPrimitives.sha256(payload);
+    }
+
+    @Benchmark
+    public byte[] sha256GetInstancePerCall() throws GeneralSecurityException {
+        return MessageDigest.getInstance("SHA-256").digest(payload);
+    }
+}
@@ -0,0 +1,78 @@
+package com.onafriq.paylite.service.paylite_service.benchmark;
+
+import com.onafriq.paylite.service.paylite_service.PayliteServiceApplication;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentItem;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
+import com.onafriq.paylite.service.paylite_service.service.PaymentService;
+import com.onafriq.paylite.service.paylite_service.service.WebhookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts per second on the batch payment path and the webhook event path, with Hibernate insert
+ * batching off (batchSize=1, equivalent to the old IDENTITY ids) and on.
+ * Runs against the in-memory H2 database by default; pass -Dspring.datasource.url=jdbc:mysql://...
+ * (plus username/password) to measure against MySQL with the tuned driver properties.
+ * Run with: mvn -Pbenchmark test -DskipTests -Dbenchmark=InsertBatchingBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InsertBatchingBenchmark {
+
+    private static final int BATCH_ITEMS = 100;
+
+    @Param({"1", "50"})
+    public int batchSize;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private WebhookService webhookService;
+    private long sequence;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(PayliteServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize,
+                        "logging.level.root=WARN")
+                .run();
+        paymentService = context.getBean(PaymentService.class);
+        webhookService = context.getBean(WebhookService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_ITEMS)
+    public Object batchPaymentInserts() {
+        List<BatchPaymentItem> items = new ArrayList<>(BATCH_ITEMS);
+        for (int i = 0; i < BATCH_ITEMS; i++) {
+            long n = sequence++;
+            items.add(new BatchPaymentItem("bench-key-" + n,
+                    new PaymentRequest(1999L, "KES", "user@example.com", "INV-" + n)));
+        }
+        return paymentService.createPayments(items);
+    }
+
+    @Benchmark
+    public void webhookEventInserts() {
+        long n = sequence++;
+        webhookService.recordWebhookEvent("psp_bench_" + n, "pl_bench_" + n, "payment.succeeded",
+                "{\"paymentId\":\"pl_bench_" + n + "\",\"event\":\"payment.succeeded\"}");
+    }
+}
@@ -0,0 +1,102 @@
+package com.onafriq.paylite.service.paylite_service.benchmark;
+
+import com.onafriq.paylite.service.paylite_service.ratelimit.InMemoryRateLimitStore;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimit;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitRoute;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitTiers;
+import com.onafriq.paylite.service.paylite_service.service.RateLimiterService;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Rate limit decisions per second from 8 concurrent callers, for one hot client and for requests
+ * spread over many clients. gcra is RateLimiterService with the in-memory store; fixedWindow is the previous implementation,
+ * which allocated a bucket on every call and could allow more than its limit under contention.
+ * Both allow 5 requests a minute per client.
+ * Run with: mvn -Pbenchmark test -DskipTests -Dbenchmark=RateLimiterBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private static final int MAX_REQUESTS = 5;
+    private static final long WINDOW_SIZE_SECONDS = 60;
+
+    @Param({"1", "10000"})
+    public int clients;
+
+    private RateLimiterService rateLimiter;
+    private FixedWindowLimiter fixedWindowLimiter;
+    private String[] clientIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Map<RateLimitRoute, RateLimit> limits = new EnumMap<>(RateLimitRoute.class);
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            limits.put(route, new RateLimit(MAX_REQUESTS, Duration.ofSeconds(WINDOW_SIZE_SECONDS), MAX_REQUESTS));
+        }
+        rateLimiter = new RateLimiterService(new RateLimitTiers(Map.of("standard", limits), "standard", null),
+                new InMemoryRateLimitStore());
+        fixedWindowLimiter = new FixedWindowLimiter();
+        clientIds = new String[clients];
+        for (int i = 0; i < clients; i++) {
+            clientIds[i] = "10.0." + (i / 256) + "." + (i % 256);
+        }
+    }
+
+    @Benchmark
+    public boolean gcra() {
+        return rateLimiter.tryAcquire(RateLimitRoute.CREATE, nextClient(), null).allowed();
+    }
+
+    @Benchmark
+    public boolean fixedWindow() {
+        return fixedWindowLimiter.allowRequest(nextClient());
+    }
+
+    private String nextClient() {
+        return clientIds[ThreadLocalRandom.current().nextInt(clients)];
+    }
+
+    // The previous RateLimiterService, kept here for comparison
+    static final class FixedWindowLimiter {
+        private final ConcurrentHashMap<String, UserBucket> buckets = new ConcurrentHashMap<>();
+
+        boolean allowRequest(String clientId) {
+            buckets.putIfAbsent(clientId, new UserBucket());
+            UserBucket bucket = buckets.get(clientId);
+            long now = Instant.now().getEpochSecond();
+            if (now - bucket.windowStart >= WINDOW_SIZE_SECONDS) {
+                bucket.reset(now);
+            }
+            if (bucket.requestCount.get() < MAX_REQUESTS) {
+                bucket.requestCount.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+
+        private static final class UserBucket {
+            final AtomicInteger requestCount = new AtomicInteger(0);
+            long windowStart = Instant.now().getEpochSecond();
+
+            void reset(long newWindowStart) {
+                requestCount.set(0);
+                windowStart = newWindowStart;
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.onafriq.paylite.service.paylite_service.benchmark;
+
+import com.onafriq.paylite.service.paylite_service.PayliteServiceApplication;
+import jakarta.servlet.Filter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.DefaultMockMvcBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+/**
+ * Rejected requests per second for a batch create with a bad X-API-Key.
+ * filterRejection runs the registered admission filters, which answer 401 from the headers alone.
+ * bodyBindingRejection runs without them and rejects the same body after Jackson and @Valid, the
+ * way PaymentController did when it checked the key after binding (the last item fails validation
+ * so nothing is created).
+ * Run with: mvn -Pbenchmark test -DskipTests -Dbenchmark=RejectedRequestBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RejectedRequestBenchmark {
+
+    @Param({"1", "100"})
+    public int items;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc withFilters;
+    private MockMvc withoutFilters;
+    private String body;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(PayliteServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN",
+                        "logging.level.com.onafriq=ERROR")
+                .run();
+        WebApplicationContext webContext = (WebApplicationContext) context;
+
+        DefaultMockMvcBuilder filtered = MockMvcBuilders.webAppContextSetup(webContext);
+        context.getBeansOfType(FilterRegistrationBean.class).values().stream()
+                .sorted(Comparator.comparingInt(Ordered::getOrder))
+                .forEach(registration -> filtered.addFilter((Filter) registration.getFilter(),
+                        (String[]) registration.getUrlPatterns().toArray(new String[0])));
+        withFilters = filtered.build();
+        withoutFilters = MockMvcBuilders.webAppContextSetup(webContext).build();
+
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < items; i++) {
+            long amount = i == items - 1 ? 0 : 1999;
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"idempotencyKey\":\"bench-").append(i).append("\",\"payment\":{\"amount\":").append(amount)
+                    .append(",\"currency\":\"KES\",\"customerEmail\":\"user@example.com\",\"reference\":\"INV-").append(i).append("\"}}");
+        }
+        body = json.append("]}").toString();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int filterRejection() throws Exception {
+        return reject(withFilters);
+    }
+
+    @Benchmark
+    public int bodyBindingRejection() throws Exception {
+        return reject(withoutFilters);
+    }
+
+    private int reject(MockMvc mockMvc) throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/v1/payments/batch")
+                        .header("X-API-Key", "wrong-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andReturn();
+        int status = result.getResponse().getStatus();
+        if (status != 400 && status != 401) {
+            throw new IllegalStateException("Expected a rejection, got " + status);
+        }
+        return status;
+    }
+}
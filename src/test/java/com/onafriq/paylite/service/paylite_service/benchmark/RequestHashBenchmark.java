@@ -0,0 +1,47 @@
+package com.onafriq.paylite.service.paylite_service.benchmark;
+
+import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
+import com.onafriq.paylite.service.paylite_service.service.IdempotencyService;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the canonical field-based request hash with the previous toString()-based hash.
+ * Run with: mvn -Pbenchmark test -DskipTests -Dbenchmark=RequestHashBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestHashBenchmark {
+
+    private IdempotencyService idempotencyService;
+    private PaymentRequest request;
+
+    @Setup
+    public void setUp() {
+        idempotencyService = new IdempotencyService(null, null, null);
+        request = new PaymentRequest(1999L, "KES", "user@example.com", "INV-2025-0001");
+    }
+
+    @Benchmark
+    public String canonicalFieldHash() {
+        return idempotencyService.calculateRequestHash(request);
+    }
+
+    @Benchmark
+    public String toStringHash() throws NoSuchAlgorithmException {
+        // Previous implementation of IdempotencyService.calculateRequestHash
+        String requestString = request.toString();
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        byte[] hash = digest.digest(requestString.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
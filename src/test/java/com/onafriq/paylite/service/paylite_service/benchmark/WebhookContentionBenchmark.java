@@ -0,0 +1,84 @@
+package com.onafriq.paylite.service.paylite_service.benchmark;
+
+import com.onafriq.paylite.service.paylite_service.PayliteServiceApplication;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookRequest;
+import com.onafriq.paylite.service.paylite_service.service.PaymentService;
+import com.onafriq.paylite.service.paylite_service.service.WebhookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Webhook deliveries per second from 16 concurrent callers when many events target a few hot
+ * payments (PSP retries and duplicate deliveries), compared with the same load spread over many
+ * payments. Each iteration starts from fresh PENDING payments, so the first event per payment
+ * applies the transition and the rest take the duplicate path on the same lane.
+ * H2 has little row contention to remove; pass -Dspring.datasource.url=jdbc:mysql://... (plus
+ * username/password) for representative numbers.
+ * Run with: mvn -Pbenchmark test -DskipTests -Dbenchmark=WebhookContentionBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class WebhookContentionBenchmark {
+
+    @Param({"1", "4"})
+    public int lanes;
+
+    @Param({"4", "256"})
+    public int hotPayments;
+
+    private ConfigurableApplicationContext context;
+    private PaymentService paymentService;
+    private WebhookService webhookService;
+    private final AtomicLong sequence = new AtomicLong();
+    private String[] paymentIds;
+    private String[] rawBodies;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(PayliteServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.jpa.show-sql=false",
+                        "app.webhooks.lanes.count=" + lanes,
+                        "logging.level.root=WARN")
+                .run();
+        paymentService = context.getBean(PaymentService.class);
+        webhookService = context.getBean(WebhookService.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void createPayments() {
+        paymentIds = new String[hotPayments];
+        rawBodies = new String[hotPayments];
+        for (int i = 0; i < hotPayments; i++) {
+            long n = sequence.incrementAndGet();
+            paymentIds[i] = paymentService.createPayment(
+                    new PaymentRequest(1999L, "KES", "user@example.com", "INV-HOT-" + n), "bench-hot-" + n).getPaymentId();
+            rawBodies[i] = "{\"paymentId\":\"" + paymentIds[i] + "\",\"event\":\"payment.succeeded\"}";
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void deliverWebhook() {
+        int i = ThreadLocalRandom.current().nextInt(hotPayments);
+        webhookService.processWebhook(new WebhookRequest(paymentIds[i], "payment.succeeded"), rawBodies[i],
+                "bench-" + sequence.incrementAndGet());
+    }
+}
@@ -0,0 +1,84 @@
+package com.onafriq.paylite.service.paylite_service.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdempotencyCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong nanos;
+    private IdempotencyCache idempotencyCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanos = new AtomicLong();
+        Ticker ticker = nanos::get;
+        idempotencyCache = new IdempotencyCache(2, Duration.ofMinutes(10), meterRegistry, ticker);
+    }
+
+    @Test
+    void get_AfterPut_ShouldReturnStoredHashAndResponse() {
+        idempotencyCache.put("key-1", "hash-1", "{\"paymentId\":\"pl_1\"}");
+
+        IdempotencyCache.CachedIdempotencyKey cached = idempotencyCache.get("key-1").orElseThrow();
+
+        assertEquals("hash-1", cached.requestHash());
+        assertEquals("{\"paymentId\":\"pl_1\"}", cached.responseBody());
+    }
+
+    @Test
+    void get_AfterTtl_ShouldExpireEntry() {
+        idempotencyCache.put("key-1", "hash-1", "body");
+
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+
+        assertTrue(idempotencyCache.get("key-1").isEmpty());
+    }
+
+    @Test
+    void put_BeyondMaxSize_ShouldEvictAndCountEviction() {
+        idempotencyCache.put("key-1", "hash-1", "body-1");
+        idempotencyCache.put("key-2", "hash-2", "body-2");
+        idempotencyCache.put("key-3", "hash-3", "body-3");
+
+        assertEquals(1.0, meterRegistry.get("cache.evictions").tag("cache", "idempotency").functionCounter().count());
+    }
+
+    @Test
+    void get_ShouldRecordHitsAndMisses() {
+        idempotencyCache.put("key-1", "hash-1", "body");
+
+        idempotencyCache.get("key-1");
+        idempotencyCache.get("missing");
+        idempotencyCache.get("missing-too");
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "idempotency", "result", "hit")
+                .functionCounter().count());
+        assertEquals(2.0, meterRegistry.get("cache.gets").tags("cache", "idempotency", "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void putAfterCommit_WithoutTransaction_ShouldPutImmediately() {
+        idempotencyCache.putAfterCommit("key-1", "hash-1", "body");
+
+        assertTrue(idempotencyCache.get("key-1").isPresent());
+    }
+
+    @Test
+    void invalidate_ShouldRemoveEntry() {
+        idempotencyCache.put("key-1", "hash-1", "body");
+
+        idempotencyCache.invalidate("key-1");
+
+        assertTrue(idempotencyCache.get("key-1").isEmpty());
+    }
+}
@@ -0,0 +1,113 @@
+package com.onafriq.paylite.service.paylite_service.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
+import com.onafriq.paylite.service.paylite_service.exception.PaymentNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong nanos;
+    private PaymentCache paymentCache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanos = new AtomicLong();
+        Ticker ticker = nanos::get;
+        paymentCache = new PaymentCache(100, Duration.ofHours(1), Duration.ofSeconds(2), meterRegistry, ticker);
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_WithPendingPayment_ShouldExpireAfterPendingTtl() {
+        paymentCache.get("pl_1", loader("PENDING"));
+        paymentCache.get("pl_1", loader("PENDING"));
+        assertEquals(1, loads.get());
+
+        nanos.addAndGet(Duration.ofSeconds(3).toNanos());
+        paymentCache.get("pl_1", loader("PENDING"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_WithFinalPayment_ShouldOutliveThePendingTtl() {
+        paymentCache.get("pl_1", loader("SUCCEEDED"));
+
+        nanos.addAndGet(Duration.ofMinutes(30).toNanos());
+        PaymentResponse cached = paymentCache.get("pl_1", loader("SUCCEEDED"));
+
+        assertEquals("SUCCEEDED", cached.getStatus());
+        assertEquals(1, loads.get());
+
+        nanos.addAndGet(Duration.ofMinutes(31).toNanos());
+        paymentCache.get("pl_1", loader("SUCCEEDED"));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_WhenLoaderThrows_ShouldNotCacheFailure() {
+        Function<String, PaymentResponse> missing = id -> {
+            loads.incrementAndGet();
+            throw new PaymentNotFoundException("Payment with ID '" + id + "' not found");
+        };
+
+        assertThrows(PaymentNotFoundException.class, () -> paymentCache.get("pl_missing", missing));
+        assertThrows(PaymentNotFoundException.class, () -> paymentCache.get("pl_missing", missing));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateAfterCommit_ShouldDropEntryNowAndAfterCommit() {
+        paymentCache.get("pl_1", loader("PENDING"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            paymentCache.invalidateAfterCommit("pl_1");
+            // A concurrent reader reloads the old status before the update commits
+            paymentCache.get("pl_1", loader("PENDING"));
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        PaymentResponse result = paymentCache.get("pl_1", loader("SUCCEEDED"));
+
+        assertEquals("SUCCEEDED", result.getStatus());
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_ShouldPublishHitRatio() {
+        paymentCache.get("pl_1", loader("SUCCEEDED"));
+        paymentCache.get("pl_1", loader("SUCCEEDED"));
+        paymentCache.get("pl_1", loader("SUCCEEDED"));
+        paymentCache.get("pl_1", loader("SUCCEEDED"));
+
+        assertEquals(0.75, meterRegistry.get("paylite.payment.cache.hit.ratio").gauge().value(), 0.001);
+        assertEquals(3.0, meterRegistry.get("cache.gets").tag("cache", "payments").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    private Function<String, PaymentResponse> loader(String status) {
+        return paymentId -> {
+            loads.incrementAndGet();
+            return PaymentResponse.builder().paymentId(paymentId).status(status).build();
+        };
+    }
+}
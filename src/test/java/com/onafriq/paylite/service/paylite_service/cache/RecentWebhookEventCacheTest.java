@@ -0,0 +1,67 @@
+package com.onafriq.paylite.service.paylite_service.cache;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentWebhookEventCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong nanos;
+    private RecentWebhookEventCache recentEvents;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        nanos = new AtomicLong();
+        Ticker ticker = nanos::get;
+        recentEvents = new RecentWebhookEventCache(100, Duration.ofHours(1), meterRegistry, ticker);
+    }
+
+    @Test
+    void findPayload_ByEventId_ShouldMatchAcrossPayments() {
+        recentEvents.put("psp_req-1", "pl_1", "payment.succeeded", "body-1");
+
+        assertEquals(Optional.of("body-1"), recentEvents.findPayload("psp_req-1", "pl_2", "payment.failed"));
+    }
+
+    @Test
+    void findPayload_ByBusinessKey_ShouldMatchWithoutEventId() {
+        recentEvents.put("psp_req-1", "pl_1", "payment.succeeded", "body-1");
+
+        assertEquals(Optional.of("body-1"), recentEvents.findPayload(null, "pl_1", "payment.succeeded"));
+        assertEquals(Optional.of("body-1"), recentEvents.findPayload("psp_req-2", "pl_1", "payment.succeeded"));
+    }
+
+    @Test
+    void findPayload_ForOtherEventType_ShouldMiss() {
+        recentEvents.put(null, "pl_1", "payment.succeeded", "body-1");
+
+        assertTrue(recentEvents.findPayload(null, "pl_1", "payment.failed").isEmpty());
+    }
+
+    @Test
+    void findPayload_AfterTtl_ShouldMiss() {
+        recentEvents.put("psp_req-1", "pl_1", "payment.succeeded", "body-1");
+
+        nanos.addAndGet(Duration.ofMinutes(61).toNanos());
+
+        assertTrue(recentEvents.findPayload("psp_req-1", "pl_1", "payment.succeeded").isEmpty());
+    }
+
+    @Test
+    void putAfterCommit_WithoutTransaction_ShouldPutImmediately() {
+        recentEvents.putAfterCommit(null, "pl_1", "payment.failed", "body-1");
+
+        assertEquals(Optional.of("body-1"), recentEvents.findPayload(null, "pl_1", "payment.failed"));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "webhook_events").tag("result", "hit")
+                .functionCounter().count());
+    }
+}
@@ -0,0 +1,188 @@
+package com.onafriq.paylite.service.paylite_service.concurrency;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final Duration THRESHOLD = Duration.ofMillis(500);
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(20);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(2);
+
+    private SimpleMeterRegistry meterRegistry;
+    private AtomicLong clock;
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        clock = new AtomicLong();
+        limiter = new AdaptiveConcurrencyLimiter(10, 2, 20, THRESHOLD, meterRegistry, clock::get);
+    }
+
+    @Test
+    void tryAcquire_ShouldAdmitUpToTheLimitWithoutQueueing() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+        }
+
+        assertFalse(limiter.tryAcquire(RequestPriority.CRITICAL));
+        assertEquals(10, limiter.getInFlight());
+    }
+
+    @Test
+    void tryAcquire_ShouldShedLowerPrioritiesFirst() {
+        // Arrange
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire(RequestPriority.BULK));
+        }
+
+        // Act & Assert
+        assertFalse(limiter.tryAcquire(RequestPriority.BULK));
+        assertTrue(limiter.tryAcquire(RequestPriority.NORMAL));
+        assertTrue(limiter.tryAcquire(RequestPriority.NORMAL));
+        assertTrue(limiter.tryAcquire(RequestPriority.NORMAL));
+        assertFalse(limiter.tryAcquire(RequestPriority.NORMAL));
+        assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+        assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+        assertFalse(limiter.tryAcquire(RequestPriority.CRITICAL));
+    }
+
+    @Test
+    void tryAcquire_WhenShed_ShouldCountRejectionByPriority() {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(RequestPriority.CRITICAL);
+        }
+
+        // Act
+        limiter.tryAcquire(RequestPriority.BULK);
+        limiter.tryAcquire(RequestPriority.BULK);
+        limiter.tryAcquire(RequestPriority.CRITICAL);
+
+        // Assert
+        assertEquals(2, meterRegistry.get("paylite.concurrency.rejected").tag("priority", "bulk").counter().count());
+        assertEquals(1, meterRegistry.get("paylite.concurrency.rejected").tag("priority", "critical").counter().count());
+        assertEquals(0, meterRegistry.get("paylite.concurrency.rejected").tag("priority", "normal").counter().count());
+    }
+
+    @Test
+    void release_ShouldFreeTheSlot() {
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(RequestPriority.CRITICAL);
+        }
+
+        limiter.release();
+
+        assertTrue(limiter.tryAcquire(RequestPriority.CRITICAL));
+    }
+
+    @Test
+    void release_WithSlowRequest_ShouldLowerTheLimit() {
+        limiter.tryAcquire(RequestPriority.NORMAL);
+
+        limiter.release(SLOW);
+
+        assertEquals(8, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void release_WithSlowRequestsFromOneSpike_ShouldLowerTheLimitOncePerThreshold() {
+        // Arrange
+        for (int i = 0; i < 10; i++) {
+            limiter.tryAcquire(RequestPriority.CRITICAL);
+        }
+
+        // Act
+        for (int i = 0; i < 10; i++) {
+            limiter.release(SLOW);
+        }
+
+        // Assert
+        assertEquals(8, limiter.getLimit());
+
+        clock.addAndGet(THRESHOLD.toNanos());
+        limiter.tryAcquire(RequestPriority.CRITICAL);
+        limiter.release(SLOW);
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void release_WithSustainedSlowness_ShouldNotGoBelowMinLimit() {
+        for (int i = 0; i < 20; i++) {
+            clock.addAndGet(THRESHOLD.toNanos());
+            limiter.tryAcquire(RequestPriority.CRITICAL);
+            limiter.release(SLOW);
+        }
+
+        assertEquals(2, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(RequestPriority.BULK));
+        assertFalse(limiter.tryAcquire(RequestPriority.BULK));
+    }
+
+    @Test
+    void release_WithFastRequestsAtTheLimit_ShouldRaiseItAdditively() {
+        // Act: each fast request completes with the limit fully in use
+        for (int i = 0; i < 10; i++) {
+            fillAndReleaseOne(FAST);
+        }
+
+        // Assert
+        assertEquals(10, limiter.getLimit());
+        fillAndReleaseOne(FAST);
+        assertEquals(11, limiter.getLimit());
+    }
+
+    @Test
+    void release_WithFastRequestsWellUnderTheLimit_ShouldNotRaiseIt() {
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(RequestPriority.NORMAL);
+            limiter.release(FAST);
+        }
+
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    void release_WithFastRequests_ShouldNotRaiseAboveMaxLimit() {
+        for (int i = 0; i < 1000; i++) {
+            fillAndReleaseOne(FAST);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    @Test
+    void gauges_ShouldPublishLimitAndInFlight() {
+        limiter.tryAcquire(RequestPriority.NORMAL);
+
+        assertEquals(10, meterRegistry.get("paylite.concurrency.limit").gauge().value());
+        assertEquals(1, meterRegistry.get("paylite.concurrency.in.flight").gauge().value());
+    }
+
+    @Test
+    void constructor_WithInconsistentLimits_ShouldThrow() {
+        assertThrows(IllegalArgumentException.class, () ->
+                new AdaptiveConcurrencyLimiter(10, 20, 50, THRESHOLD, meterRegistry, clock::get));
+        assertThrows(IllegalArgumentException.class, () ->
+                new AdaptiveConcurrencyLimiter(10, 0, 50, THRESHOLD, meterRegistry, clock::get));
+    }
+
+    private void fillAndReleaseOne(long latencyNanos) {
+        while (limiter.tryAcquire(RequestPriority.CRITICAL)) {
+            // fill every free slot
+        }
+        limiter.release(latencyNanos);
+        while (limiter.getInFlight() > 0) {
+            limiter.release();
+        }
+    }
+}
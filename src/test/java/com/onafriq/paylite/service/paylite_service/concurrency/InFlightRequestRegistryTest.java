@@ -0,0 +1,143 @@
+package com.onafriq.paylite.service.paylite_service.concurrency;
+
+import com.onafriq.paylite.service.paylite_service.exception.IdempotencyConflictException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightRequestRegistryTest {
+
+    private InFlightRequestRegistry registry;
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        registry = new InFlightRequestRegistry(Duration.ofSeconds(5));
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_WithNoConcurrentRequest_ShouldRunActionAndClearEntry() {
+        String result = registry.execute("key-1", "hash-1", () -> "response");
+
+        assertEquals("response", result);
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void execute_WithConcurrentDuplicate_ShouldShareFirstResult() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> registry.execute("key-1", "hash-1", () -> {
+            runs.incrementAndGet();
+            leaderStarted.countDown();
+            await(releaseLeader);
+            return "response";
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        Future<String> follower = executor.submit(() -> registry.execute("key-1", "hash-1", () -> {
+            runs.incrementAndGet();
+            return "other-response";
+        }));
+        // Give the follower time to find the leader's entry before it completes
+        Thread.sleep(100);
+        releaseLeader.countDown();
+
+        assertEquals("response", leader.get(5, TimeUnit.SECONDS));
+        assertEquals("response", follower.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void execute_WithConcurrentDifferentHash_ShouldThrowConflict() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> registry.execute("key-1", "hash-1", () -> {
+            leaderStarted.countDown();
+            await(releaseLeader);
+            return "response";
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> registry.execute("key-1", "hash-2", () -> "other-response"));
+
+        releaseLeader.countDown();
+        assertEquals("response", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_WhenLeaderFails_ShouldPropagateFailureToWaiters() throws Exception {
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> registry.execute("key-1", "hash-1", () -> {
+            leaderStarted.countDown();
+            await(releaseLeader);
+            throw new IllegalStateException("boom");
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        Future<String> follower = executor.submit(() -> registry.execute("key-1", "hash-1", () -> "response"));
+        // Give the follower time to find the leader's entry before it completes
+        Thread.sleep(100);
+        releaseLeader.countDown();
+
+        Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(IllegalStateException.class, leaderError.getCause());
+        assertEquals(0, registry.size());
+        // The follower either shared the failure or, if it arrived after cleanup, ran on its own
+        try {
+            assertEquals("response", follower.get(5, TimeUnit.SECONDS));
+        } catch (java.util.concurrent.ExecutionException e) {
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+        }
+    }
+
+    @Test
+    void execute_WhenLeaderExceedsWaitTimeout_ShouldThrowConflict() throws Exception {
+        registry = new InFlightRequestRegistry(Duration.ofMillis(50));
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch releaseLeader = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> registry.execute("key-1", "hash-1", () -> {
+            leaderStarted.countDown();
+            await(releaseLeader);
+            return "response";
+        }));
+        assertTrue(leaderStarted.await(5, TimeUnit.SECONDS));
+
+        assertThrows(IdempotencyConflictException.class,
+                () -> registry.execute("key-1", "hash-1", () -> "other-response"));
+
+        releaseLeader.countDown();
+        leader.get(5, TimeUnit.SECONDS);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.onafriq.paylite.service.paylite_service.concurrency;
+
+import com.onafriq.paylite.service.paylite_service.exception.WebhookBacklogFullException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentLaneExecutorTest {
+
+    private PaymentLaneExecutor laneExecutor;
+    private ExecutorService callers;
+
+    @BeforeEach
+    void setUp() {
+        laneExecutor = new PaymentLaneExecutor(4, 100);
+        callers = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        callers.shutdownNow();
+        laneExecutor.shutdown();
+    }
+
+    @Test
+    void execute_ShouldReturnTaskResult() {
+        assertEquals("done", laneExecutor.execute("pl_1", () -> "done"));
+    }
+
+    @Test
+    void execute_WhenTaskThrows_ShouldRethrowToCaller() {
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () ->
+                laneExecutor.run("pl_1", () -> {
+                    throw new IllegalStateException("boom");
+                }));
+
+        assertEquals("boom", thrown.getMessage());
+    }
+
+    @Test
+    void execute_ForSamePayment_ShouldNeverOverlap() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 50; i++) {
+            futures.add(callers.submit(() -> laneExecutor.run("pl_hot", () -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                sleep(1);
+                running.decrementAndGet();
+            })));
+        }
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void execute_FromOneCaller_ShouldRunInSubmissionOrder() {
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+
+        for (int i = 0; i < 20; i++) {
+            int n = i;
+            laneExecutor.run("pl_1", () -> order.add(n));
+        }
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void execute_ForDifferentLanes_ShouldRunInParallel() throws Exception {
+        String first = "pl_a";
+        String second = paymentOnOtherLane(first);
+        CountDownLatch bothStarted = new CountDownLatch(2);
+
+        Future<Boolean> a = callers.submit(() -> laneExecutor.execute(first, () -> awaitBoth(bothStarted)));
+        Future<Boolean> b = callers.submit(() -> laneExecutor.execute(second, () -> awaitBoth(bothStarted)));
+
+        assertTrue(a.get(5, TimeUnit.SECONDS));
+        assertTrue(b.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_FromInsideSameLane_ShouldRunInline() {
+        String result = laneExecutor.execute("pl_1", () -> laneExecutor.execute("pl_1", () -> "nested"));
+
+        assertEquals("nested", result);
+    }
+
+    @Test
+    void execute_WhenLaneQueueIsFull_ShouldThrowBacklogFull() throws Exception {
+        PaymentLaneExecutor singleLane = new PaymentLaneExecutor(1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            callers.submit(() -> singleLane.run("pl_1", () -> {
+                started.countDown();
+                awaitQuietly(release);
+            }));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            callers.submit(() -> singleLane.run("pl_2", () -> { }));
+            while (singleLane.queued() < 1) {
+                Thread.onSpinWait();
+            }
+
+            assertThrows(WebhookBacklogFullException.class, () -> singleLane.run("pl_3", () -> { }));
+        } finally {
+            release.countDown();
+            singleLane.shutdown();
+        }
+    }
+
+    @Test
+    void constructor_WithNoLanes_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new PaymentLaneExecutor(0, 10));
+    }
+
+    private String paymentOnOtherLane(String paymentId) {
+        int lane = laneExecutor.laneFor(paymentId);
+        for (int i = 0; ; i++) {
+            String candidate = "pl_" + i;
+            if (laneExecutor.laneFor(candidate) != lane) {
+                return candidate;
+            }
+        }
+    }
+
+    private static boolean awaitBoth(CountDownLatch bothStarted) {
+        bothStarted.countDown();
+        try {
+            return bothStarted.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,25 +1,30 @@
 package com.onafriq.paylite.service.paylite_service.controller;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentItem;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentRequest;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentResponse;
 import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
 import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
+import com.onafriq.paylite.service.paylite_service.event.PaymentStatusChangedEvent;
+import com.onafriq.paylite.service.paylite_service.event.PaymentStatusNotifier;
 import com.onafriq.paylite.service.paylite_service.exception.BadRequestException;
-import com.onafriq.paylite.service.paylite_service.exception.RateLimitExceedeException;
-import com.onafriq.paylite.service.paylite_service.exception.UnauthorizedException;
-import com.onafriq.paylite.service.paylite_service.service.IdempotencyService;
 import com.onafriq.paylite.service.paylite_service.service.PaymentService;
-import com.onafriq.paylite.service.paylite_service.service.RateLimiterService;
-import com.onafriq.paylite.service.paylite_service.service.SecurityService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -31,25 +36,20 @@ class PaymentControllerTest {
     @Mock
     private PaymentService paymentService;
     @Mock
-    private IdempotencyService idempotencyService;
-    @Mock
-    private SecurityService securityService;
-    @Mock
-    private ObjectMapper objectMapper;
-    @Mock
-    private RateLimiterService rateLimiter;
-    @Mock
     private HttpServletRequest httpRequest;
 
 
     @InjectMocks
     private PaymentController paymentController;
 
+    private PaymentStatusNotifier paymentStatusNotifier;
+
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
-        paymentController = new PaymentController(paymentService, idempotencyService, securityService, objectMapper);
-        ReflectionTestUtils.setField(paymentController, "rateLimiter", rateLimiter); // injects the mock
+        paymentStatusNotifier = new PaymentStatusNotifier(10, new SimpleMeterRegistry());
+        paymentController = new PaymentController(paymentService, paymentStatusNotifier);
+        ReflectionTestUtils.setField(paymentController, "subscriptionTimeout", Duration.ofSeconds(30));
         when(httpRequest.getRemoteAddr()).thenReturn("127.0.0.1");
     }
 
@@ -57,62 +57,106 @@ class PaymentControllerTest {
     void createPayment_ShouldReturnOk_WhenValidRequest() throws Exception {
         PaymentRequest request = new PaymentRequest();
         PaymentResponse response = new PaymentResponse();
-        when(securityService.isValidApiKey("validKey")).thenReturn(true);
-        when(rateLimiter.allowRequest("127.0.0.1")).thenReturn(true);
         when(paymentService.createPayment(any(), eq("idempotencyKey"))).thenReturn(response);
 
-        ResponseEntity<?> result = paymentController.createPayment("validKey", "idempotencyKey", request, httpRequest);
+        ResponseEntity<?> result = paymentController.createPayment("idempotencyKey", request, httpRequest);
 
         assertThat(result.getBody()).isEqualTo(response);
         verify(paymentService).createPayment(any(), eq("idempotencyKey"));
     }
 
-    @Test
-    void createPayment_ShouldThrowUnauthorized_WhenApiKeyInvalid() {
-        PaymentRequest request = new PaymentRequest();
-        when(securityService.isValidApiKey("badKey")).thenReturn(false);
-
-        assertThrows(UnauthorizedException.class,
-                () -> paymentController.createPayment("badKey", "idempotencyKey", request, httpRequest));
-    }
-
     @Test
     void createPayment_ShouldThrowBadRequest_WhenIdempotencyKeyMissing() {
         PaymentRequest request = new PaymentRequest();
-        when(securityService.isValidApiKey("validKey")).thenReturn(true);
 
         assertThrows(BadRequestException.class,
-                () -> paymentController.createPayment("validKey", " ", request, httpRequest));
+                () -> paymentController.createPayment(" ", request, httpRequest));
     }
 
     @Test
-    void createPayment_ShouldThrowRateLimitExceeded_WhenRateLimitBreached() {
-        PaymentRequest request = new PaymentRequest();
-        when(securityService.isValidApiKey("validKey")).thenReturn(true);
-        when(rateLimiter.allowRequest("127.0.0.1")).thenReturn(false);
-        when(rateLimiter.getResetTime("127.0.0.1")).thenReturn(1000L);
+    void createPayments_ShouldReturnOk_WhenValidBatch() {
+        List<BatchPaymentItem> items = List.of(new BatchPaymentItem("key-1", new PaymentRequest()));
+        BatchPaymentResponse response = new BatchPaymentResponse(List.of());
+        when(paymentService.createPayments(items)).thenReturn(response);
+
+        ResponseEntity<?> result = paymentController.createPayments(new BatchPaymentRequest(items));
 
-        assertThrows(RateLimitExceedeException.class,
-                () -> paymentController.createPayment("validKey", "idempotencyKey", request, httpRequest));
+        assertThat(result.getBody()).isEqualTo(response);
     }
 
     @Test
     void getPayment_ShouldReturnOk_WhenValidRequest() throws SQLTransientException {
         PaymentResponse response = new PaymentResponse();
-        when(securityService.isValidApiKey("validKey")).thenReturn(true);
         when(paymentService.getPayment("payment123")).thenReturn(response);
 
-        ResponseEntity<?> result = paymentController.getPayment("validKey", "payment123", httpRequest);
+        ResponseEntity<?> result = paymentController.getPayment("payment123", null);
 
         assertThat(result.getBody()).isEqualTo(response);
         verify(paymentService).getPayment("payment123");
     }
 
     @Test
-    void getPayment_ShouldThrowUnauthorized_WhenApiKeyInvalid() {
-        when(securityService.isValidApiKey("badKey")).thenReturn(false);
+    void getPayment_ShouldReturnETagFromVersion() throws SQLTransientException {
+        PaymentResponse response = PaymentResponse.builder().paymentId("payment123").status("PENDING").version(3L).build();
+        when(paymentService.getPayment("payment123")).thenReturn(response);
+
+        ResponseEntity<?> result = paymentController.getPayment("payment123", null);
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(result.getHeaders().getETag()).isEqualTo("\"3\"");
+        verify(paymentService, never()).getPaymentVersion(any());
+    }
+
+    @Test
+    void getPayment_ShouldReturnNotModified_WhenIfNoneMatchIsCurrent() throws SQLTransientException {
+        when(paymentService.getPaymentVersion("payment123")).thenReturn(Optional.of(3L));
+
+        ResponseEntity<?> result = paymentController.getPayment("payment123", "W/\"2\", \"3\"");
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(result.getHeaders().getETag()).isEqualTo("\"3\"");
+        assertThat(result.getBody()).isNull();
+        verify(paymentService, never()).getPayment(any());
+    }
+
+    @Test
+    void getPayment_ShouldReturnBody_WhenIfNoneMatchIsStale() throws SQLTransientException {
+        PaymentResponse response = PaymentResponse.builder().paymentId("payment123").status("SUCCEEDED").version(4L).build();
+        when(paymentService.getPaymentVersion("payment123")).thenReturn(Optional.of(4L));
+        when(paymentService.getPayment("payment123")).thenReturn(response);
+
+        ResponseEntity<?> result = paymentController.getPayment("payment123", "\"3\"");
+
+        assertThat(result.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(result.getBody()).isEqualTo(response);
+        assertThat(result.getHeaders().getETag()).isEqualTo("\"4\"");
+    }
+
+    @Test
+    void awaitPayment_ShouldCompleteImmediately_WhenPaymentIsFinal() throws SQLTransientException {
+        PaymentResponse response = PaymentResponse.builder().paymentId("payment123").status("SUCCEEDED").build();
+        when(paymentService.getPayment("payment123")).thenReturn(response);
+
+        DeferredResult<PaymentResponse> result = paymentController.awaitPayment("payment123");
+
+        assertThat(result.getResult()).isEqualTo(response);
+        assertThat(paymentStatusNotifier.waiterCount()).isZero();
+    }
+
+    @Test
+    void awaitPayment_ShouldCompleteOnStatusChange_WhenPaymentIsPending() throws SQLTransientException {
+        PaymentResponse pending = PaymentResponse.builder().paymentId("payment123").status("PENDING").build();
+        PaymentResponse succeeded = PaymentResponse.builder().paymentId("payment123").status("SUCCEEDED").build();
+        when(paymentService.getPayment("payment123")).thenReturn(pending, pending, succeeded);
+
+        DeferredResult<PaymentResponse> result = paymentController.awaitPayment("payment123");
+
+        assertThat(result.hasResult()).isFalse();
+        assertThat(paymentStatusNotifier.waiterCount()).isEqualTo(1);
+
+        paymentStatusNotifier.onStatusChanged(new PaymentStatusChangedEvent("payment123", "SUCCEEDED"));
 
-        assertThrows(UnauthorizedException.class,
-                () -> paymentController.getPayment("badKey", "payment123", httpRequest));
+        assertThat(result.getResult()).isEqualTo(succeeded);
+        assertThat(paymentStatusNotifier.waiterCount()).isZero();
     }
 }
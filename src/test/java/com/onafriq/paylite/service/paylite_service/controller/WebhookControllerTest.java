@@ -2,11 +2,16 @@ package com.onafriq.paylite.service.paylite_service.controller;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.dto.BatchWebhookResponse;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookBody;
 import com.onafriq.paylite.service.paylite_service.dto.WebhookRequest;
 import com.onafriq.paylite.service.paylite_service.exception.InvalidWebhookPayloadException;
 import com.onafriq.paylite.service.paylite_service.exception.PaymentNotFoundException;
 import com.onafriq.paylite.service.paylite_service.exception.UnauthorizedException;
+import com.onafriq.paylite.service.paylite_service.exception.WebhookBacklogFullException;
 import com.onafriq.paylite.service.paylite_service.service.SecurityService;
+import com.onafriq.paylite.service.paylite_service.service.WebhookBatchService;
+import com.onafriq.paylite.service.paylite_service.service.WebhookInboxService;
 import com.onafriq.paylite.service.paylite_service.service.WebhookService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +20,9 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -32,6 +40,12 @@ class WebhookControllerTest {
     @Mock
     private ObjectMapper objectMapper;
 
+    @Mock
+    private WebhookInboxService webhookInboxService;
+
+    @Mock
+    private WebhookBatchService webhookBatchService;
+
     @Mock
     private HttpServletRequest httpRequest;
 
@@ -39,6 +53,7 @@ class WebhookControllerTest {
     private WebhookController webhookController;
 
     private final String rawBody = "{\"paymentId\":\"123\",\"event\":\"PAYMENT_SUCCESS\"}";
+    private final WebhookBody body = body(rawBody);
     private final String signature = "valid-signature";
 
     @BeforeEach
@@ -53,39 +68,40 @@ class WebhookControllerTest {
         request.setEvent("PAYMENT_SUCCESS");
 
         when(httpRequest.getHeader("X-PSP-Signature")).thenReturn(signature);
-        when(securityService.verifyWebhookSignature(signature, rawBody)).thenReturn(true);
-        when(objectMapper.readValue(rawBody, WebhookRequest.class)).thenReturn(request);
+        when(securityService.readSignedWebhookBody(eq(signature), any(), anyInt())).thenReturn(body);
+        when(objectMapper.readValue(body.buffer(), 0, body.length(), WebhookRequest.class)).thenReturn(request);
 
-        ResponseEntity<Void> response = webhookController.handleWebhook(rawBody, httpRequest);
+        ResponseEntity<Void> response = webhookController.handleWebhook(httpRequest);
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         verify(webhookService, times(1)).processWebhook(eq(request), eq(rawBody), eq(httpRequest));
     }
 
     @Test
-    void handleWebhook_ShouldThrowUnauthorized_WhenSignatureInvalid() {
+    void handleWebhook_ShouldThrowUnauthorized_WhenSignatureInvalid() throws Exception {
         when(httpRequest.getHeader("X-PSP-Signature")).thenReturn("bad-signature");
-        when(securityService.verifyWebhookSignature(anyString(), eq(rawBody))).thenReturn(false);
+        when(securityService.readSignedWebhookBody(eq("bad-signature"), any(), anyInt()))
+                .thenThrow(new UnauthorizedException("Invalid webhook signature"));
 
         assertThrows(UnauthorizedException.class, () ->
-                webhookController.handleWebhook(rawBody, httpRequest)
+                webhookController.handleWebhook(httpRequest)
         );
 
-        verify(webhookService, never()).processWebhook(any(), anyString(), any());
+        verify(webhookService, never()).processWebhook(any(), anyString(), any(HttpServletRequest.class));
     }
 
     @Test
     void handleWebhook_ShouldThrowInvalidPayload_WhenJsonInvalid() throws Exception {
         when(httpRequest.getHeader("X-PSP-Signature")).thenReturn(signature);
-        when(securityService.verifyWebhookSignature(signature, rawBody)).thenReturn(true);
-        when(objectMapper.readValue(rawBody, WebhookRequest.class))
+        when(securityService.readSignedWebhookBody(eq(signature), any(), anyInt())).thenReturn(body);
+        when(objectMapper.readValue(body.buffer(), 0, body.length(), WebhookRequest.class))
                 .thenThrow(new JsonProcessingException("Invalid JSON") {});
 
         assertThrows(InvalidWebhookPayloadException.class, () ->
-                webhookController.handleWebhook(rawBody, httpRequest)
+                webhookController.handleWebhook(httpRequest)
         );
 
-        verify(webhookService, never()).processWebhook(any(), anyString(), any());
+        verify(webhookService, never()).processWebhook(any(), anyString(), any(HttpServletRequest.class));
     }
 
     @Test
@@ -95,13 +111,83 @@ class WebhookControllerTest {
         request.setEvent("PAYMENT_FAILED");
 
         when(httpRequest.getHeader("X-PSP-Signature")).thenReturn(signature);
-        when(securityService.verifyWebhookSignature(signature, rawBody)).thenReturn(true);
-        when(objectMapper.readValue(rawBody, WebhookRequest.class)).thenReturn(request);
+        when(securityService.readSignedWebhookBody(eq(signature), any(), anyInt())).thenReturn(body);
+        when(objectMapper.readValue(body.buffer(), 0, body.length(), WebhookRequest.class)).thenReturn(request);
         doThrow(new PaymentNotFoundException("Payment not found"))
                 .when(webhookService).processWebhook(eq(request), eq(rawBody), eq(httpRequest));
 
         assertThrows(PaymentNotFoundException.class, () ->
-                webhookController.handleWebhook(rawBody, httpRequest)
+                webhookController.handleWebhook(httpRequest)
+        );
+    }
+
+    @Test
+    void handleWebhook_InAsyncMode_ShouldEnqueueAndReturnOk() throws Exception {
+        WebhookRequest request = new WebhookRequest();
+        request.setPaymentId("123");
+        request.setEvent("PAYMENT_SUCCESS");
+        ReflectionTestUtils.setField(webhookController, "asyncIngestion", true);
+
+        when(httpRequest.getHeader("X-PSP-Signature")).thenReturn(signature);
+        when(httpRequest.getHeader("X-Request-Id")).thenReturn("req-1");
+        when(securityService.readSignedWebhookBody(eq(signature), any(), anyInt())).thenReturn(body);
+        when(objectMapper.readValue(body.buffer(), 0, body.length(), WebhookRequest.class)).thenReturn(request);
+
+        ResponseEntity<Void> response = webhookController.handleWebhook(httpRequest);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        verify(webhookInboxService).enqueue(rawBody, "req-1");
+        verify(webhookService, never()).processWebhook(any(), anyString(), any(HttpServletRequest.class));
+    }
+
+    @Test
+    void handleWebhook_InAsyncMode_ShouldRejectWhenBacklogFull() throws Exception {
+        WebhookRequest request = new WebhookRequest();
+        request.setPaymentId("123");
+        request.setEvent("PAYMENT_SUCCESS");
+        ReflectionTestUtils.setField(webhookController, "asyncIngestion", true);
+
+        when(httpRequest.getHeader("X-PSP-Signature")).thenReturn(signature);
+        when(securityService.readSignedWebhookBody(eq(signature), any(), anyInt())).thenReturn(body);
+        when(objectMapper.readValue(body.buffer(), 0, body.length(), WebhookRequest.class)).thenReturn(request);
+        when(webhookInboxService.isOverloaded()).thenReturn(true);
+
+        assertThrows(WebhookBacklogFullException.class, () ->
+                webhookController.handleWebhook(httpRequest)
         );
+
+        verify(webhookInboxService, never()).enqueue(anyString(), any());
+    }
+
+    @Test
+    void handleWebhookBatch_ShouldReturnPerEventResults_WhenSignatureValid() throws Exception {
+        WebhookBody batchBody = body("{\"events\":[]}");
+        BatchWebhookResponse batchResponse = new BatchWebhookResponse(java.util.List.of());
+        when(httpRequest.getHeader("X-PSP-Signature")).thenReturn(signature);
+        when(securityService.readSignedWebhookBody(eq(signature), any(), anyInt())).thenReturn(batchBody);
+        when(webhookBatchService.processBatch(batchBody)).thenReturn(batchResponse);
+
+        ResponseEntity<BatchWebhookResponse> response = webhookController.handleWebhookBatch(httpRequest);
+
+        assertThat(response.getStatusCode().value()).isEqualTo(200);
+        assertThat(response.getBody()).isSameAs(batchResponse);
+    }
+
+    @Test
+    void handleWebhookBatch_ShouldThrowUnauthorized_WhenSignatureInvalid() throws Exception {
+        when(httpRequest.getHeader("X-PSP-Signature")).thenReturn("bad-signature");
+        when(securityService.readSignedWebhookBody(eq("bad-signature"), any(), anyInt()))
+                .thenThrow(new UnauthorizedException("Invalid webhook signature"));
+
+        assertThrows(UnauthorizedException.class, () ->
+                webhookController.handleWebhookBatch(httpRequest)
+        );
+
+        verifyNoInteractions(webhookBatchService);
+    }
+
+    private static WebhookBody body(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return new WebhookBody(bytes, bytes.length);
     }
 }
@@ -0,0 +1,87 @@
+package com.onafriq.paylite.service.paylite_service.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CryptoPrimitivesTest {
+
+    private static final byte[] KEY = "test-webhook-secret-key".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "{\"paymentId\":\"pay_123\"}".getBytes(StandardCharsets.UTF_8);
+
+    @Test
+    void sha256_ShouldMatchFreshDigest() throws Exception {
+        // Act
+        byte[] pooled = CryptoPrimitives.sha256(DATA);
+
+        // Assert
+        assertArrayEquals(MessageDigest.getInstance("SHA-256").digest(DATA), pooled);
+        assertArrayEquals(pooled, CryptoPrimitives.sha256(DATA));
+    }
+
+    @Test
+    void hmacSha256_ShouldMatchFreshMacIncludingClonedInstances() throws Exception {
+        // Arrange
+        PrimitivePool<Mac> macs = CryptoPrimitives.hmacSha256(KEY);
+        Mac fresh = Mac.getInstance("HmacSHA256");
+        fresh.init(new SecretKeySpec(KEY, "HmacSHA256"));
+        byte[] expected = fresh.doFinal(DATA);
+
+        // Act
+        Mac first = macs.borrow();
+        Mac second = macs.borrow();
+
+        // Assert
+        assertArrayEquals(expected, first.doFinal(DATA));
+        assertArrayEquals(expected, second.doFinal(DATA));
+    }
+
+    @Test
+    void hmacSha256_ReleasedAfterPartialUpdate_ShouldStartClean() throws Exception {
+        // Arrange
+        PrimitivePool<Mac> macs = CryptoPrimitives.hmacSha256(KEY);
+        byte[] expected = macs.apply(mac -> mac.doFinal(DATA));
+        Mac mac = macs.borrow();
+        mac.update("garbage".getBytes(StandardCharsets.UTF_8));
+        macs.release(mac);
+
+        // Act
+        byte[] result = macs.apply(m -> m.doFinal(DATA));
+
+        // Assert
+        assertArrayEquals(expected, result);
+    }
+
+    @Test
+    void hmacSha256_UsedConcurrently_ShouldAlwaysProduceSameResult() throws Exception {
+        // Arrange
+        PrimitivePool<Mac> macs = CryptoPrimitives.hmacSha256(KEY);
+        byte[] expected = macs.apply(mac -> mac.doFinal(DATA));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // Act
+            List<Future<byte[]>> results = new ArrayList<>();
+            for (int i = 0; i < 2000; i++) {
+                results.add(executor.submit(() -> macs.apply(mac -> mac.doFinal(DATA))));
+            }
+
+            // Assert
+            for (Future<byte[]> result : results) {
+                assertArrayEquals(expected, result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
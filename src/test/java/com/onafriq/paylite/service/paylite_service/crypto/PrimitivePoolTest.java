@@ -0,0 +1,68 @@
+package com.onafriq.paylite.service.paylite_service.crypto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrimitivePoolTest {
+
+    @Test
+    void apply_ShouldReuseReleasedInstance() {
+        // Arrange
+        AtomicInteger created = new AtomicInteger();
+        PrimitivePool<StringBuilder> pool = new PrimitivePool<>(() -> {
+            created.incrementAndGet();
+            return new StringBuilder();
+        }, sb -> sb.setLength(0), 2);
+
+        // Act
+        String first = pool.apply(sb -> sb.append("a").toString());
+        String second = pool.apply(sb -> sb.append("b").toString());
+
+        // Assert
+        assertEquals("a", first);
+        assertEquals("b", second, "Instance should be reset before reuse");
+        assertEquals(1, created.get());
+    }
+
+    @Test
+    void apply_WhenWorkThrows_ShouldResetAndReturnInstance() {
+        // Arrange
+        PrimitivePool<StringBuilder> pool = new PrimitivePool<>(StringBuilder::new, sb -> sb.setLength(0), 2);
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> pool.apply(sb -> {
+            sb.append("partial");
+            throw new IllegalStateException("boom");
+        }));
+
+        // Assert
+        assertEquals(1, pool.idle());
+        assertEquals("", pool.borrow().toString());
+    }
+
+    @Test
+    void borrow_WhenEmpty_ShouldCreateAndReleaseShouldDropBeyondCapacity() {
+        // Arrange
+        AtomicInteger created = new AtomicInteger();
+        PrimitivePool<Object> pool = new PrimitivePool<>(() -> {
+            created.incrementAndGet();
+            return new Object();
+        }, o -> { }, 2);
+
+        // Act
+        List<Object> borrowed = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            borrowed.add(pool.borrow());
+        }
+        borrowed.forEach(pool::release);
+
+        // Assert
+        assertEquals(3, created.get());
+        assertEquals(2, pool.idle());
+    }
+}
@@ -0,0 +1,73 @@
+package com.onafriq.paylite.service.paylite_service.dto;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.Collections;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the batch item cap through Spring's own Jackson setup, which is what injects the limit.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class BatchPaymentItemsDeserializerTest {
+
+    private static final String ITEM =
+            "{\"idempotencyKey\":\"key-1\",\"payment\":{\"amount\":100,\"currency\":\"KES\"}}";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Value("${app.payments.batch.max-items:100}")
+    private int maxItems;
+
+    @Test
+    void createPayments_WithMoreItemsThanTheCap_ShouldBeRejectedWhileBinding() throws Exception {
+        // Arrange
+        String body = "{\"items\":[" + String.join(",", Collections.nCopies(maxItems + 1, ITEM)) + "]}";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/payments/batch")
+                        .header("X-API-Key", "default-api-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("A batch may contain at most " + maxItems + " payments"));
+    }
+
+    @Test
+    void createPayments_WithMalformedItemsPastTheCap_ShouldStopReadingAtTheCap() throws Exception {
+        // Arrange
+        String body = "{\"items\":[" + String.join(",", Collections.nCopies(maxItems, ITEM)) + ",{\"payment\":";
+
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/payments/batch")
+                        .header("X-API-Key", "default-api-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("A batch may contain at most " + maxItems + " payments"));
+    }
+
+    @Test
+    void createPayments_WithItemsNotAnArray_ShouldBeBadRequest() throws Exception {
+        // Act & Assert
+        mockMvc.perform(post("/api/v1/payments/batch")
+                        .header("X-API-Key", "default-api-key")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"items\":" + ITEM + "}"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Malformed request body"));
+    }
+}
@@ -0,0 +1,29 @@
+package com.onafriq.paylite.service.paylite_service.entity;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedIdGeneratorTest {
+
+    @Test
+    void generate_ShouldReturnIncreasingIds() {
+        // Arrange
+        TimeOrderedIdGenerator generator = new TimeOrderedIdGenerator(3, 5000);
+        long previous = (long) generator.generate(null, null, null, null);
+
+        for (int i = 0; i < 10_000; i++) {
+            // Act
+            long next = (long) generator.generate(null, null, null, null);
+
+            // Assert
+            assertTrue(next > previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void constructor_WithoutNodeId_ShouldFailFast() {
+        assertThrows(IllegalStateException.class, () -> new TimeOrderedIdGenerator(null, 5000));
+    }
+}
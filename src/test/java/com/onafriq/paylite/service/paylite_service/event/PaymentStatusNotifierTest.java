@@ -0,0 +1,84 @@
+package com.onafriq.paylite.service.paylite_service.event;
+
+import com.onafriq.paylite.service.paylite_service.exception.SubscriptionLimitExceededException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentStatusNotifierTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PaymentStatusNotifier notifier;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        notifier = new PaymentStatusNotifier(2, meterRegistry);
+    }
+
+    @Test
+    void onStatusChanged_ShouldNotifyWaitersOfThatPaymentOnce() {
+        AtomicInteger first = new AtomicInteger();
+        AtomicInteger other = new AtomicInteger();
+        notifier.subscribe("pl_1", first::incrementAndGet);
+        notifier.subscribe("pl_2", other::incrementAndGet);
+
+        notifier.onStatusChanged(new PaymentStatusChangedEvent("pl_1", "SUCCEEDED"));
+        notifier.onStatusChanged(new PaymentStatusChangedEvent("pl_1", "SUCCEEDED"));
+
+        assertEquals(1, first.get());
+        assertEquals(0, other.get());
+        assertEquals(1, notifier.waiterCount());
+        assertEquals(1.0, meterRegistry.get("paylite.payment.subscriptions.waiting").gauge().value());
+    }
+
+    @Test
+    void cancel_ShouldStopNotificationAndFreeSlot() {
+        AtomicInteger calls = new AtomicInteger();
+        PaymentStatusNotifier.Subscription subscription = notifier.subscribe("pl_1", calls::incrementAndGet);
+
+        subscription.cancel();
+        subscription.cancel();
+        notifier.onStatusChanged(new PaymentStatusChangedEvent("pl_1", "FAILED"));
+
+        assertEquals(0, calls.get());
+        assertEquals(0, notifier.waiterCount());
+    }
+
+    @Test
+    void cancel_AfterNotification_ShouldNotReleaseSlotTwice() {
+        PaymentStatusNotifier.Subscription subscription = notifier.subscribe("pl_1", () -> { });
+
+        notifier.onStatusChanged(new PaymentStatusChangedEvent("pl_1", "FAILED"));
+        subscription.cancel();
+
+        assertEquals(0, notifier.waiterCount());
+    }
+
+    @Test
+    void subscribe_BeyondMaxWaiters_ShouldThrowException() {
+        notifier.subscribe("pl_1", () -> { });
+        notifier.subscribe("pl_2", () -> { });
+
+        assertThrows(SubscriptionLimitExceededException.class, () -> notifier.subscribe("pl_3", () -> { }));
+        assertEquals(2, notifier.waiterCount());
+    }
+
+    @Test
+    void onStatusChanged_WhenWaiterThrows_ShouldStillNotifyOthers() {
+        AtomicInteger calls = new AtomicInteger();
+        notifier.subscribe("pl_1", () -> {
+            throw new IllegalStateException("client went away");
+        });
+        notifier.subscribe("pl_1", calls::incrementAndGet);
+
+        notifier.onStatusChanged(new PaymentStatusChangedEvent("pl_1", "SUCCEEDED"));
+
+        assertEquals(1, calls.get());
+        assertEquals(0, notifier.waiterCount());
+    }
+}
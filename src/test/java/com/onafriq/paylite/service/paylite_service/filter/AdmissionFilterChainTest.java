@@ -0,0 +1,77 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that the registered filters reject requests before Spring MVC touches the body:
+ * a malformed body with a bad key gets 401, not the 400 that binding it would produce.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class AdmissionFilterChainTest {
+
+    private static final String MALFORMED_JSON = "{\"amount\":";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void createPayment_WithBadKeyAndMalformedBody_ShouldBeRejectedByFilter() throws Exception {
+        mockMvc.perform(post("/api/v1/payments")
+                        .header("X-API-Key", "wrong-key")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(MALFORMED_JSON))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("Unauthorized"));
+    }
+
+    @Test
+    void getPayment_WithoutKey_ShouldBeRejectedByFilter() throws Exception {
+        mockMvc.perform(get("/api/v1/payments/pl_missing"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void createPayment_WithValidKeyAndMalformedBody_ShouldReachBinding() throws Exception {
+        mockMvc.perform(post("/api/v1/payments")
+                        .header("X-API-Key", "default-api-key")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(MALFORMED_JSON))
+                .andExpect(status().is(not(401)));
+    }
+
+    @Test
+    void getPayment_WithValidKey_ShouldCarryRateLimitHeaders() throws Exception {
+        mockMvc.perform(get("/api/v1/payments/pl_missing")
+                        .header("X-API-Key", "default-api-key"))
+                .andExpect(header().string("X-RateLimit-Limit", "30"))
+                .andExpect(header().exists("X-RateLimit-Remaining"))
+                .andExpect(header().exists("X-RateLimit-Reset"))
+                .andExpect(header().doesNotExist("Retry-After"));
+    }
+
+    @Test
+    void webhook_WithoutSignature_ShouldBeRejectedByFilter() throws Exception {
+        mockMvc.perform(post("/api/v1/webhooks/psp/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(MALFORMED_JSON))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.message").value("Invalid webhook signature"));
+    }
+}
@@ -0,0 +1,84 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.security.ApiKeyDetails;
+import com.onafriq.paylite.service.paylite_service.service.SecurityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ApiKeyAuthFilterTest {
+
+    @Mock
+    private SecurityService securityService;
+
+    private ApiKeyAuthFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private MockFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new ApiKeyAuthFilter(securityService, new ObjectMapper().findAndRegisterModules());
+        request = new MockHttpServletRequest("POST", "/api/v1/payments");
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+    }
+
+    @Test
+    void doFilter_WithValidKey_ShouldContinueWithKeyDetails() throws Exception {
+        // Arrange
+        ApiKeyDetails details = new ApiKeyDetails("merchant-1", "gold");
+        request.addHeader("X-API-Key", "valid-key");
+        when(securityService.authenticate("valid-key")).thenReturn(Optional.of(details));
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+        assertEquals(details, request.getAttribute(ApiKeyAuthFilter.API_KEY_DETAILS_ATTRIBUTE));
+    }
+
+    @Test
+    void doFilter_WithInvalidKey_ShouldRejectWithoutCallingChain() throws Exception {
+        // Arrange
+        request.addHeader("X-API-Key", "bad-key");
+        request.setContent("{\"amount\":".getBytes());
+        when(securityService.authenticate("bad-key")).thenReturn(Optional.empty());
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(401, response.getStatus());
+        assertEquals("application/json", response.getContentType());
+        assertTrue(response.getContentAsString().contains("\"message\":\"Unauthorized access. Please check your credentials.\""));
+        assertTrue(response.getContentAsString().contains("\"status\":401"));
+    }
+
+    @Test
+    void doFilter_WithMissingKey_ShouldReject() throws Exception {
+        // Arrange
+        when(securityService.authenticate(null)).thenReturn(Optional.empty());
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(401, response.getStatus());
+    }
+}
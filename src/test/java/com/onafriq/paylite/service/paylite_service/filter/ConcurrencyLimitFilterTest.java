@@ -0,0 +1,167 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.cache.PaymentCache;
+import com.onafriq.paylite.service.paylite_service.concurrency.AdaptiveConcurrencyLimiter;
+import com.onafriq.paylite.service.paylite_service.concurrency.RequestPriority;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ConcurrencyLimitFilterTest {
+
+    @Mock
+    private AdaptiveConcurrencyLimiter limiter;
+
+    @Mock
+    private PaymentCache paymentCache;
+
+    private ConcurrencyLimitFilter paymentFilter;
+    private ConcurrencyLimitFilter webhookFilter;
+    private MockHttpServletResponse response;
+    private MockFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        paymentFilter = ConcurrencyLimitFilter.forPayments(limiter, paymentCache, objectMapper);
+        webhookFilter = ConcurrencyLimitFilter.forWebhooks(limiter, objectMapper);
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+    }
+
+    @Test
+    void doFilter_WhenAdmitted_ShouldContinueAndReleaseWithLatency() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/payments");
+        when(limiter.tryAcquire(RequestPriority.NORMAL)).thenReturn(true);
+
+        // Act
+        paymentFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+        verify(limiter).release(anyLong());
+        verify(limiter, never()).release();
+    }
+
+    @Test
+    void doFilter_WhenShed_ShouldRejectWith503WithoutRunningHandler() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/payments");
+        when(limiter.tryAcquire(RequestPriority.NORMAL)).thenReturn(false);
+
+        // Act
+        paymentFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(503, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+        assertTrue(response.getContentAsString().contains("\"error\":\"overloaded\""));
+        verify(limiter, never()).release(anyLong());
+        verify(limiter, never()).release();
+    }
+
+    @Test
+    void doFilter_WhenHandlerThrows_ShouldStillRelease() {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/payments");
+        when(limiter.tryAcquire(RequestPriority.NORMAL)).thenReturn(true);
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> paymentFilter.doFilter(request, response, (req, res) -> {
+            throw new IllegalStateException("boom");
+        }));
+
+        // Assert
+        verify(limiter).release(anyLong());
+    }
+
+    @Test
+    void doFilter_WhenRequestGoesAsync_ShouldReleaseWithoutSample() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/payments/pl_1/await");
+        request.setAsyncSupported(true);
+        when(limiter.tryAcquire(RequestPriority.NORMAL)).thenReturn(true);
+
+        // Act
+        paymentFilter.doFilter(request, response, (req, res) -> req.startAsync());
+
+        // Assert
+        verify(limiter).release();
+        verify(limiter, never()).release(anyLong());
+    }
+
+    @Test
+    void doFilter_WithBatchCreate_ShouldUseBulkPriority() throws Exception {
+        when(limiter.tryAcquire(RequestPriority.BULK)).thenReturn(false);
+
+        paymentFilter.doFilter(new MockHttpServletRequest("POST", "/api/v1/payments/batch"), response, chain);
+
+        assertEquals(503, response.getStatus());
+    }
+
+    @Test
+    void doFilter_WithReadOfSettledPayment_ShouldUseCriticalPriority() throws Exception {
+        // Arrange
+        when(paymentCache.getIfPresent("pl_1")).thenReturn(payment("SUCCEEDED"));
+        when(limiter.tryAcquire(RequestPriority.CRITICAL)).thenReturn(true);
+
+        // Act
+        paymentFilter.doFilter(new MockHttpServletRequest("GET", "/api/v1/payments/pl_1"), response, chain);
+
+        // Assert
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_WithAwaitOfSettledPayment_ShouldUseCriticalPriority() throws Exception {
+        when(paymentCache.getIfPresent("pl_1")).thenReturn(payment("FAILED"));
+        when(limiter.tryAcquire(RequestPriority.CRITICAL)).thenReturn(true);
+
+        paymentFilter.doFilter(new MockHttpServletRequest("GET", "/api/v1/payments/pl_1/await"), response, chain);
+
+        assertNotNull(chain.getRequest());
+    }
+
+    @Test
+    void doFilter_WithReadOfPendingOrUncachedPayment_ShouldUseNormalPriority() throws Exception {
+        // Arrange
+        when(paymentCache.getIfPresent("pl_1")).thenReturn(payment("PENDING"));
+        when(limiter.tryAcquire(RequestPriority.NORMAL)).thenReturn(true);
+
+        // Act
+        paymentFilter.doFilter(new MockHttpServletRequest("GET", "/api/v1/payments/pl_1"), response, chain);
+        paymentFilter.doFilter(new MockHttpServletRequest("GET", "/api/v1/payments/pl_2"), new MockHttpServletResponse(),
+                new MockFilterChain());
+
+        // Assert
+        verify(limiter, times(2)).tryAcquire(RequestPriority.NORMAL);
+    }
+
+    @Test
+    void doFilter_WithWebhook_ShouldUseCriticalPriority() throws Exception {
+        when(limiter.tryAcquire(RequestPriority.CRITICAL)).thenReturn(true);
+
+        webhookFilter.doFilter(new MockHttpServletRequest("POST", "/api/v1/webhooks/psp"), response, chain);
+
+        assertNotNull(chain.getRequest());
+        verifyNoInteractions(paymentCache);
+    }
+
+    private static PaymentResponse payment(String status) {
+        return PaymentResponse.builder().paymentId("pl_1").status(status).build();
+    }
+}
@@ -0,0 +1,130 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitDecision;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitRoute;
+import com.onafriq.paylite.service.paylite_service.security.ApiKeyDetails;
+import com.onafriq.paylite.service.paylite_service.service.RateLimiterService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RateLimitFilterTest {
+
+    @Mock
+    private RateLimiterService rateLimiter;
+
+    private RateLimitFilter paymentFilter;
+    private RateLimitFilter webhookFilter;
+    private MockHttpServletResponse response;
+    private MockFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        paymentFilter = RateLimitFilter.forPayments(rateLimiter, objectMapper);
+        webhookFilter = RateLimitFilter.forWebhooks(rateLimiter, objectMapper);
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+    }
+
+    @Test
+    void doFilter_WithPostUnderLimit_ShouldContinue() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = paymentRequest("POST", "/api/v1/payments");
+        when(rateLimiter.tryAcquire(RateLimitRoute.CREATE, "merchant-1", "premium"))
+                .thenReturn(new RateLimitDecision(true, 100, 99, TimeUnit.MILLISECONDS.toNanos(100), 0));
+
+        // Act
+        paymentFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+        assertEquals("100", response.getHeader("X-RateLimit-Limit"));
+        assertEquals("99", response.getHeader("X-RateLimit-Remaining"));
+        long reset = Long.parseLong(response.getHeader("X-RateLimit-Reset"));
+        assertEquals(Instant.now().getEpochSecond() + 1, reset, 1);
+        assertNull(response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void doFilter_WithPostOverLimit_ShouldRejectWith429() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = paymentRequest("POST", "/api/v1/payments/batch");
+        when(rateLimiter.tryAcquire(RateLimitRoute.CREATE, "merchant-1", "premium"))
+                .thenReturn(new RateLimitDecision(false, 5, 0, TimeUnit.SECONDS.toNanos(60), TimeUnit.MILLISECONDS.toNanos(11_500)));
+
+        // Act
+        paymentFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(429, response.getStatus());
+        assertTrue(response.getContentAsString().contains("\"error\":\"rate_limit_exceeded\""));
+        assertEquals("5", response.getHeader("X-RateLimit-Limit"));
+        assertEquals("0", response.getHeader("X-RateLimit-Remaining"));
+        assertEquals("12", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void doFilter_WithGet_ShouldUseReadLimit() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = paymentRequest("GET", "/api/v1/payments/pl_123");
+        when(rateLimiter.tryAcquire(RateLimitRoute.READ, "merchant-1", "premium"))
+                .thenReturn(new RateLimitDecision(true, 30, 29, 0, 0));
+
+        // Act
+        paymentFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+    }
+
+    @Test
+    void doFilter_WithWebhook_ShouldLimitByRemoteAddressUnderDefaultTier() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/v1/webhooks/psp");
+        when(rateLimiter.tryAcquire(RateLimitRoute.WEBHOOK, "127.0.0.1", null))
+                .thenReturn(new RateLimitDecision(false, 100, 0, TimeUnit.SECONDS.toNanos(10), 0));
+
+        // Act
+        webhookFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(429, response.getStatus());
+        assertEquals("1", response.getHeader("Retry-After"));
+    }
+
+    @Test
+    void doFilter_WithOtherMethod_ShouldNotBeRateLimited() throws Exception {
+        // Arrange
+        MockHttpServletRequest request = paymentRequest("DELETE", "/api/v1/payments/pl_123");
+
+        // Act
+        paymentFilter.doFilter(request, response, chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+        assertNull(response.getHeader("X-RateLimit-Limit"));
+        verifyNoInteractions(rateLimiter);
+    }
+
+    private static MockHttpServletRequest paymentRequest(String method, String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        request.setAttribute(ApiKeyAuthFilter.API_KEY_DETAILS_ATTRIBUTE, new ApiKeyDetails("merchant-1", "premium"));
+        return request;
+    }
+}
@@ -0,0 +1,62 @@
+package com.onafriq.paylite.service.paylite_service.filter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.service.SecurityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookSignatureFilterTest {
+
+    @Mock
+    private SecurityService securityService;
+
+    private WebhookSignatureFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletResponse response;
+    private MockFilterChain chain;
+
+    @BeforeEach
+    void setUp() {
+        filter = new WebhookSignatureFilter(securityService, new ObjectMapper().findAndRegisterModules());
+        request = new MockHttpServletRequest("POST", "/api/v1/webhooks/psp");
+        response = new MockHttpServletResponse();
+        chain = new MockFilterChain();
+    }
+
+    @Test
+    void doFilter_WithWellFormedSignature_ShouldContinue() throws Exception {
+        // Arrange
+        request.addHeader("X-PSP-Signature", "c2lnbmF0dXJl");
+        when(securityService.isWellFormedWebhookSignature("c2lnbmF0dXJl")).thenReturn(true);
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        assertSame(request, chain.getRequest());
+    }
+
+    @Test
+    void doFilter_WithMissingSignature_ShouldRejectWithoutCallingChain() throws Exception {
+        // Arrange
+        when(securityService.isWellFormedWebhookSignature(null)).thenReturn(false);
+
+        // Act
+        filter.doFilter(request, response, chain);
+
+        // Assert
+        assertNull(chain.getRequest());
+        assertEquals(401, response.getStatus());
+        assertTrue(response.getContentAsString().contains("\"message\":\"Invalid webhook signature\""));
+    }
+}
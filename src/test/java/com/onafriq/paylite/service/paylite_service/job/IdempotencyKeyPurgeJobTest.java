@@ -0,0 +1,110 @@
+package com.onafriq.paylite.service.paylite_service.job;
+
+import com.onafriq.paylite.service.paylite_service.repository.IdempotencyKeyRepository;
+import com.onafriq.paylite.service.paylite_service.repository.IdempotencyKeyRepository.ExpiredKey;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyKeyPurgeJobTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-15T12:00:00Z");
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2025, 6, 8, 12, 0);
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IdempotencyKeyPurgeJob purgeJob;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        purgeJob = new IdempotencyKeyPurgeJob(idempotencyKeyRepository, new TransactionTemplate(transactionManager),
+                meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofDays(7), 2, 10);
+    }
+
+    @Test
+    void purgeExpiredKeys_WithNoExpiredKeys_ShouldDeleteNothing() {
+        when(idempotencyKeyRepository.findExpiredKeys(eq(CUTOFF), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        purgeJob.purgeExpiredKeys();
+
+        verify(idempotencyKeyRepository, never()).deleteByIdIn(any());
+        assertEquals(0.0, meterRegistry.get("paylite.idempotency.purge.rows").counter().count());
+        assertEquals(1, meterRegistry.get("paylite.idempotency.purge.rows.per.run").summary().count());
+    }
+
+    @Test
+    void purgeExpiredKeys_ShouldDeleteInBatchesAdvancingKeysetCursor() {
+        LocalDateTime t1 = CUTOFF.minusDays(3);
+        LocalDateTime t2 = CUTOFF.minusDays(2);
+        when(idempotencyKeyRepository.findExpiredKeys(eq(CUTOFF), any(), anyLong(), any(Pageable.class)))
+                .thenReturn(List.of(expiredKey(1L, t1), expiredKey(2L, t1)))
+                .thenReturn(List.of(expiredKey(5L, t2)));
+        when(idempotencyKeyRepository.deleteByIdIn(anyCollection()))
+                .thenReturn(2)
+                .thenReturn(1);
+
+        purgeJob.purgeExpiredKeys();
+
+        verify(idempotencyKeyRepository).deleteByIdIn(List.of(1L, 2L));
+        verify(idempotencyKeyRepository).deleteByIdIn(List.of(5L));
+        verify(idempotencyKeyRepository).findExpiredKeys(eq(CUTOFF), eq(t1), eq(2L), any(Pageable.class));
+        // Second batch was smaller than the batch size, so no further page is requested
+        verify(idempotencyKeyRepository, times(2)).findExpiredKeys(any(), any(), anyLong(), any(Pageable.class));
+        verify(transactionManager, times(2)).commit(any());
+        assertEquals(3.0, meterRegistry.get("paylite.idempotency.purge.rows").counter().count());
+        assertEquals(3.0, meterRegistry.get("paylite.idempotency.purge.rows.per.run").summary().totalAmount());
+    }
+
+    @Test
+    void purgeExpiredKeys_ShouldStopAfterMaxBatchesPerRun() {
+        purgeJob = new IdempotencyKeyPurgeJob(idempotencyKeyRepository, new TransactionTemplate(transactionManager),
+                meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofDays(7), 1, 3);
+        when(idempotencyKeyRepository.findExpiredKeys(eq(CUTOFF), any(), anyLong(), any(Pageable.class)))
+                .thenAnswer(invocation -> List.of(expiredKey(invocation.<Long>getArgument(2) + 1, CUTOFF.minusDays(1))));
+        when(idempotencyKeyRepository.deleteByIdIn(anyCollection())).thenReturn(1);
+
+        purgeJob.purgeExpiredKeys();
+
+        verify(idempotencyKeyRepository, times(3)).deleteByIdIn(anyCollection());
+        assertEquals(3.0, meterRegistry.get("paylite.idempotency.purge.rows").counter().count());
+    }
+
+    private static ExpiredKey expiredKey(Long id, LocalDateTime createdAt) {
+        return new ExpiredKey() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+}
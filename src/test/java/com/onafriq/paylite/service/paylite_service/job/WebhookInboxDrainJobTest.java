@@ -0,0 +1,142 @@
+package com.onafriq.paylite.service.paylite_service.job;
+
+import com.onafriq.paylite.service.paylite_service.service.WebhookInboxService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookInboxDrainJobTest {
+
+    @Mock
+    private WebhookInboxService webhookInboxService;
+
+    private QueuedExecutor executor;
+    private WebhookInboxDrainJob drainJob;
+
+    @BeforeEach
+    void setUp() {
+        executor = new QueuedExecutor();
+        drainJob = new WebhookInboxDrainJob(webhookInboxService, executor, 2);
+    }
+
+    @Test
+    void drain_ShouldClaimAndProcessDueEntries() {
+        // Arrange
+        when(webhookInboxService.findDueIds(2)).thenReturn(List.of(1L, 2L));
+        when(webhookInboxService.claim(anyLong())).thenReturn(true);
+
+        // Act
+        drainJob.drain();
+        executor.runAll();
+
+        // Assert
+        verify(webhookInboxService).refreshBacklog();
+        verify(webhookInboxService).process(1L);
+        verify(webhookInboxService).process(2L);
+    }
+
+    @Test
+    void drain_ShouldSkipEntriesClaimedElsewhere() {
+        // Arrange
+        when(webhookInboxService.findDueIds(2)).thenReturn(List.of(1L, 2L));
+        when(webhookInboxService.claim(1L)).thenReturn(false);
+        when(webhookInboxService.claim(2L)).thenReturn(true);
+
+        // Act
+        drainJob.drain();
+        executor.runAll();
+
+        // Assert
+        verify(webhookInboxService, never()).process(1L);
+        verify(webhookInboxService).process(2L);
+    }
+
+    @Test
+    void drain_WhenAllWorkersBusy_ShouldNotFetchMore() {
+        // Arrange
+        when(webhookInboxService.findDueIds(2)).thenReturn(List.of(1L, 2L));
+        when(webhookInboxService.claim(anyLong())).thenReturn(true);
+        drainJob.drain();
+
+        // Act - previous entries are still being processed
+        drainJob.drain();
+
+        // Assert
+        verify(webhookInboxService, times(1)).findDueIds(anyInt());
+        assertEquals(2, executor.tasks.size());
+
+        executor.runAll();
+        when(webhookInboxService.findDueIds(2)).thenReturn(List.of());
+        drainJob.drain();
+        verify(webhookInboxService, times(2)).findDueIds(2);
+    }
+
+    @Test
+    void drain_WhenProcessingThrows_ShouldFreeWorker() {
+        // Arrange
+        when(webhookInboxService.findDueIds(2)).thenReturn(List.of(1L));
+        when(webhookInboxService.claim(1L)).thenReturn(true);
+        doThrow(new IllegalStateException("boom")).when(webhookInboxService).process(1L);
+
+        // Act
+        drainJob.drain();
+        executor.runAll();
+        drainJob.drain();
+
+        // Assert
+        verify(webhookInboxService, times(2)).findDueIds(2);
+    }
+
+    /**
+     * Holds submitted tasks until the test runs them, to observe the worker bound.
+     */
+    private static class QueuedExecutor extends AbstractExecutorService {
+        private final List<Runnable> tasks = new ArrayList<>();
+
+        void runAll() {
+            List<Runnable> pending = new ArrayList<>(tasks);
+            tasks.clear();
+            pending.forEach(Runnable::run);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return List.of();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+}
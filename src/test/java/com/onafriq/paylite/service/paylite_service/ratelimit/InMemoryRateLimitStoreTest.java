@@ -0,0 +1,100 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InMemoryRateLimitStoreTest {
+
+    private static final RateLimit LIMIT = new RateLimit(5, Duration.ofMinutes(1), 5);
+    private static final String CLIENT_ID = "client-123";
+    private static final String CLIENT_ID_2 = "client-456";
+
+    private final AtomicLong clock = new AtomicLong(System.nanoTime());
+    private InMemoryRateLimitStore store;
+
+    @BeforeEach
+    void setUp() {
+        store = new InMemoryRateLimitStore(clock::get);
+    }
+
+    @Test
+    void evictIdle_ShouldRemoveOnlyRefilledBuckets() {
+        // Arrange
+        store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+        clock.addAndGet(LIMIT.emissionIntervalNanos());
+        store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID_2, LIMIT);
+
+        // Act
+        store.evictIdle();
+
+        // Assert
+        assertEquals(1, store.size());
+        assertEquals(LIMIT.burst() - 1, store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT).remaining());
+        assertEquals(LIMIT.burst() - 2, store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID_2, LIMIT).remaining());
+    }
+
+    @Test
+    void evictIdle_ShouldNotResetActiveClient() {
+        // Arrange
+        for (int i = 0; i < LIMIT.burst(); i++) {
+            store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+        }
+
+        // Act
+        store.evictIdle();
+        boolean result = store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT).allowed();
+
+        // Assert
+        assertEquals(1, store.size());
+        assertFalse(result);
+    }
+
+    @Test
+    void tryAcquire_AfterEviction_ShouldStartWithFullAllowance() {
+        // Arrange
+        for (int i = 0; i < LIMIT.burst(); i++) {
+            store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+        }
+        clock.addAndGet(LIMIT.period().toNanos());
+        store.evictIdle();
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < LIMIT.burst() + 1; i++) {
+            if (store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT).allowed()) {
+                allowed++;
+            }
+        }
+
+        // Assert
+        assertEquals(1, store.size());
+        assertEquals(LIMIT.burst(), allowed);
+    }
+
+    @Test
+    void tryAcquire_ShouldReportRemainingAllowanceAndWait() {
+        // Act
+        RateLimitDecision first = store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+        for (int i = 1; i < LIMIT.burst(); i++) {
+            store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+        }
+        RateLimitDecision refused = store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+
+        // Assert
+        assertTrue(first.allowed());
+        assertEquals(LIMIT.burst(), first.limit());
+        assertEquals(LIMIT.burst() - 1, first.remaining());
+        assertEquals(LIMIT.emissionIntervalNanos(), first.nanosUntilFull());
+        assertEquals(0, first.nanosUntilNextRequest());
+
+        assertFalse(refused.allowed());
+        assertEquals(0, refused.remaining());
+        assertEquals(60, refused.resetAfterSeconds());
+        assertEquals(12, refused.retryAfterSeconds());
+    }
+}
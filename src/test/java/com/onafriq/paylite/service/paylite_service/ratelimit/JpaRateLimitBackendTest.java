@@ -0,0 +1,129 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import com.onafriq.paylite.service.paylite_service.repository.RateLimitBucketRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DeadlockLoserDataAccessException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "app.rate-limit.store=shared")
+@ActiveProfiles("test")
+class JpaRateLimitBackendTest {
+
+    // Slow enough that nothing refills while a test runs
+    private static final RateLimit LIMIT = new RateLimit(100, Duration.ofHours(1), 100);
+
+    @Autowired
+    private SharedRateLimitBackend backend;
+
+    @Autowired
+    private RateLimitStore store;
+
+    @Autowired
+    private RateLimitBucketRepository repository;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAll();
+    }
+
+    @Test
+    void context_WithSharedStore_ShouldUseLeasingStore() {
+        // Assert
+        assertInstanceOf(LeasingRateLimitStore.class, store);
+        assertInstanceOf(JpaRateLimitBackend.class, backend);
+    }
+
+    @Test
+    void reserve_ShouldGrantUpToBurstThenRefuse() {
+        // Act
+        SharedRateLimitBackend.Reservation first = backend.reserve("CREATE:merchant-1", 60, LIMIT);
+        SharedRateLimitBackend.Reservation second = backend.reserve("CREATE:merchant-1", 60, LIMIT);
+        SharedRateLimitBackend.Reservation third = backend.reserve("CREATE:merchant-1", 60, LIMIT);
+
+        // Assert
+        assertEquals(60, first.granted());
+        assertEquals(40, second.granted());
+        assertEquals(0, third.granted());
+        assertTrue(third.nanosUntilFull() > Duration.ofMinutes(59).toNanos());
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void reserve_FromConcurrentNodes_ShouldNeverGrantMoreThanBurst() throws Exception {
+        // Arrange
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        Callable<Integer> node = () -> {
+            start.await();
+            int granted = 0;
+            for (int i = 0; i < 10; i++) {
+                granted += backend.reserve("CREATE:merchant-2", 5, LIMIT).granted();
+            }
+            return granted;
+        };
+
+        // Act
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(node));
+        }
+        start.countDown();
+        int total = 0;
+        for (Future<Integer> result : results) {
+            total += result.get();
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(LIMIT.burst(), total);
+    }
+
+    @Test
+    void reserve_WhenFirstLockOnMissingRowDeadlocks_ShouldRetry() {
+        // Arrange: two nodes locking the same missing row on MySQL deadlock on their gap locks
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        SharedRateLimitBackend.Reservation reservation = new SharedRateLimitBackend.Reservation(5, 0);
+        when(transactionTemplate.execute(any()))
+                .thenThrow(new DeadlockLoserDataAccessException("Deadlock found when trying to get lock", null))
+                .thenReturn(reservation);
+        JpaRateLimitBackend retrying = new JpaRateLimitBackend(repository, transactionTemplate, Clock.systemUTC());
+
+        // Act
+        SharedRateLimitBackend.Reservation result = retrying.reserve("CREATE:merchant-4", 5, LIMIT);
+
+        // Assert
+        assertSame(reservation, result);
+        verify(transactionTemplate, times(2)).execute(any());
+    }
+
+    @Test
+    void purgeRefilled_ShouldKeepBucketsStillRefilling() {
+        // Arrange
+        backend.reserve("READ:merchant-3", 1, LIMIT);
+
+        // Act
+        backend.purgeRefilled();
+
+        // Assert
+        assertEquals(1, repository.count());
+    }
+}
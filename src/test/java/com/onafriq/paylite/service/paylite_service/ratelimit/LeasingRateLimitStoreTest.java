@@ -0,0 +1,213 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LeasingRateLimitStoreTest {
+
+    private static final RateLimit LIMIT = new RateLimit(600, Duration.ofMinutes(1), 100);
+    private static final Duration LEASE_TTL = Duration.ofSeconds(1);
+    private static final int MIN_LEASE_SIZE = 3;
+    private static final String CLIENT_ID = "merchant-1";
+
+    private final AtomicLong clock = new AtomicLong(System.nanoTime());
+    private LocalBackend backend;
+
+    @BeforeEach
+    void setUp() {
+        backend = new LocalBackend(clock);
+    }
+
+    @Test
+    void tryAcquire_ShouldLeaseRequestsInBlocks() {
+        // Arrange
+        LeasingRateLimitStore store = node(10);
+
+        // Act
+        for (int i = 0; i < 50; i++) {
+            assertTrue(store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT).allowed());
+        }
+
+        // Assert
+        assertEquals(5, backend.reservations);
+    }
+
+    @Test
+    void tryAcquire_AcrossNodes_ShouldNeverExceedSharedBurst() {
+        // Arrange
+        LeasingRateLimitStore nodeA = node(10);
+        LeasingRateLimitStore nodeB = node(10);
+        LeasingRateLimitStore nodeC = node(10);
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < 100; i++) {
+            for (LeasingRateLimitStore node : new LeasingRateLimitStore[]{nodeA, nodeB, nodeC}) {
+                if (node.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT).allowed()) {
+                    allowed++;
+                }
+            }
+        }
+
+        // Assert
+        assertEquals(LIMIT.burst(), allowed);
+    }
+
+    @Test
+    void tryAcquire_WithSmallBurstAcrossNodes_ShouldNeverExceedSharedBurst() {
+        // Arrange
+        RateLimit small = new RateLimit(5, Duration.ofMinutes(1), 5);
+        LeasingRateLimitStore nodeA = node(10);
+        LeasingRateLimitStore nodeB = node(10);
+
+        // Act
+        int allowed = 0;
+        for (int i = 0; i < 5; i++) {
+            allowed += nodeA.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, small).allowed() ? 1 : 0;
+            allowed += nodeB.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, small).allowed() ? 1 : 0;
+        }
+
+        // Assert
+        assertEquals(5, allowed);
+    }
+
+    @Test
+    void tryAcquire_WithDefaultCreateTier_ShouldTakeFewerReservationsThanRequests() {
+        // Arrange: the standard create tier, 5 requests per minute with a burst of 5
+        RateLimit create = new RateLimit(5, Duration.ofMinutes(1), 5);
+        LeasingRateLimitStore store = node(10);
+
+        // Act
+        for (int i = 0; i < create.burst(); i++) {
+            assertTrue(store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, create).allowed());
+        }
+
+        // Assert: a lease of 3, then the 2 left in the burst
+        assertEquals(2, backend.reservations);
+    }
+
+    @Test
+    void tryAcquire_WhenRefused_ShouldNotAskBackendAgainUntilNextRequestFits() {
+        // Arrange
+        RateLimit small = new RateLimit(5, Duration.ofMinutes(1), 5);
+        LeasingRateLimitStore store = node(10);
+        for (int i = 0; i < 5; i++) {
+            store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, small);
+        }
+        assertFalse(store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, small).allowed());
+        int reservations = backend.reservations;
+
+        // Act
+        RateLimitDecision refused = store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, small);
+
+        // Assert
+        assertFalse(refused.allowed());
+        assertEquals(12, refused.retryAfterSeconds());
+        assertEquals(reservations, backend.reservations);
+    }
+
+    @Test
+    void tryAcquire_ShouldCountLeasedRequestsAsRemaining() {
+        // Arrange
+        LeasingRateLimitStore store = node(10);
+
+        // Act
+        RateLimitDecision first = store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+        RateLimitDecision second = store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+
+        // Assert
+        assertEquals(LIMIT.burst(), first.limit());
+        assertEquals(LIMIT.burst() - 1, first.remaining());
+        assertEquals(LIMIT.burst() - 2, second.remaining());
+    }
+
+    @Test
+    void tryAcquire_AfterLeaseExpires_ShouldReserveAgain() {
+        // Arrange
+        LeasingRateLimitStore store = node(10);
+        store.tryAcquire(RateLimitRoute.READ, CLIENT_ID, LIMIT);
+
+        // Act
+        clock.addAndGet(LEASE_TTL.toNanos());
+        store.tryAcquire(RateLimitRoute.READ, CLIENT_ID, LIMIT);
+
+        // Assert
+        assertEquals(2, backend.reservations);
+    }
+
+    @Test
+    void tryAcquire_WhenBackendFails_ShouldAllow() {
+        // Arrange
+        backend.failing = true;
+        LeasingRateLimitStore store = node(10);
+
+        // Act
+        boolean result = store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT).allowed();
+
+        // Assert
+        assertTrue(result);
+    }
+
+    @Test
+    void evictIdle_ShouldDropExpiredLeases() {
+        // Arrange
+        LeasingRateLimitStore store = node(10);
+        store.tryAcquire(RateLimitRoute.CREATE, CLIENT_ID, LIMIT);
+        store.tryAcquire(RateLimitRoute.WEBHOOK, "10.0.0.1", LIMIT);
+
+        // Act
+        clock.addAndGet(LIMIT.period().toNanos());
+        store.evictIdle();
+
+        // Assert
+        assertEquals(0, store.size());
+        assertEquals(1, backend.purges);
+    }
+
+    private LeasingRateLimitStore node(int leaseSize) {
+        return new LeasingRateLimitStore(backend, MIN_LEASE_SIZE, leaseSize, LEASE_TTL, clock::get);
+    }
+
+    /**
+     * Stand-in for the shared table: one GCRA schedule per bucket key, updated under a lock.
+     */
+    private static final class LocalBackend implements SharedRateLimitBackend {
+        private final AtomicLong clock;
+        private final Map<String, Long> buckets = new HashMap<>();
+        int reservations;
+        int purges;
+        boolean failing;
+
+        LocalBackend(AtomicLong clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public synchronized Reservation reserve(String bucketKey, int requests, RateLimit limit) {
+            if (failing) {
+                throw new QueryTimeoutException("database unavailable");
+            }
+            reservations++;
+            long now = clock.get();
+            long tat = Math.max(buckets.getOrDefault(bucketKey, now), now);
+            long headroom = limit.burstNanos() - (tat - now);
+            int granted = (int) Math.min(requests, Math.max(headroom / limit.emissionIntervalNanos(), 0));
+            tat += granted * limit.emissionIntervalNanos();
+            buckets.put(bucketKey, tat);
+            return new Reservation(granted, tat - now);
+        }
+
+        @Override
+        public synchronized void purgeRefilled() {
+            purges++;
+        }
+    }
+}
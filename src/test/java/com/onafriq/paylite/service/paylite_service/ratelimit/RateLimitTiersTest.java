@@ -0,0 +1,143 @@
+package com.onafriq.paylite.service.paylite_service.ratelimit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitTiersTest {
+
+    private static final RateLimit STANDARD = new RateLimit(5, Duration.ofMinutes(1), 5);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void constructor_WithEnvironment_ShouldBindTiersFromProperties() {
+        // Arrange
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("app.rate-limit.tiers.standard.create.requests", "5")
+                .withProperty("app.rate-limit.tiers.standard.create.period", "PT1M")
+                .withProperty("app.rate-limit.tiers.standard.create.burst", "5")
+                .withProperty("app.rate-limit.tiers.standard.read.requests", "120")
+                .withProperty("app.rate-limit.tiers.standard.read.period", "1m")
+                .withProperty("app.rate-limit.tiers.standard.read.burst", "30")
+                .withProperty("app.rate-limit.tiers.standard.webhook.requests", "10")
+                .withProperty("app.rate-limit.tiers.standard.webhook.period", "PT1S")
+                .withProperty("app.rate-limit.tiers.standard.webhook.burst", "20")
+                .withProperty("app.rate-limit.tiers.premium.create.requests", "600")
+                .withProperty("app.rate-limit.tiers.premium.create.period", "PT1M")
+                .withProperty("app.rate-limit.tiers.premium.create.burst", "100");
+
+        // Act
+        RateLimitTiers tiers = new RateLimitTiers(environment, "standard", "");
+
+        // Assert
+        assertEquals(new RateLimit(600, Duration.ofMinutes(1), 100), tiers.limitFor("premium", RateLimitRoute.CREATE));
+        assertEquals(new RateLimit(120, Duration.ofMinutes(1), 30), tiers.limitFor("premium", RateLimitRoute.READ));
+        assertEquals(new RateLimit(10, Duration.ofSeconds(1), 20), tiers.limitFor(null, RateLimitRoute.WEBHOOK));
+    }
+
+    @Test
+    void limitFor_WithUnknownTier_ShouldUseDefaultTier() {
+        // Arrange
+        RateLimitTiers tiers = new RateLimitTiers(Map.of("standard", allRoutes(STANDARD)), "standard", null);
+
+        // Act & Assert
+        assertEquals(STANDARD, tiers.limitFor("gold", RateLimitRoute.CREATE));
+        assertEquals(STANDARD, tiers.limitFor(null, RateLimitRoute.READ));
+    }
+
+    @Test
+    void constructor_WithIncompleteDefaultTier_ShouldFail() {
+        // Arrange
+        Map<String, Map<RateLimitRoute, RateLimit>> configured =
+                Map.of("standard", Map.of(RateLimitRoute.CREATE, STANDARD));
+
+        // Act & Assert
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> new RateLimitTiers(configured, "standard", null));
+        assertTrue(exception.getMessage().contains("'standard'"));
+    }
+
+    @Test
+    void constructor_WithTiersFile_ShouldOverrideRouteByRoute() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("rate-limits.yml");
+        Files.writeString(file, String.join("\n",
+                "tiers:",
+                "  standard:",
+                "    read: {requests: 60, period: PT1M, burst: 10}",
+                "  enterprise:",
+                "    create: {requests: 6000, period: PT1M, burst: 1000}"));
+
+        // Act
+        RateLimitTiers tiers = new RateLimitTiers(Map.of("standard", allRoutes(STANDARD)), "standard", file.toString());
+
+        // Assert
+        assertEquals(new RateLimit(60, Duration.ofMinutes(1), 10), tiers.limitFor("standard", RateLimitRoute.READ));
+        assertEquals(STANDARD, tiers.limitFor("standard", RateLimitRoute.CREATE));
+        assertEquals(new RateLimit(6000, Duration.ofMinutes(1), 1000), tiers.limitFor("enterprise", RateLimitRoute.CREATE));
+    }
+
+    @Test
+    void reloadIfChanged_WhenFileChanges_ShouldSwapLimits() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("rate-limits.yml");
+        Files.writeString(file, "tiers:\n  premium:\n    create: {requests: 100, period: PT1M, burst: 20}");
+        RateLimitTiers tiers = new RateLimitTiers(Map.of("standard", allRoutes(STANDARD)), "standard", file.toString());
+
+        // Act
+        Files.writeString(file, "tiers:\n  premium:\n    create: {requests: 1000, period: PT1M, burst: 200}");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        tiers.reloadIfChanged();
+
+        // Assert
+        assertEquals(new RateLimit(1000, Duration.ofMinutes(1), 200), tiers.limitFor("premium", RateLimitRoute.CREATE));
+    }
+
+    @Test
+    void reloadIfChanged_WhenFileBecomesInvalid_ShouldKeepCurrentLimits() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("rate-limits.yml");
+        Files.writeString(file, "tiers:\n  premium:\n    create: {requests: 100, period: PT1M, burst: 20}");
+        RateLimitTiers tiers = new RateLimitTiers(Map.of("standard", allRoutes(STANDARD)), "standard", file.toString());
+
+        // Act
+        Files.writeString(file, "tiers:\n  premium:\n    create: {requests: 0, period: PT1M, burst: 20}");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        tiers.reloadIfChanged();
+
+        // Assert
+        assertEquals(new RateLimit(100, Duration.ofMinutes(1), 20), tiers.limitFor("premium", RateLimitRoute.CREATE));
+    }
+
+    @Test
+    void rateLimit_ShouldDeriveIntervalAndBurstFromRate() {
+        // Arrange
+        RateLimit limit = new RateLimit(5, Duration.ofMinutes(1), 3);
+
+        // Act & Assert
+        assertEquals(Duration.ofSeconds(12).toNanos(), limit.emissionIntervalNanos());
+        assertEquals(Duration.ofSeconds(36).toNanos(), limit.burstNanos());
+        assertThrows(IllegalArgumentException.class, () -> new RateLimit(0, Duration.ofMinutes(1), 1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimit(1, Duration.ZERO, 1));
+    }
+
+    private static Map<RateLimitRoute, RateLimit> allRoutes(RateLimit limit) {
+        Map<RateLimitRoute, RateLimit> limits = new EnumMap<>(RateLimitRoute.class);
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            limits.put(route, limit);
+        }
+        return limits;
+    }
+}
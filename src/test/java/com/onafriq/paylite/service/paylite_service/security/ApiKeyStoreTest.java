@@ -0,0 +1,143 @@
+package com.onafriq.paylite.service.paylite_service.security;
+
+import com.onafriq.paylite.service.paylite_service.ratelimit.InMemoryRateLimitStore;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimit;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitRoute;
+import com.onafriq.paylite.service.paylite_service.ratelimit.RateLimitTiers;
+import com.onafriq.paylite.service.paylite_service.service.RateLimiterService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiKeyStoreTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void find_WithConfiguredKeys_ShouldUseKeyDigestAsClientIdAndDefaultTier() throws Exception {
+        // Arrange
+        ApiKeyStore store = new ApiKeyStore(new String[]{"key-a", "key-b"}, "");
+
+        // Act & Assert
+        assertEquals(Optional.of(new ApiKeyDetails("key-" + sha256Hex("key-a").substring(0, 16), "standard")),
+                store.find("key-a"));
+        assertTrue(store.find("key-c").isEmpty());
+        assertTrue(store.find("").isEmpty());
+        assertTrue(store.find(null).isEmpty());
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void find_WithKeyFile_ShouldResolvePlainKeysAndDigestsWithMetadata() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("api-keys.csv");
+        Files.writeString(file, String.join("\n",
+                "# key or sha256 digest, merchant, tier",
+                "plain-key, merchant-1, gold",
+                ApiKeyStore.DIGEST_PREFIX + sha256Hex("hashed-key") + ",merchant-2,enterprise",
+                "",
+                "bare-key"));
+
+        // Act
+        ApiKeyStore store = new ApiKeyStore(new String[]{"config-key"}, file.toString());
+
+        // Assert
+        assertEquals(Optional.of(new ApiKeyDetails("merchant-1", "gold")), store.find("plain-key"));
+        assertEquals(Optional.of(new ApiKeyDetails("merchant-2", "enterprise")), store.find("hashed-key"));
+        assertEquals(Optional.of(new ApiKeyDetails("key-" + sha256Hex("bare-key").substring(0, 16), "standard")),
+                store.find("bare-key"));
+        assertTrue(store.find("config-key").isPresent());
+        assertTrue(store.find(ApiKeyStore.DIGEST_PREFIX + sha256Hex("hashed-key")).isEmpty(),
+                "The digest itself must not authenticate");
+    }
+
+    @Test
+    void find_WithTwoConfiguredKeys_ShouldRateLimitThemInSeparateBuckets() {
+        // Arrange
+        ApiKeyStore store = new ApiKeyStore(new String[]{"key-a", "key-b"}, "");
+        Map<RateLimitRoute, RateLimit> standard = new EnumMap<>(RateLimitRoute.class);
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            standard.put(route, new RateLimit(2, Duration.ofMinutes(1), 2));
+        }
+        RateLimitTiers tiers = new RateLimitTiers(Map.of("standard", standard), "standard", null);
+        RateLimiterService rateLimiter = new RateLimiterService(tiers, new InMemoryRateLimitStore());
+        ApiKeyDetails first = store.find("key-a").orElseThrow();
+        ApiKeyDetails second = store.find("key-b").orElseThrow();
+
+        // Act
+        rateLimiter.tryAcquire(RateLimitRoute.CREATE, first.merchantId(), first.tier());
+        rateLimiter.tryAcquire(RateLimitRoute.CREATE, first.merchantId(), first.tier());
+
+        // Assert
+        assertNotEquals(first.merchantId(), second.merchantId());
+        assertFalse(rateLimiter.tryAcquire(RateLimitRoute.CREATE, first.merchantId(), first.tier()).allowed());
+        assertTrue(rateLimiter.tryAcquire(RateLimitRoute.CREATE, second.merchantId(), second.tier()).allowed());
+    }
+
+    @Test
+    void constructor_WithInvalidKeyFile_ShouldFailWithoutRevealingKey() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("api-keys.csv");
+        Files.writeString(file, "secret-key,merchant-1,gold,extra");
+
+        // Act
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> new ApiKeyStore(new String[]{}, file.toString()));
+
+        // Assert
+        assertTrue(e.getMessage().contains("line 1"));
+        assertFalse(e.getMessage().contains("secret-key"));
+    }
+
+    @Test
+    void reloadIfChanged_WhenFileChanges_ShouldSwapKeys() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("api-keys.csv");
+        Files.writeString(file, "old-key,merchant-1,standard");
+        ApiKeyStore store = new ApiKeyStore(new String[]{}, file.toString());
+
+        // Act
+        Files.writeString(file, "new-key,merchant-1,gold\nsecond-key,merchant-2,standard");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        store.reloadIfChanged();
+
+        // Assert
+        assertTrue(store.find("old-key").isEmpty());
+        assertEquals(Optional.of(new ApiKeyDetails("merchant-1", "gold")), store.find("new-key"));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    void reloadIfChanged_WhenFileBecomesInvalid_ShouldKeepCurrentKeys() throws Exception {
+        // Arrange
+        Path file = tempDir.resolve("api-keys.csv");
+        Files.writeString(file, "good-key,merchant-1,standard");
+        ApiKeyStore store = new ApiKeyStore(new String[]{}, file.toString());
+
+        // Act
+        Files.writeString(file, "sha256:not-hex,merchant-1,standard");
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+        store.reloadIfChanged();
+
+        // Assert
+        assertTrue(store.find("good-key").isPresent());
+    }
+
+    private static String sha256Hex(String key) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8)));
+    }
+}
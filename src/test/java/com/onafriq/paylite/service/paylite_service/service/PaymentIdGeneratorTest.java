@@ -0,0 +1,157 @@
+package com.onafriq.paylite.service.paylite_service.service;
+
+import com.onafriq.paylite.service.paylite_service.exception.PaymentIdGenerationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PaymentIdGeneratorTest {
+
+    private static final long START_MILLIS = PaymentIdGenerator.EPOCH.toEpochMilli() + 1_000_000L;
+
+    @Test
+    void nextPaymentId_ShouldHavePrefixAndFixedWidth() {
+        // Arrange
+        PaymentIdGenerator generator = new PaymentIdGenerator(7, 5000);
+
+        // Act
+        String paymentId = generator.nextPaymentId();
+
+        // Assert
+        assertTrue(paymentId.matches("pl_[0-9a-hjkmnp-tv-z]{13}"), paymentId);
+    }
+
+    @Test
+    void constructor_WithoutNodeId_ShouldFailFast() {
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> new PaymentIdGenerator(null, 5000));
+
+        assertTrue(thrown.getMessage().contains("PAYLITE_NODE_ID"));
+    }
+
+    @Test
+    void nextPaymentId_ShouldBeOrderedWithinAndAcrossMilliseconds() {
+        // Arrange
+        AtomicLong clock = new AtomicLong(START_MILLIS);
+        PaymentIdGenerator generator = new PaymentIdGenerator(1, 5000, clock::get);
+
+        // Act
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 1000 == 0) {
+                clock.incrementAndGet();
+            }
+            ids.add(generator.nextPaymentId());
+        }
+
+        // Assert
+        List<String> sorted = new ArrayList<>(ids);
+        sorted.sort(null);
+        assertEquals(sorted, ids);
+        assertEquals(ids.size(), new HashSet<>(ids).size());
+    }
+
+    @Test
+    void nextId_ShouldEncodeTimestampNodeAndSequence() {
+        // Arrange
+        PaymentIdGenerator generator = new PaymentIdGenerator(5, 5000, () -> START_MILLIS);
+
+        // Act
+        long first = generator.nextId();
+        long second = generator.nextId();
+
+        // Assert
+        assertEquals(1_000_000L, first >>> (PaymentIdGenerator.NODE_ID_BITS + PaymentIdGenerator.SEQUENCE_BITS));
+        assertEquals(5L, (first >>> PaymentIdGenerator.SEQUENCE_BITS) & PaymentIdGenerator.MAX_NODE_ID);
+        assertEquals(0L, first & ((1 << PaymentIdGenerator.SEQUENCE_BITS) - 1));
+        assertEquals(first + 1, second);
+    }
+
+    @Test
+    void nextId_WhenSequenceOverflows_ShouldCarryIntoNextMillisecond() {
+        // Arrange
+        PaymentIdGenerator generator = new PaymentIdGenerator(0, 5000, () -> START_MILLIS);
+        int perMillisecond = 1 << PaymentIdGenerator.SEQUENCE_BITS;
+
+        // Act
+        long last = 0;
+        for (int i = 0; i <= perMillisecond; i++) {
+            last = generator.nextId();
+        }
+
+        // Assert
+        assertEquals(1_000_001L, last >>> (PaymentIdGenerator.NODE_ID_BITS + PaymentIdGenerator.SEQUENCE_BITS));
+    }
+
+    @Test
+    void nextId_WhenClockStepsBackWithinDrift_ShouldStayMonotonic() {
+        // Arrange
+        AtomicLong clock = new AtomicLong(START_MILLIS);
+        PaymentIdGenerator generator = new PaymentIdGenerator(0, 5000, clock::get);
+        long before = generator.nextId();
+
+        // Act
+        clock.addAndGet(-1000);
+        long after = generator.nextId();
+
+        // Assert
+        assertTrue(after > before);
+    }
+
+    @Test
+    void nextId_WhenClockStepsBackBeyondDrift_ShouldThrowException() {
+        // Arrange
+        AtomicLong clock = new AtomicLong(START_MILLIS);
+        PaymentIdGenerator generator = new PaymentIdGenerator(0, 5000, clock::get);
+        generator.nextId();
+
+        // Act
+        clock.addAndGet(-6000);
+
+        // Assert
+        assertThrows(PaymentIdGenerationException.class, generator::nextId);
+    }
+
+    @Test
+    void constructor_WithNodeIdOutOfRange_ShouldThrowException() {
+        assertThrows(IllegalArgumentException.class, () -> new PaymentIdGenerator(-1, 5000));
+        assertThrows(IllegalArgumentException.class, () -> new PaymentIdGenerator(PaymentIdGenerator.MAX_NODE_ID + 1, 5000));
+    }
+
+    @Test
+    void nextPaymentId_FromConcurrentThreads_ShouldBeUnique() throws Exception {
+        // Arrange
+        PaymentIdGenerator generator = new PaymentIdGenerator(3, 5000);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        // Act
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 5000; i++) {
+                        ids.add(generator.nextPaymentId());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // Assert
+        assertEquals(40_000, ids.size());
+    }
+}
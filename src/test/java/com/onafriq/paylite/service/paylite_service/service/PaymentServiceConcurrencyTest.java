@@ -0,0 +1,209 @@
+package com.onafriq.paylite.service.paylite_service.service;
+
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentItem;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentResponse;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentResult;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
+import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookRequest;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookEventOutcome;
+import com.onafriq.paylite.service.paylite_service.repository.IdempotencyKeyRepository;
+import com.onafriq.paylite.service.paylite_service.repository.PaymentRepository;
+import com.onafriq.paylite.service.paylite_service.repository.WebhookEventRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PaymentServiceConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    @Autowired
+    private WebhookService webhookService;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @AfterEach
+    void tearDown() {
+        webhookEventRepository.deleteAll();
+        idempotencyKeyRepository.deleteAll();
+        paymentRepository.deleteAll();
+    }
+
+    @Test
+    void createPayment_WithConcurrentIdenticalRequests_ShouldInsertExactlyOnePayment() throws Exception {
+        PaymentRequest request = new PaymentRequest(1999L, "KES", "user@example.com", "INV-CONCURRENT-1");
+        String idempotencyKey = "concurrent-key-1";
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<PaymentResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                Callable<PaymentResponse> call = () -> {
+                    start.await();
+                    return paymentService.createPayment(request, idempotencyKey);
+                };
+                futures.add(executor.submit(call));
+            }
+            start.countDown();
+
+            Set<String> paymentIds = futures.stream()
+                    .map(future -> {
+                        try {
+                            return future.get(30, TimeUnit.SECONDS).getPaymentId();
+                        } catch (Exception e) {
+                            throw new AssertionError("Concurrent duplicate request failed", e);
+                        }
+                    })
+                    .collect(Collectors.toSet());
+
+            assertEquals(1, paymentIds.size());
+            assertEquals(1, paymentRepository.count());
+            assertEquals(1, idempotencyKeyRepository.count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void createPayments_WithConcurrentIdenticalBatches_ShouldInsertEachPaymentOnceAndReplayTheRest() throws Exception {
+        List<BatchPaymentItem> items = List.of(
+                new BatchPaymentItem("concurrent-batch-1", new PaymentRequest(1000L, "KES", "a@example.com", "INV-B1")),
+                new BatchPaymentItem("concurrent-batch-2", new PaymentRequest(2000L, "KES", "b@example.com", "INV-B2")),
+                new BatchPaymentItem("concurrent-batch-3", new PaymentRequest(3000L, "KES", "c@example.com", "INV-B3")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<BatchPaymentResponse>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return paymentService.createPayments(items);
+                }));
+            }
+            start.countDown();
+
+            Set<List<String>> paymentIdsPerBatch = new HashSet<>();
+            for (Future<BatchPaymentResponse> future : futures) {
+                BatchPaymentResponse response;
+                try {
+                    response = future.get(30, TimeUnit.SECONDS);
+                } catch (Exception e) {
+                    throw new AssertionError("Concurrent duplicate batch failed", e);
+                }
+                paymentIdsPerBatch.add(response.getResults().stream().map(BatchPaymentResult::getPaymentId).toList());
+            }
+
+            assertEquals(1, paymentIdsPerBatch.size());
+            assertEquals(3, paymentRepository.count());
+            assertEquals(3, idempotencyKeyRepository.count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void processWebhook_WithConcurrentDeliveriesForSamePayment_ShouldApplyOnce() throws Exception {
+        String paymentId = paymentService.createPayment(
+                new PaymentRequest(1999L, "KES", "user@example.com", "INV-CONCURRENT-2"), "concurrent-key-2").getPaymentId();
+        WebhookRequest webhook = new WebhookRequest(paymentId, "payment.succeeded");
+        String rawBody = "{\"paymentId\":\"" + paymentId + "\",\"event\":\"payment.succeeded\"}";
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                String requestId = "req-" + i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    webhookService.processWebhook(webhook, rawBody, requestId);
+                    return null;
+                }));
+            }
+            start.countDown();
+
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+
+            assertEquals("SUCCEEDED", paymentService.getPayment(paymentId).getStatus());
+            assertEquals(1, webhookEventRepository.count());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void applyWebhookTransitions_WithConcurrentIdenticalBatches_ShouldApplyEachPaymentOnce() throws Exception {
+        Map<String, String> targets = new HashMap<>();
+        for (int i = 0; i < 3; i++) {
+            String paymentId = paymentService.createPayment(
+                    new PaymentRequest(1999L, "KES", "user@example.com", "INV-BATCH-WEBHOOK-" + i),
+                    "batch-webhook-key-" + i).getPaymentId();
+            targets.put(paymentId, "SUCCEEDED");
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Map<String, WebhookEventOutcome>>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return paymentService.applyWebhookTransitions(targets);
+                }));
+            }
+            start.countDown();
+
+            Map<String, Integer> appliedPerPayment = new HashMap<>();
+            for (Future<Map<String, WebhookEventOutcome>> future : futures) {
+                future.get(30, TimeUnit.SECONDS).forEach((paymentId, outcome) -> {
+                    if (outcome == WebhookEventOutcome.APPLIED) {
+                        appliedPerPayment.merge(paymentId, 1, Integer::sum);
+                    }
+                });
+            }
+
+            assertEquals(targets.keySet(), appliedPerPayment.keySet());
+            appliedPerPayment.values().forEach(applied -> assertEquals(1, applied));
+            for (String paymentId : targets.keySet()) {
+                assertEquals("SUCCEEDED", paymentService.getPayment(paymentId).getStatus());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
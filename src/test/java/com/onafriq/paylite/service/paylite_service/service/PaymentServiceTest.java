@@ -2,10 +2,19 @@ package com.onafriq.paylite.service.paylite_service.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.cache.PaymentCache;
+import com.onafriq.paylite.service.paylite_service.concurrency.InFlightRequestRegistry;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentItem;
+import com.onafriq.paylite.service.paylite_service.dto.BatchPaymentResponse;
+import com.onafriq.paylite.service.paylite_service.dto.IdempotencyResolution;
 import com.onafriq.paylite.service.paylite_service.dto.PaymentRequest;
 import com.onafriq.paylite.service.paylite_service.dto.PaymentResponse;
+import com.onafriq.paylite.service.paylite_service.entity.IdempotencyKey;
 import com.onafriq.paylite.service.paylite_service.entity.Payment;
+import com.onafriq.paylite.service.paylite_service.enums.BatchItemOutcome;
+import com.onafriq.paylite.service.paylite_service.event.PaymentStatusChangedEvent;
 import com.onafriq.paylite.service.paylite_service.enums.PaymentStatus;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookEventOutcome;
 import com.onafriq.paylite.service.paylite_service.exception.IdempotencyConflictException;
 import com.onafriq.paylite.service.paylite_service.exception.PaymentIdGenerationException;
 import com.onafriq.paylite.service.paylite_service.exception.PaymentNotFoundException;
@@ -16,11 +25,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.retry.RetryCallback;
 import org.springframework.retry.support.RetryTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -42,6 +59,21 @@ class PaymentServiceTest {
     @Mock
     private RetryTemplate retryTemplate;
 
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Spy
+    private InFlightRequestRegistry inFlightRequests = new InFlightRequestRegistry(Duration.ofSeconds(5));
+
+    @Mock
+    private PaymentIdGenerator paymentIdGenerator;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Spy
+    private PaymentCache paymentCache = new PaymentCache(100, Duration.ofHours(1), Duration.ofSeconds(2), new SimpleMeterRegistry());
+
     @InjectMocks
     private PaymentService paymentService;
 
@@ -81,9 +113,8 @@ class PaymentServiceTest {
     void createPayment_WithNewRequest_ShouldCreatePayment() throws JsonProcessingException {
         // Arrange
         when(idempotencyService.calculateRequestHash(any())).thenReturn("hash123");
-        when(idempotencyService.getExistingResponse(anyString(), anyString())).thenReturn(Optional.empty());
-        when(idempotencyService.hasConflict(anyString(), anyString())).thenReturn(false);
-        when(paymentRepository.existsByPaymentId(anyString())).thenReturn(false);
+        when(idempotencyService.resolve(anyString(), anyString(), any())).thenReturn(IdempotencyResolution.newRequest());
+        when(paymentIdGenerator.nextPaymentId()).thenReturn("pl_0000000000001");
         when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
@@ -96,8 +127,7 @@ class PaymentServiceTest {
         assertEquals(PaymentStatus.PENDING.toString(), result.getStatus());
 
         verify(idempotencyService).calculateRequestHash(paymentRequest);
-        verify(idempotencyService).getExistingResponse(idempotencyKey, "hash123");
-        verify(idempotencyService).hasConflict(idempotencyKey, "hash123");
+        verify(idempotencyService).resolve(idempotencyKey, "hash123", paymentRequest);
         verify(paymentRepository).save(any(Payment.class));
     }
 
@@ -106,8 +136,8 @@ class PaymentServiceTest {
         // Arrange
         String cachedResponseJson = "{\"paymentId\":\"pl_12345678\",\"status\":\"PENDING\"}";
         when(idempotencyService.calculateRequestHash(any())).thenReturn("hash123");
-        when(idempotencyService.getExistingResponse(anyString(), anyString()))
-                .thenReturn(Optional.of(cachedResponseJson));
+        when(idempotencyService.resolve(anyString(), anyString(), any()))
+                .thenReturn(IdempotencyResolution.replay(cachedResponseJson));
         when(objectMapper.readValue(cachedResponseJson, PaymentResponse.class))
                 .thenReturn(paymentResponse);
 
@@ -120,7 +150,7 @@ class PaymentServiceTest {
         assertEquals(PaymentStatus.PENDING.toString(), result.getStatus());
 
         verify(idempotencyService).calculateRequestHash(paymentRequest);
-        verify(idempotencyService).getExistingResponse(idempotencyKey, "hash123");
+        verify(idempotencyService).resolve(idempotencyKey, "hash123", paymentRequest);
         verify(paymentRepository, never()).save(any());
     }
 
@@ -128,8 +158,7 @@ class PaymentServiceTest {
     void createPayment_WithIdempotencyConflict_ShouldThrowException() throws JsonProcessingException {
         // Arrange
         when(idempotencyService.calculateRequestHash(any())).thenReturn("hash123");
-        when(idempotencyService.getExistingResponse(anyString(), anyString())).thenReturn(Optional.empty());
-        when(idempotencyService.hasConflict(anyString(), anyString())).thenReturn(true);
+        when(idempotencyService.resolve(anyString(), anyString(), any())).thenReturn(IdempotencyResolution.conflict());
 
         // Act & Assert
         IdempotencyConflictException exception = assertThrows(
@@ -142,35 +171,30 @@ class PaymentServiceTest {
     }
 
     @Test
-    void createPayment_WithPaymentIdCollision_ShouldRetryGeneration() throws JsonProcessingException {
+    void createPayment_ShouldUseGeneratedPaymentIdWithoutExistenceCheck() throws JsonProcessingException {
         // Arrange
         when(idempotencyService.calculateRequestHash(any())).thenReturn("hash123");
-        when(idempotencyService.getExistingResponse(anyString(), anyString())).thenReturn(Optional.empty());
-        when(idempotencyService.hasConflict(anyString(), anyString())).thenReturn(false);
-        
-        // First 2 attempts find existing IDs, 3rd attempt succeeds
-        when(paymentRepository.existsByPaymentId(anyString()))
-                .thenReturn(true)
-                .thenReturn(true)
-                .thenReturn(false);
+        when(idempotencyService.resolve(anyString(), anyString(), any())).thenReturn(IdempotencyResolution.newRequest());
+        when(paymentIdGenerator.nextPaymentId()).thenReturn("pl_01hq3k5v7x9zb");
         when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         // Act
         PaymentResponse result = paymentService.createPayment(paymentRequest, idempotencyKey);
 
         // Assert
-        assertNotNull(result);
-        verify(paymentRepository, times(3)).existsByPaymentId(anyString());
+        assertEquals("pl_01hq3k5v7x9zb", result.getPaymentId());
+        verify(paymentIdGenerator).nextPaymentId();
         verify(paymentRepository).save(any(Payment.class));
+        verifyNoMoreInteractions(paymentRepository);
     }
 
     @Test
-    void createPayment_WithTooManyCollisions_ShouldThrowException() throws JsonProcessingException {
+    void createPayment_WhenPaymentIdGenerationFails_ShouldThrowException() throws JsonProcessingException {
         // Arrange
         when(idempotencyService.calculateRequestHash(any())).thenReturn("hash123");
-        when(idempotencyService.getExistingResponse(anyString(), anyString())).thenReturn(Optional.empty());
-        when(idempotencyService.hasConflict(anyString(), anyString())).thenReturn(false);
-        when(paymentRepository.existsByPaymentId(anyString())).thenReturn(true);
+        when(idempotencyService.resolve(anyString(), anyString(), any())).thenReturn(IdempotencyResolution.newRequest());
+        when(paymentIdGenerator.nextPaymentId())
+                .thenThrow(new PaymentIdGenerationException("System clock is 6000 ms behind the last issued payment ID"));
 
         // Act & Assert
         assertThrows(
@@ -178,7 +202,6 @@ class PaymentServiceTest {
                 () -> paymentService.createPayment(paymentRequest, idempotencyKey)
         );
 
-        verify(paymentRepository, times(5)).existsByPaymentId(anyString());
         verify(paymentRepository, never()).save(any());
     }
 
@@ -186,9 +209,8 @@ class PaymentServiceTest {
     void createPayment_ShouldSavePaymentWithCorrectFields() throws JsonProcessingException {
         // Arrange
         when(idempotencyService.calculateRequestHash(any())).thenReturn("hash123");
-        when(idempotencyService.getExistingResponse(anyString(), anyString())).thenReturn(Optional.empty());
-        when(idempotencyService.hasConflict(anyString(), anyString())).thenReturn(false);
-        when(paymentRepository.existsByPaymentId(anyString())).thenReturn(false);
+        when(idempotencyService.resolve(anyString(), anyString(), any())).thenReturn(IdempotencyResolution.newRequest());
+        when(paymentIdGenerator.nextPaymentId()).thenReturn("pl_0000000000001");
         when(paymentRepository.save(any(Payment.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
         ArgumentCaptor<Payment> paymentCaptor = ArgumentCaptor.forClass(Payment.class);
@@ -208,6 +230,100 @@ class PaymentServiceTest {
         assertEquals(PaymentStatus.PENDING.toString(), savedPayment.getStatus());
     }
 
+    // ===== BATCH CREATE PAYMENT TESTS =====
+
+    @Test
+    void createPayments_ShouldResolveKeysOnceAndSaveNewPaymentsTogether() throws JsonProcessingException {
+        // Arrange
+        PaymentRequest otherRequest = new PaymentRequest(2000L, "KES", "other@example.com", "REF-002");
+        PaymentRequest thirdRequest = new PaymentRequest(3000L, "KES", "third@example.com", "REF-003");
+        List<BatchPaymentItem> items = List.of(
+                new BatchPaymentItem("key-new", paymentRequest),
+                new BatchPaymentItem("key-replay", otherRequest),
+                new BatchPaymentItem("key-conflict", thirdRequest));
+        String storedResponse = "{\"paymentId\":\"pl_12345678\",\"status\":\"PENDING\"}";
+
+        when(idempotencyService.calculateRequestHash(paymentRequest)).thenReturn("hash-1");
+        when(idempotencyService.calculateRequestHash(otherRequest)).thenReturn("hash-2");
+        when(idempotencyService.calculateRequestHash(thirdRequest)).thenReturn("hash-3");
+        when(idempotencyService.resolveAll(anyMap(), anyMap())).thenReturn(Map.of(
+                "key-new", IdempotencyResolution.newRequest(),
+                "key-replay", IdempotencyResolution.replay(storedResponse),
+                "key-conflict", IdempotencyResolution.conflict()));
+        when(objectMapper.readValue(storedResponse, PaymentResponse.class)).thenReturn(paymentResponse);
+        when(paymentIdGenerator.nextPaymentId()).thenReturn("pl_0000000000001");
+
+        // Act
+        BatchPaymentResponse result = paymentService.createPayments(items);
+
+        // Assert
+        assertEquals(3, result.getResults().size());
+        assertEquals(BatchItemOutcome.CREATED, result.getResults().get(0).getOutcome());
+        assertEquals("pl_0000000000001", result.getResults().get(0).getPaymentId());
+        assertEquals(BatchItemOutcome.REPLAYED, result.getResults().get(1).getOutcome());
+        assertEquals("pl_12345678", result.getResults().get(1).getPaymentId());
+        assertEquals(BatchItemOutcome.CONFLICT, result.getResults().get(2).getOutcome());
+        assertNotNull(result.getResults().get(2).getError());
+
+        verify(idempotencyService).resolveAll(
+                Map.of("key-new", "hash-1", "key-replay", "hash-2", "key-conflict", "hash-3"),
+                Map.of("key-new", paymentRequest, "key-replay", otherRequest, "key-conflict", thirdRequest));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Payment>> paymentsCaptor = ArgumentCaptor.forClass(List.class);
+        verify(paymentRepository).saveAll(paymentsCaptor.capture());
+        assertEquals(1, paymentsCaptor.getValue().size());
+        assertEquals("pl_0000000000001", paymentsCaptor.getValue().get(0).getPaymentId());
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<IdempotencyKey>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        verify(idempotencyService).storeIdempotencyKeys(keysCaptor.capture());
+        assertEquals("key-new", keysCaptor.getValue().get(0).getKey());
+        assertEquals("hash-1", keysCaptor.getValue().get(0).getRequestHash());
+        verify(paymentRepository, never()).save(any());
+    }
+
+    @Test
+    void createPayments_WithKeyRepeatedInBatch_ShouldReplaySamePayloadAndConflictOtherwise() {
+        // Arrange
+        PaymentRequest otherRequest = new PaymentRequest(2000L, "KES", "other@example.com", "REF-002");
+        List<BatchPaymentItem> items = List.of(
+                new BatchPaymentItem("key-1", paymentRequest),
+                new BatchPaymentItem("key-1", paymentRequest),
+                new BatchPaymentItem("key-1", otherRequest));
+
+        when(idempotencyService.calculateRequestHash(paymentRequest)).thenReturn("hash-1");
+        when(idempotencyService.calculateRequestHash(otherRequest)).thenReturn("hash-2");
+        when(idempotencyService.resolveAll(anyMap(), anyMap()))
+                .thenReturn(Map.of("key-1", IdempotencyResolution.newRequest()));
+        when(paymentIdGenerator.nextPaymentId()).thenReturn("pl_0000000000001");
+
+        // Act
+        BatchPaymentResponse result = paymentService.createPayments(items);
+
+        // Assert
+        assertEquals(BatchItemOutcome.CREATED, result.getResults().get(0).getOutcome());
+        assertEquals(BatchItemOutcome.REPLAYED, result.getResults().get(1).getOutcome());
+        assertEquals("pl_0000000000001", result.getResults().get(1).getPaymentId());
+        assertEquals(BatchItemOutcome.CONFLICT, result.getResults().get(2).getOutcome());
+        verify(paymentIdGenerator, times(1)).nextPaymentId();
+        verify(paymentRepository).saveAll(argThat(payments -> ((List<Payment>) payments).size() == 1));
+    }
+
+    @Test
+    void createPayments_WithOnlyConflicts_ShouldNotWrite() {
+        // Arrange
+        when(idempotencyService.calculateRequestHash(paymentRequest)).thenReturn("hash-1");
+        when(idempotencyService.resolveAll(anyMap(), anyMap()))
+                .thenReturn(Map.of("key-1", IdempotencyResolution.conflict()));
+
+        // Act
+        BatchPaymentResponse result = paymentService.createPayments(List.of(new BatchPaymentItem("key-1", paymentRequest)));
+
+        // Assert
+        assertEquals(BatchItemOutcome.CONFLICT, result.getResults().get(0).getOutcome());
+        verify(paymentRepository, never()).saveAll(any());
+        verify(idempotencyService, never()).storeIdempotencyKeys(any());
+    }
+
     // ===== GET PAYMENT TESTS =====
 
     @Test
@@ -265,6 +381,87 @@ class PaymentServiceTest {
         verify(paymentRepository).findByPaymentId("invalid-id");
     }
 
+    @Test
+    void getPayment_WithCachedFinalPayment_ShouldNotQueryRepositoryAgain() throws Exception {
+        // Arrange
+        payment.setStatus(PaymentStatus.SUCCEEDED.toString());
+        when(retryTemplate.execute(any())).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            RetryCallback<Object, Exception> callback =
+                    (RetryCallback<Object, Exception>) invocation.getArgument(0);
+            return callback.doWithRetry(null);
+        });
+        when(paymentRepository.findByPaymentId("pl_12345678")).thenReturn(Optional.of(payment));
+
+        // Act
+        PaymentResponse first = paymentService.getPayment("pl_12345678");
+        PaymentResponse second = paymentService.getPayment("pl_12345678");
+
+        // Assert
+        assertEquals(first, second);
+        assertEquals(PaymentStatus.SUCCEEDED.toString(), second.getStatus());
+        verify(paymentRepository, times(1)).findByPaymentId("pl_12345678");
+    }
+
+    @Test
+    void processWebhook_WithStatusChange_ShouldInvalidateCachedPayment() throws Exception {
+        // Arrange
+        when(retryTemplate.execute(any())).thenAnswer(invocation -> {
+            return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
+        });
+        when(paymentRepository.findByPaymentId("pl_12345678")).thenReturn(Optional.of(payment));
+        paymentService.getPayment("pl_12345678");
+        when(paymentRepository.transitionStatus(eq("pl_12345678"), eq("PENDING"), eq("SUCCEEDED"), any()))
+                .thenAnswer(invocation -> {
+                    payment.setStatus(PaymentStatus.SUCCEEDED.toString());
+                    return 1;
+                });
+
+        // Act
+        paymentService.processWebhook("pl_12345678", "payment.succeeded");
+        PaymentResponse result = paymentService.getPayment("pl_12345678");
+
+        // Assert
+        assertEquals(PaymentStatus.SUCCEEDED.toString(), result.getStatus());
+        verify(paymentCache).invalidateAfterCommit("pl_12345678");
+        verify(paymentRepository, times(2)).findByPaymentId("pl_12345678");
+    }
+
+    @Test
+    void getPaymentVersion_ShouldReadOnlyVersionColumn() {
+        // Arrange
+        when(retryTemplate.execute(any())).thenAnswer(invocation -> {
+            return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
+        });
+        when(paymentRepository.findVersionByPaymentId("pl_12345678")).thenReturn(Optional.of(2L));
+
+        // Act
+        Optional<Long> result = paymentService.getPaymentVersion("pl_12345678");
+
+        // Assert
+        assertEquals(Optional.of(2L), result);
+        verify(paymentRepository, never()).findByPaymentId(anyString());
+    }
+
+    @Test
+    void getPaymentVersion_WithCachedFinalPayment_ShouldNotQueryRepository() throws Exception {
+        // Arrange
+        payment.setStatus(PaymentStatus.SUCCEEDED.toString());
+        payment.setVersion(1L);
+        when(retryTemplate.execute(any())).thenAnswer(invocation -> {
+            return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
+        });
+        when(paymentRepository.findByPaymentId("pl_12345678")).thenReturn(Optional.of(payment));
+        paymentService.getPayment("pl_12345678");
+
+        // Act
+        Optional<Long> result = paymentService.getPaymentVersion("pl_12345678");
+
+        // Assert
+        assertEquals(Optional.of(1L), result);
+        verify(paymentRepository, never()).findVersionByPaymentId(anyString());
+    }
+
 
     // ===== PROCESS WEBHOOK TESTS =====
 
@@ -274,17 +471,16 @@ class PaymentServiceTest {
         when(retryTemplate.execute(any())).thenAnswer(invocation -> {
             return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
         });
-        when(paymentRepository.findByPaymentIdForUpdate("pl_12345678"))
-                .thenReturn(Optional.of(payment));
+        when(paymentRepository.transitionStatus(eq("pl_12345678"), eq("PENDING"), eq("SUCCEEDED"), any()))
+                .thenReturn(1);
 
         // Act
         paymentService.processWebhook("pl_12345678", "payment.succeeded");
 
         // Assert
-        verify(paymentRepository).findByPaymentIdForUpdate("pl_12345678");
-        verify(paymentRepository).save(argThat(p -> 
-            PaymentStatus.SUCCEEDED.toString().equals(p.getStatus())
-        ));
+        verify(paymentRepository, never()).findByPaymentId(anyString());
+        verify(paymentRepository, never()).save(any());
+        verify(eventPublisher).publishEvent(new PaymentStatusChangedEvent("pl_12345678", PaymentStatus.SUCCEEDED.toString()));
     }
 
     @Test
@@ -293,53 +489,54 @@ class PaymentServiceTest {
         when(retryTemplate.execute(any())).thenAnswer(invocation -> {
             return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
         });
-        when(paymentRepository.findByPaymentIdForUpdate("pl_12345678"))
-                .thenReturn(Optional.of(payment));
+        when(paymentRepository.transitionStatus(eq("pl_12345678"), eq("PENDING"), eq("FAILED"), any()))
+                .thenReturn(1);
 
         // Act
         paymentService.processWebhook("pl_12345678", "payment.failed");
 
         // Assert
-        verify(paymentRepository).findByPaymentIdForUpdate("pl_12345678");
-        verify(paymentRepository).save(argThat(p -> 
-            PaymentStatus.FAILED.toString().equals(p.getStatus())
-        ));
+        verify(paymentRepository).transitionStatus(eq("pl_12345678"), eq("PENDING"), eq("FAILED"), any());
+        verify(eventPublisher).publishEvent(new PaymentStatusChangedEvent("pl_12345678", PaymentStatus.FAILED.toString()));
     }
 
     @Test
     void processWebhook_WithAlreadySucceededPayment_ShouldNotUpdate() {
         // Arrange
-        payment.setStatus(PaymentStatus.SUCCEEDED.toString());
         when(retryTemplate.execute(any())).thenAnswer(invocation -> {
             return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
         });
-        when(paymentRepository.findByPaymentIdForUpdate("pl_12345678"))
-                .thenReturn(Optional.of(payment));
+        when(paymentRepository.transitionStatus(eq("pl_12345678"), eq("PENDING"), eq("SUCCEEDED"), any()))
+                .thenReturn(0);
+        when(paymentRepository.findStatusByPaymentId("pl_12345678"))
+                .thenReturn(Optional.of(PaymentStatus.SUCCEEDED.toString()));
 
         // Act
         paymentService.processWebhook("pl_12345678", "payment.succeeded");
 
         // Assert
-        verify(paymentRepository).findByPaymentIdForUpdate("pl_12345678");
-        verify(paymentRepository, never()).save(any());
+        verify(paymentRepository).findStatusByPaymentId("pl_12345678");
+        verifyNoInteractions(eventPublisher);
+        verify(paymentCache, never()).invalidateAfterCommit(anyString());
     }
 
     @Test
     void processWebhook_WithAlreadyFailedPayment_ShouldNotUpdate() {
         // Arrange
-        payment.setStatus(PaymentStatus.FAILED.toString());
         when(retryTemplate.execute(any())).thenAnswer(invocation -> {
             return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
         });
-        when(paymentRepository.findByPaymentIdForUpdate("pl_12345678"))
-                .thenReturn(Optional.of(payment));
+        when(paymentRepository.transitionStatus(eq("pl_12345678"), eq("PENDING"), eq("FAILED"), any()))
+                .thenReturn(0);
+        when(paymentRepository.findStatusByPaymentId("pl_12345678"))
+                .thenReturn(Optional.of(PaymentStatus.FAILED.toString()));
 
         // Act
         paymentService.processWebhook("pl_12345678", "payment.failed");
 
         // Assert
-        verify(paymentRepository).findByPaymentIdForUpdate("pl_12345678");
-        verify(paymentRepository, never()).save(any());
+        verify(paymentRepository).findStatusByPaymentId("pl_12345678");
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -348,7 +545,9 @@ class PaymentServiceTest {
         when(retryTemplate.execute(any())).thenAnswer(invocation -> {
             return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
         });
-        when(paymentRepository.findByPaymentIdForUpdate("invalid-id"))
+        when(paymentRepository.transitionStatus(eq("invalid-id"), anyString(), anyString(), any()))
+                .thenReturn(0);
+        when(paymentRepository.findStatusByPaymentId("invalid-id"))
                 .thenReturn(Optional.empty());
 
         // Act & Assert
@@ -358,8 +557,7 @@ class PaymentServiceTest {
         );
 
         assertTrue(exception.getMessage().contains("invalid-id"));
-        verify(paymentRepository).findByPaymentIdForUpdate("invalid-id");
-        verify(paymentRepository, never()).save(any());
+        verifyNoInteractions(eventPublisher);
     }
 
     @Test
@@ -368,15 +566,102 @@ class PaymentServiceTest {
         when(retryTemplate.execute(any())).thenAnswer(invocation -> {
             return invocation.getArgument(0, org.springframework.retry.RetryCallback.class).doWithRetry(null);
         });
-        when(paymentRepository.findByPaymentIdForUpdate("pl_12345678"))
-                .thenReturn(Optional.of(payment));
+        when(paymentRepository.transitionStatus(eq("pl_12345678"), eq("PENDING"), eq("FAILED"), any()))
+                .thenReturn(1);
 
         // Act
         paymentService.processWebhook("pl_12345678", "payment.unknown");
 
         // Assert
-        verify(paymentRepository).save(argThat(p -> 
-            PaymentStatus.FAILED.toString().equals(p.getStatus())
-        ));
+        verify(paymentRepository).transitionStatus(eq("pl_12345678"), eq("PENDING"), eq("FAILED"), any());
+    }
+
+    // ===== BATCH WEBHOOK TRANSITION TESTS =====
+
+    @Test
+    void applyWebhookTransitions_ShouldSendOneBatchPerTargetStatusForPendingPayments() {
+        // Arrange
+        Map<String, String> targets = new java.util.LinkedHashMap<>();
+        targets.put("pl_1", "SUCCEEDED");
+        targets.put("pl_2", "SUCCEEDED");
+        targets.put("pl_3", "FAILED");
+        targets.put("pl_4", "FAILED");
+        targets.put("pl_missing", "FAILED");
+        when(paymentRepository.findStatusesByPaymentIdIn(targets.keySet())).thenReturn(List.of(
+                statusView("pl_1", "PENDING"), statusView("pl_2", "PENDING"),
+                statusView("pl_3", "PENDING"), statusView("pl_4", "SUCCEEDED")));
+        when(paymentRepository.transitionStatuses(eq(List.of("pl_1", "pl_2")), eq("PENDING"), eq("SUCCEEDED"), any()))
+                .thenReturn(new int[]{1, 1});
+        when(paymentRepository.transitionStatuses(eq(List.of("pl_3")), eq("PENDING"), eq("FAILED"), any()))
+                .thenReturn(new int[]{1});
+
+        // Act
+        Map<String, WebhookEventOutcome> outcomes = paymentService.applyWebhookTransitions(targets);
+
+        // Assert
+        assertEquals(Map.of(
+                "pl_1", WebhookEventOutcome.APPLIED,
+                "pl_2", WebhookEventOutcome.APPLIED,
+                "pl_3", WebhookEventOutcome.APPLIED,
+                "pl_4", WebhookEventOutcome.ALREADY_FINAL,
+                "pl_missing", WebhookEventOutcome.NOT_FOUND), outcomes);
+        verify(paymentCache).invalidateAfterCommit("pl_3");
+        verify(eventPublisher).publishEvent(new PaymentStatusChangedEvent("pl_1", "SUCCEEDED"));
+        verify(eventPublisher, times(3)).publishEvent(any(PaymentStatusChangedEvent.class));
+        verify(paymentRepository, never()).transitionStatus(any(), any(), any(), any());
+    }
+
+    @Test
+    void applyWebhookTransitions_WhenFinalizedConcurrently_ShouldReportAlreadyFinal() {
+        // Arrange
+        Map<String, String> targets = Map.of("pl_1", "SUCCEEDED");
+        when(paymentRepository.findStatusesByPaymentIdIn(anyCollection()))
+                .thenReturn(List.of(statusView("pl_1", "PENDING")));
+        when(paymentRepository.transitionStatuses(eq(List.of("pl_1")), eq("PENDING"), eq("SUCCEEDED"), any()))
+                .thenReturn(new int[]{0});
+
+        // Act
+        Map<String, WebhookEventOutcome> outcomes = paymentService.applyWebhookTransitions(targets);
+
+        // Assert
+        assertEquals(Map.of("pl_1", WebhookEventOutcome.ALREADY_FINAL), outcomes);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void applyWebhookTransitions_WhenAnotherWriterSetTheSameStatus_ShouldNotPublishAgain() {
+        // Arrange: pl_1 was moved to SUCCEEDED by someone else between the read and the UPDATE
+        Map<String, String> targets = new java.util.LinkedHashMap<>();
+        targets.put("pl_1", "SUCCEEDED");
+        targets.put("pl_2", "SUCCEEDED");
+        when(paymentRepository.findStatusesByPaymentIdIn(targets.keySet()))
+                .thenReturn(List.of(statusView("pl_1", "PENDING"), statusView("pl_2", "PENDING")));
+        when(paymentRepository.transitionStatuses(eq(List.of("pl_1", "pl_2")), eq("PENDING"), eq("SUCCEEDED"), any()))
+                .thenReturn(new int[]{0, 1});
+
+        // Act
+        Map<String, WebhookEventOutcome> outcomes = paymentService.applyWebhookTransitions(targets);
+
+        // Assert
+        assertEquals(Map.of(
+                "pl_1", WebhookEventOutcome.ALREADY_FINAL,
+                "pl_2", WebhookEventOutcome.APPLIED), outcomes);
+        verify(eventPublisher).publishEvent(new PaymentStatusChangedEvent("pl_2", "SUCCEEDED"));
+        verify(eventPublisher, times(1)).publishEvent(any(PaymentStatusChangedEvent.class));
+        verify(paymentCache, never()).invalidateAfterCommit("pl_1");
+    }
+
+    private static PaymentRepository.PaymentStatusView statusView(String paymentId, String status) {
+        return new PaymentRepository.PaymentStatusView() {
+            @Override
+            public String getPaymentId() {
+                return paymentId;
+            }
+
+            @Override
+            public String getStatus() {
+                return status;
+            }
+        };
     }
-}
\ No newline at end of file
+}
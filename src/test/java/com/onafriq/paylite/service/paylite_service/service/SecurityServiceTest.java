@@ -1,5 +1,10 @@
 package com.onafriq.paylite.service.paylite_service.service;
 
+import com.onafriq.paylite.service.paylite_service.dto.WebhookBody;
+import com.onafriq.paylite.service.paylite_service.exception.BadRequestException;
+import com.onafriq.paylite.service.paylite_service.exception.UnauthorizedException;
+import com.onafriq.paylite.service.paylite_service.security.ApiKeyDetails;
+import com.onafriq.paylite.service.paylite_service.security.ApiKeyStore;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -9,8 +14,12 @@ import org.springframework.test.util.ReflectionTestUtils;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -31,324 +40,255 @@ class SecurityServiceTest {
         webhookSecret = "test-webhook-secret-key";
 
         // Inject values using ReflectionTestUtils
-        ReflectionTestUtils.setField(securityService, "validApiKeys", validApiKeys);
+        ReflectionTestUtils.setField(securityService, "apiKeyStore", new ApiKeyStore(validApiKeys, null));
         ReflectionTestUtils.setField(securityService, "webhookSecret", webhookSecret);
+        ReflectionTestUtils.setField(securityService, "maxWebhookBodyBytes", 1048576);
     }
 
     // ===== API KEY VALIDATION TESTS =====
 
     @Test
-    void isValidApiKey_WithValidKey_ShouldReturnTrue() {
+    void authenticate_WithValidKey_ShouldReturnTrue() {
         // Act
-        boolean result = securityService.isValidApiKey("api-key-1");
+        boolean result = securityService.authenticate("api-key-1").isPresent();
 
         // Assert
         assertTrue(result);
     }
 
     @Test
-    void isValidApiKey_WithAnotherValidKey_ShouldReturnTrue() {
+    void authenticate_WithAnotherValidKey_ShouldReturnTrue() {
         // Act
-        boolean result = securityService.isValidApiKey("api-key-2");
+        boolean result = securityService.authenticate("api-key-2").isPresent();
 
         // Assert
         assertTrue(result);
     }
 
     @Test
-    void isValidApiKey_WithThirdValidKey_ShouldReturnTrue() {
+    void authenticate_WithThirdValidKey_ShouldReturnTrue() {
         // Act
-        boolean result = securityService.isValidApiKey("api-key-3");
+        boolean result = securityService.authenticate("api-key-3").isPresent();
 
         // Assert
         assertTrue(result);
     }
 
     @Test
-    void isValidApiKey_WithInvalidKey_ShouldReturnFalse() {
+    void authenticate_WithInvalidKey_ShouldReturnFalse() {
         // Act
-        boolean result = securityService.isValidApiKey("invalid-key");
+        boolean result = securityService.authenticate("invalid-key").isPresent();
 
         // Assert
         assertFalse(result);
     }
 
     @Test
-    void isValidApiKey_WithNullKey_ShouldReturnFalse() {
+    void authenticate_WithNullKey_ShouldReturnFalse() {
         // Act
-        boolean result = securityService.isValidApiKey(null);
+        boolean result = securityService.authenticate(null).isPresent();
 
         // Assert
         assertFalse(result);
     }
 
     @Test
-    void isValidApiKey_WithEmptyKey_ShouldReturnFalse() {
+    void authenticate_WithEmptyKey_ShouldReturnFalse() {
         // Act
-        boolean result = securityService.isValidApiKey("");
+        boolean result = securityService.authenticate("").isPresent();
 
         // Assert
         assertFalse(result);
     }
 
     @Test
-    void isValidApiKey_WithWhitespaceKey_ShouldReturnFalse() {
+    void authenticate_WithWhitespaceKey_ShouldReturnFalse() {
         // Act
-        boolean result = securityService.isValidApiKey("   ");
+        boolean result = securityService.authenticate("   ").isPresent();
 
         // Assert
         assertFalse(result);
     }
 
     @Test
-    void isValidApiKey_WithKeyContainingWhitespace_ShouldReturnFalse() {
+    void authenticate_WithKeyContainingWhitespace_ShouldReturnFalse() {
         // Act
-        boolean result = securityService.isValidApiKey(" api-key-1 ");
+        boolean result = securityService.authenticate(" api-key-1 ").isPresent();
 
         // Assert
         assertFalse(result);
     }
 
     @Test
-    void isValidApiKey_WithSimilarButInvalidKey_ShouldReturnFalse() {
+    void authenticate_WithSimilarButInvalidKey_ShouldReturnFalse() {
         // Act
-        boolean result = securityService.isValidApiKey("api-key-4");
+        boolean result = securityService.authenticate("api-key-4").isPresent();
 
         // Assert
         assertFalse(result);
     }
 
     @Test
-    void isValidApiKey_CaseSensitive_ShouldReturnFalse() {
+    void authenticate_CaseSensitive_ShouldReturnFalse() {
         // Act
-        boolean result = securityService.isValidApiKey("API-KEY-1");
+        boolean result = securityService.authenticate("API-KEY-1").isPresent();
 
         // Assert
         assertFalse(result);
     }
 
     @Test
-    void isValidApiKey_WithSpecialCharacters_ShouldWork() {
+    void authenticate_WithSpecialCharacters_ShouldWork() {
         // Arrange
         String[] keysWithSpecialChars = new String[]{"api-key-!@#$%"};
-        ReflectionTestUtils.setField(securityService, "validApiKeys", keysWithSpecialChars);
+        ReflectionTestUtils.setField(securityService, "apiKeyStore", new ApiKeyStore(keysWithSpecialChars, null));
 
         // Act
-        boolean result = securityService.isValidApiKey("api-key-!@#$%");
+        boolean result = securityService.authenticate("api-key-!@#$%").isPresent();
 
         // Assert
         assertTrue(result);
     }
 
     @Test
-    void isValidApiKey_WithEmptyValidKeysArray_ShouldReturnFalse() {
+    void authenticate_WithEmptyValidKeysArray_ShouldReturnFalse() {
         // Arrange
-        ReflectionTestUtils.setField(securityService, "validApiKeys", new String[]{});
+        ReflectionTestUtils.setField(securityService, "apiKeyStore", new ApiKeyStore(new String[]{}, null));
 
         // Act
-        boolean result = securityService.isValidApiKey("any-key");
+        boolean result = securityService.authenticate("any-key").isPresent();
 
         // Assert
         assertFalse(result);
     }
 
-    // ===== WEBHOOK SIGNATURE VERIFICATION TESTS =====
-
     @Test
-    void verifyWebhookSignature_WithValidSignature_ShouldReturnTrue() throws Exception {
-        // Arrange
-        String payload = "{\"paymentId\":\"pay_123\",\"status\":\"succeeded\"}";
-        String validSignature = computeExpectedSignature(payload, webhookSecret);
-
+    void authenticate_WithValidKey_ShouldReturnKeyDetails() {
         // Act
-        boolean result = securityService.verifyWebhookSignature(validSignature, payload);
+        Optional<ApiKeyDetails> details = securityService.authenticate("api-key-2");
 
         // Assert
-        assertTrue(result);
+        assertTrue(details.isPresent());
+        assertEquals(ApiKeyDetails.DEFAULT_TIER, details.get().tier());
+        assertTrue(securityService.authenticate("api-key-4").isEmpty());
+        assertTrue(securityService.authenticate(null).isEmpty());
     }
 
-    @Test
-    void verifyWebhookSignature_WithInvalidSignature_ShouldReturnFalse() {
-        // Arrange
-        String payload = "{\"paymentId\":\"pay_123\",\"status\":\"succeeded\"}";
-        String invalidSignature = "invalid-signature-string";
-
-        // Act
-        boolean result = securityService.verifyWebhookSignature(invalidSignature, payload);
-
-        // Assert
-        assertFalse(result);
-    }
-
-    @Test
-    void verifyWebhookSignature_WithNullSignature_ShouldReturnFalse() {
-        // Arrange
-        String payload = "{\"paymentId\":\"pay_123\"}";
-
-        // Act
-        boolean result = securityService.verifyWebhookSignature(null, payload);
-
-        // Assert
-        assertFalse(result);
-    }
+    // ===== STREAMED WEBHOOK BODY TESTS =====
 
     @Test
-    void verifyWebhookSignature_WithNullPayload_ShouldReturnFalse() throws Exception {
+    void readSignedWebhookBody_WithValidSignature_ShouldReturnBodyBytes() throws Exception {
         // Arrange
-        String validSignature = computeExpectedSignature("some-payload", webhookSecret);
+        byte[] payload = "{\"paymentId\":\"pay_123\",\"event\":\"payment.succeeded\"}".getBytes(StandardCharsets.UTF_8);
+        String signature = computeExpectedSignature(new String(payload, StandardCharsets.UTF_8), webhookSecret);
 
         // Act
-        boolean result = securityService.verifyWebhookSignature(validSignature, null);
+        WebhookBody body = securityService.readSignedWebhookBody(signature, new ByteArrayInputStream(payload), payload.length);
 
         // Assert
-        assertFalse(result);
+        assertEquals(payload.length, body.length());
+        assertEquals(payload.length, body.buffer().length, "Exact Content-Length should need no buffer growth");
+        assertArrayEquals(payload, Arrays.copyOf(body.buffer(), body.length()));
     }
 
     @Test
-    void verifyWebhookSignature_WithBothNull_ShouldReturnFalse() {
-        // Act
-        boolean result = securityService.verifyWebhookSignature(null, null);
-
-        // Assert
-        assertFalse(result);
-    }
-
-    @Test
-    void verifyWebhookSignature_WithEmptyPayload_ShouldWork() throws Exception {
+    void readSignedWebhookBody_WithInflatedContentLength_ShouldNotPreallocateIt() throws Exception {
         // Arrange
-        String payload = "";
-        String validSignature = computeExpectedSignature(payload, webhookSecret);
+        byte[] payload = "{\"paymentId\":\"pay_123\"}".getBytes(StandardCharsets.UTF_8);
+        String signature = computeExpectedSignature(new String(payload, StandardCharsets.UTF_8), webhookSecret);
 
         // Act
-        boolean result = securityService.verifyWebhookSignature(validSignature, payload);
+        WebhookBody body = securityService.readSignedWebhookBody(signature, new ByteArrayInputStream(payload), 1048576);
 
         // Assert
-        assertTrue(result);
+        assertEquals(payload.length, body.length());
+        assertTrue(body.buffer().length <= 8192, "Buffer should start small and grow with the bytes actually sent");
     }
 
     @Test
-    void verifyWebhookSignature_WithModifiedPayload_ShouldReturnFalse() throws Exception {
+    void readSignedWebhookBody_WithUnknownLengthAndSmallReads_ShouldHashEveryChunk() throws Exception {
         // Arrange
-        String originalPayload = "{\"paymentId\":\"pay_123\",\"status\":\"succeeded\"}";
-        String modifiedPayload = "{\"paymentId\":\"pay_123\",\"status\":\"failed\"}";
-        String signature = computeExpectedSignature(originalPayload, webhookSecret);
-
-        // Act
-        boolean result = securityService.verifyWebhookSignature(signature, modifiedPayload);
-
-        // Assert
-        assertFalse(result);
-    }
-
-    @Test
-    void verifyWebhookSignature_WithDifferentSecret_ShouldReturnFalse() throws Exception {
-        // Arrange
-        String payload = "{\"paymentId\":\"pay_123\"}";
-        String differentSecret = "different-secret-key";
-        String signature = computeExpectedSignature(payload, differentSecret);
-
-        // Act
-        boolean result = securityService.verifyWebhookSignature(signature, payload);
-
-        // Assert
-        assertFalse(result);
-    }
-
-    @Test
-    void verifyWebhookSignature_WithLargePayload_ShouldWork() throws Exception {
-        // Arrange
-        StringBuilder largePayload = new StringBuilder();
-        for (int i = 0; i < 1000; i++) {
-            largePayload.append("{\"data\":\"test\"}");
-        }
-        String payload = largePayload.toString();
-        String validSignature = computeExpectedSignature(payload, webhookSecret);
-
-        // Act
-        boolean result = securityService.verifyWebhookSignature(validSignature, payload);
-
-        // Assert
-        assertTrue(result);
-    }
-
-    @Test
-    void verifyWebhookSignature_WithSpecialCharactersInPayload_ShouldWork() throws Exception {
-        // Arrange
-        String payload = "{\"special\":\"!@#$%^&*()_+-=[]{}|;:',.<>?\"}";
-        String validSignature = computeExpectedSignature(payload, webhookSecret);
+        String payload = "{\"message\":\"Hello 世界 🌍\",\"padding\":\"" + "x".repeat(20000) + "\"}";
+        String signature = computeExpectedSignature(payload, webhookSecret);
+        InputStream trickle = new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public synchronized int read(byte[] b, int off, int len) {
+                return super.read(b, off, Math.min(len, 7));
+            }
+        };
 
         // Act
-        boolean result = securityService.verifyWebhookSignature(validSignature, payload);
+        WebhookBody body = securityService.readSignedWebhookBody(signature, trickle, -1);
 
         // Assert
-        assertTrue(result);
+        assertEquals(payload, body.asString());
     }
 
     @Test
-    void verifyWebhookSignature_WithUnicodeCharacters_ShouldWork() throws Exception {
+    void readSignedWebhookBody_WithInvalidSignature_ShouldThrowUnauthorized() throws Exception {
         // Arrange
-        String payload = "{\"message\":\"Hello 世界 🌍\"}";
-        String validSignature = computeExpectedSignature(payload, webhookSecret);
+        String signature = computeExpectedSignature("{\"paymentId\":\"pay_123\"}", webhookSecret);
+        byte[] tampered = "{\"paymentId\":\"pay_124\"}".getBytes(StandardCharsets.UTF_8);
 
-        // Act
-        boolean result = securityService.verifyWebhookSignature(validSignature, payload);
-
-        // Assert
-        assertTrue(result);
+        // Act & Assert
+        assertThrows(UnauthorizedException.class, () ->
+                securityService.readSignedWebhookBody(signature, new ByteArrayInputStream(tampered), tampered.length));
     }
 
     @Test
-    void verifyWebhookSignature_WithWhitespaceInPayload_ShouldBeExact() throws Exception {
+    void readSignedWebhookBody_WithMissingOrMalformedSignature_ShouldRejectWithoutReadingBody() {
         // Arrange
-        String payload1 = "{\"key\":\"value\"}";
-        String payload2 = "{ \"key\" : \"value\" }";
-        String signature1 = computeExpectedSignature(payload1, webhookSecret);
+        InputStream unread = new InputStream() {
+            @Override
+            public int read() {
+                throw new AssertionError("Body must not be read");
+            }
+        };
 
-        // Act
-        boolean result = securityService.verifyWebhookSignature(signature1, payload2);
-
-        // Assert
-        assertFalse(result, "Whitespace differences should cause signature mismatch");
+        // Act & Assert
+        assertThrows(UnauthorizedException.class, () -> securityService.readSignedWebhookBody(null, unread, 10));
+        assertThrows(UnauthorizedException.class, () -> securityService.readSignedWebhookBody("", unread, 10));
+        assertThrows(UnauthorizedException.class, () -> securityService.readSignedWebhookBody("not base64!!", unread, 10));
     }
 
     @Test
-    void verifyWebhookSignature_SamePayloadTwice_ShouldProduceSameSignature() throws Exception {
+    void readSignedWebhookBody_WithOversizedBody_ShouldThrowBadRequest() throws Exception {
         // Arrange
-        String payload = "{\"paymentId\":\"pay_123\"}";
-        String signature1 = computeExpectedSignature(payload, webhookSecret);
-        String signature2 = computeExpectedSignature(payload, webhookSecret);
-
-        // Act
-        boolean result1 = securityService.verifyWebhookSignature(signature1, payload);
-        boolean result2 = securityService.verifyWebhookSignature(signature2, payload);
+        ReflectionTestUtils.setField(securityService, "maxWebhookBodyBytes", 16);
+        String payload = "x".repeat(17);
+        String signature = computeExpectedSignature(payload, webhookSecret);
+        byte[] bytes = payload.getBytes(StandardCharsets.UTF_8);
 
-        // Assert
-        assertTrue(result1);
-        assertTrue(result2);
-        assertEquals(signature1, signature2, "Same payload should produce same signature");
+        // Act & Assert
+        assertThrows(BadRequestException.class, () ->
+                securityService.readSignedWebhookBody(signature, new ByteArrayInputStream(bytes), -1));
+        assertThrows(BadRequestException.class, () ->
+                securityService.readSignedWebhookBody(signature, new ByteArrayInputStream(bytes), 10));
     }
 
     @Test
-    void verifyWebhookSignature_WithInvalidBase64Signature_ShouldReturnFalse() {
+    void readSignedWebhookBody_WithBodyAtLimit_ShouldSucceed() throws Exception {
         // Arrange
-        String payload = "{\"paymentId\":\"pay_123\"}";
-        String invalidBase64 = "not-a-valid-base64-signature!!!";
+        ReflectionTestUtils.setField(securityService, "maxWebhookBodyBytes", 16);
+        String payload = "x".repeat(16);
+        String signature = computeExpectedSignature(payload, webhookSecret);
 
         // Act
-        boolean result = securityService.verifyWebhookSignature(invalidBase64, payload);
+        WebhookBody body = securityService.readSignedWebhookBody(signature,
+                new ByteArrayInputStream(payload.getBytes(StandardCharsets.UTF_8)), -1);
 
         // Assert
-        assertFalse(result);
+        assertEquals(payload, body.asString());
     }
 
     // ===== EDGE CASE AND SECURITY TESTS =====
 
     @Test
-    void isValidApiKey_MultipleCallsWithSameKey_ShouldBeConsistent() {
+    void authenticate_MultipleCallsWithSameKey_ShouldBeConsistent() {
         // Act
-        boolean result1 = securityService.isValidApiKey("api-key-1");
-        boolean result2 = securityService.isValidApiKey("api-key-1");
-        boolean result3 = securityService.isValidApiKey("api-key-1");
+        boolean result1 = securityService.authenticate("api-key-1").isPresent();
+        boolean result2 = securityService.authenticate("api-key-1").isPresent();
+        boolean result3 = securityService.authenticate("api-key-1").isPresent();
 
         // Assert
         assertTrue(result1);
@@ -357,102 +297,19 @@ class SecurityServiceTest {
     }
 
     @Test
-    void verifyWebhookSignature_MultipleCallsWithSameData_ShouldBeConsistent() throws Exception {
-        // Arrange
-        String payload = "{\"paymentId\":\"pay_123\"}";
-        String signature = computeExpectedSignature(payload, webhookSecret);
-
-        // Act
-        boolean result1 = securityService.verifyWebhookSignature(signature, payload);
-        boolean result2 = securityService.verifyWebhookSignature(signature, payload);
-        boolean result3 = securityService.verifyWebhookSignature(signature, payload);
-
-        // Assert
-        assertTrue(result1);
-        assertTrue(result2);
-        assertTrue(result3);
-    }
-
-    @Test
-    void isValidApiKey_WithVeryLongKey_ShouldWork() {
+    void authenticate_WithVeryLongKey_ShouldWork() {
         // Arrange
         String longKey = "a".repeat(1000);
         String[] keysWithLongKey = new String[]{longKey};
-        ReflectionTestUtils.setField(securityService, "validApiKeys", keysWithLongKey);
+        ReflectionTestUtils.setField(securityService, "apiKeyStore", new ApiKeyStore(keysWithLongKey, null));
 
         // Act
-        boolean result = securityService.isValidApiKey(longKey);
+        boolean result = securityService.authenticate(longKey).isPresent();
 
         // Assert
         assertTrue(result);
     }
 
-    @Test
-    void verifyWebhookSignature_WithJsonWithNewlines_ShouldWork() throws Exception {
-        // Arrange
-        String payload = "{\n  \"paymentId\": \"pay_123\",\n  \"status\": \"succeeded\"\n}";
-        String validSignature = computeExpectedSignature(payload, webhookSecret);
-
-        // Act
-        boolean result = securityService.verifyWebhookSignature(validSignature, payload);
-
-        // Assert
-        assertTrue(result);
-    }
-
-    @Test
-    void verifyWebhookSignature_TimingSafe_ShouldNotLeakInformation() throws Exception {
-        // This test documents that signature comparison should be timing-safe
-        // In production, consider using MessageDigest.isEqual() or similar
-        String payload = "{\"paymentId\":\"pay_123\"}";
-        String validSignature = computeExpectedSignature(payload, webhookSecret);
-        String almostValidSignature = validSignature.substring(0, validSignature.length() - 1) + "X";
-
-        // Act
-        long start1 = System.nanoTime();
-        boolean result1 = securityService.verifyWebhookSignature(validSignature, payload);
-        long duration1 = System.nanoTime() - start1;
-
-        long start2 = System.nanoTime();
-        boolean result2 = securityService.verifyWebhookSignature(almostValidSignature, payload);
-        long duration2 = System.nanoTime() - start2;
-
-        // Assert
-        assertTrue(result1);
-        assertFalse(result2);
-        // Note: String.equals() is not timing-safe, but this test documents the behavior
-    }
-
-    @Test
-    void verifyWebhookSignature_WithInvalidSecretCausingException_ShouldReturnFalse() {
-        // Arrange - Set a secret that contains invalid characters or is null
-        // This should trigger an exception in the HMAC computation
-        ReflectionTestUtils.setField(securityService, "webhookSecret", null);
-        String payload = "{\"paymentId\":\"pay_123\"}";
-        String signature = "any-signature";
-
-        // Act
-        boolean result = securityService.verifyWebhookSignature(signature, payload);
-
-        // Assert
-        assertFalse(result, "Should return false when exception occurs during signature computation");
-    }
-
-    @Test
-    void verifyWebhookSignature_WithUnexpectedException_ShouldReturnFalse() {
-        // Arrange - This test ensures the catch block is covered
-        // Setting webhookSecret to null will cause NullPointerException in getBytes()
-        ReflectionTestUtils.setField(securityService, "webhookSecret", null);
-        String payload = "test-payload";
-        String signature = "test-signature";
-
-        // Act
-        boolean result = securityService.verifyWebhookSignature(signature, payload);
-
-        // Assert
-        assertFalse(result, "Should catch exception and return false");
-    }
-
     // ===== HELPER METHODS =====
 
     /**
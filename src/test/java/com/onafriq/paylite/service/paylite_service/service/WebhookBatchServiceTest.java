@@ -0,0 +1,211 @@
+package com.onafriq.paylite.service.paylite_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.cache.RecentWebhookEventCache;
+import com.onafriq.paylite.service.paylite_service.dto.BatchWebhookResponse;
+import com.onafriq.paylite.service.paylite_service.dto.BatchWebhookResult;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookBody;
+import com.onafriq.paylite.service.paylite_service.entity.WebhookEvent;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookEventOutcome;
+import com.onafriq.paylite.service.paylite_service.exception.BadRequestException;
+import com.onafriq.paylite.service.paylite_service.exception.InvalidWebhookPayloadException;
+import com.onafriq.paylite.service.paylite_service.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookBatchServiceTest {
+
+    @Mock
+    private WebhookEventRepository webhookEventRepository;
+
+    @Mock
+    private PaymentService paymentService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RecentWebhookEventCache recentWebhookEvents;
+    private WebhookBatchService webhookBatchService;
+
+    @BeforeEach
+    void setUp() {
+        recentWebhookEvents = new RecentWebhookEventCache(1000, Duration.ofHours(1), new SimpleMeterRegistry());
+        webhookBatchService = new WebhookBatchService(webhookEventRepository, paymentService, recentWebhookEvents,
+                new ObjectMapper(), new TransactionTemplate(transactionManager), 5, 2);
+    }
+
+    @Test
+    void processBatch_ShouldApplyTransitionsAndInsertEvents() {
+        // Arrange
+        WebhookBody body = batch(event("e1", "pl_1", "payment.succeeded"), event("e2", "pl_2", "payment.failed"));
+        when(paymentService.applyWebhookTransitions(Map.of("pl_1", "SUCCEEDED", "pl_2", "FAILED")))
+                .thenReturn(Map.of("pl_1", WebhookEventOutcome.APPLIED, "pl_2", WebhookEventOutcome.ALREADY_FINAL));
+
+        // Act
+        BatchWebhookResponse response = webhookBatchService.processBatch(body);
+
+        // Assert
+        assertOutcomes(response, WebhookEventOutcome.APPLIED, WebhookEventOutcome.ALREADY_FINAL);
+        verify(webhookEventRepository).findByEventIdIn(List.of("psp_e1", "psp_e2"));
+        List<WebhookEvent> saved = captureSavedEvents().get(0);
+        assertEquals(List.of("psp_e1", "psp_e2"), saved.stream().map(WebhookEvent::getEventId).toList());
+        assertTrue(recentWebhookEvents.findPayload("psp_e1", "pl_1", "payment.succeeded").isPresent());
+    }
+
+    @Test
+    void processBatch_ShouldUseOneTransactionPerChunk() {
+        // Arrange
+        WebhookBody body = batch(event("e1", "pl_1", "payment.succeeded"), event("e2", "pl_2", "payment.succeeded"),
+                event("e3", "pl_3", "payment.succeeded"));
+        when(paymentService.applyWebhookTransitions(anyMap())).thenAnswer(invocation -> {
+            Map<String, String> targets = invocation.getArgument(0);
+            return targets.keySet().stream().collect(java.util.stream.Collectors.toMap(id -> id, id -> WebhookEventOutcome.APPLIED));
+        });
+
+        // Act
+        BatchWebhookResponse response = webhookBatchService.processBatch(body);
+
+        // Assert
+        assertOutcomes(response, WebhookEventOutcome.APPLIED, WebhookEventOutcome.APPLIED, WebhookEventOutcome.APPLIED);
+        verify(transactionManager, times(2)).commit(any());
+        verify(webhookEventRepository, times(2)).findByEventIdIn(anyCollection());
+        assertEquals(List.of(2, 1), captureSavedEvents().stream().map(List::size).toList());
+    }
+
+    @Test
+    void processBatch_WithRecordedEventIds_ShouldReportDuplicateOrConflict() {
+        // Arrange
+        WebhookBody body = batch(event("e1", "pl_1", "payment.succeeded"), event("e2", "pl_2", "payment.succeeded"));
+        when(webhookEventRepository.findByEventIdIn(anyCollection())).thenReturn(List.of(
+                stored("psp_e1", "{\"eventId\":\"e1\",\"paymentId\":\"pl_1\",\"event\":\"payment.succeeded\"}"),
+                stored("psp_e2", "{\"eventId\":\"e2\",\"paymentId\":\"pl_9\",\"event\":\"payment.succeeded\"}")));
+
+        // Act
+        BatchWebhookResponse response = webhookBatchService.processBatch(body);
+
+        // Assert
+        assertOutcomes(response, WebhookEventOutcome.DUPLICATE, WebhookEventOutcome.CONFLICT);
+        verifyNoInteractions(paymentService);
+        verify(webhookEventRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    void processBatch_WithTwoEventsForOnePayment_ShouldApplyOnlyTheFirst() {
+        // Arrange
+        WebhookBody body = batch(event("e1", "pl_1", "payment.failed"), event("e2", "pl_1", "payment.succeeded"));
+        when(paymentService.applyWebhookTransitions(Map.of("pl_1", "FAILED")))
+                .thenReturn(Map.of("pl_1", WebhookEventOutcome.APPLIED));
+
+        // Act
+        BatchWebhookResponse response = webhookBatchService.processBatch(body);
+
+        // Assert
+        assertOutcomes(response, WebhookEventOutcome.APPLIED, WebhookEventOutcome.ALREADY_FINAL);
+        assertEquals(2, captureSavedEvents().get(0).size());
+    }
+
+    @Test
+    void processBatch_WithRepeatedEventIdInBatch_ShouldReportDuplicate() {
+        // Arrange
+        String event = event("e1", "pl_1", "payment.succeeded");
+        WebhookBody body = batch(event, event);
+        when(paymentService.applyWebhookTransitions(Map.of("pl_1", "SUCCEEDED")))
+                .thenReturn(Map.of("pl_1", WebhookEventOutcome.APPLIED));
+
+        // Act
+        BatchWebhookResponse response = webhookBatchService.processBatch(body);
+
+        // Assert
+        assertOutcomes(response, WebhookEventOutcome.APPLIED, WebhookEventOutcome.DUPLICATE);
+        assertEquals(1, captureSavedEvents().get(0).size());
+    }
+
+    @Test
+    void processBatch_WithInvalidAndUnknownEvents_ShouldReportPerEvent() {
+        // Arrange
+        WebhookBody body = batch(event("e1", "pl_1", "payment.refunded"), "{\"paymentId\":\"pl_2\",\"event\":\"payment.failed\"}",
+                event("e3", "pl_missing", "payment.failed"));
+        when(paymentService.applyWebhookTransitions(Map.of("pl_missing", "FAILED")))
+                .thenReturn(Map.of("pl_missing", WebhookEventOutcome.NOT_FOUND));
+
+        // Act
+        BatchWebhookResponse response = webhookBatchService.processBatch(body);
+
+        // Assert
+        assertOutcomes(response, WebhookEventOutcome.INVALID, WebhookEventOutcome.INVALID, WebhookEventOutcome.NOT_FOUND);
+        assertEquals("eventId is required", response.getResults().get(1).getError());
+    }
+
+    @Test
+    void processBatch_WithTooManyEvents_ShouldThrowBadRequestBeforeApplyingAny() {
+        // Arrange
+        WebhookBody body = batch(event("e1", "pl_1", "payment.succeeded"), event("e2", "pl_2", "payment.succeeded"),
+                event("e3", "pl_3", "payment.succeeded"), event("e4", "pl_4", "payment.succeeded"),
+                event("e5", "pl_5", "payment.succeeded"), event("e6", "pl_6", "payment.succeeded"));
+
+        // Act & Assert
+        assertThrows(BadRequestException.class, () -> webhookBatchService.processBatch(body));
+        verifyNoInteractions(paymentService, webhookEventRepository);
+    }
+
+    @Test
+    void processBatch_WithMalformedBody_ShouldThrowInvalidPayload() {
+        assertThrows(InvalidWebhookPayloadException.class, () -> webhookBatchService.processBatch(body("{\"events\":[{")));
+        assertThrows(InvalidWebhookPayloadException.class, () -> webhookBatchService.processBatch(body("[]")));
+        assertThrows(InvalidWebhookPayloadException.class, () -> webhookBatchService.processBatch(body("{\"other\":1}")));
+        verifyNoInteractions(paymentService);
+    }
+
+    @Test
+    void parseEvents_ShouldSkipUnknownFields() {
+        List<?> events = webhookBatchService.parseEvents(body(
+                "{\"batchId\":\"b1\",\"meta\":{\"n\":[1,2]},\"events\":[" + event("e1", "pl_1", "payment.failed") + "]}"));
+
+        assertEquals(1, events.size());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<List<WebhookEvent>> captureSavedEvents() {
+        ArgumentCaptor<List<WebhookEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(webhookEventRepository, atLeastOnce()).saveAll(captor.capture());
+        return captor.getAllValues();
+    }
+
+    private static void assertOutcomes(BatchWebhookResponse response, WebhookEventOutcome... expected) {
+        assertEquals(List.of(expected), response.getResults().stream().map(BatchWebhookResult::getOutcome).toList());
+    }
+
+    private static WebhookEvent stored(String eventId, String rawPayload) {
+        return WebhookEvent.builder().eventId(eventId).rawPayload(rawPayload).build();
+    }
+
+    private static String event(String eventId, String paymentId, String event) {
+        return String.format("{\"eventId\":\"%s\",\"paymentId\":\"%s\",\"event\":\"%s\"}", eventId, paymentId, event);
+    }
+
+    private static WebhookBody batch(String... events) {
+        return body("{\"events\":[" + String.join(",", events) + "]}");
+    }
+
+    private static WebhookBody body(String json) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        return new WebhookBody(bytes, bytes.length);
+    }
+}
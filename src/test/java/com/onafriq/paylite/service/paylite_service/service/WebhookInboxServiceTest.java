@@ -0,0 +1,204 @@
+package com.onafriq.paylite.service.paylite_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.onafriq.paylite.service.paylite_service.dto.WebhookRequest;
+import com.onafriq.paylite.service.paylite_service.entity.WebhookInboxEntry;
+import com.onafriq.paylite.service.paylite_service.enums.WebhookInboxStatus;
+import com.onafriq.paylite.service.paylite_service.exception.PaymentNotFoundException;
+import com.onafriq.paylite.service.paylite_service.exception.WebhookConflictException;
+import com.onafriq.paylite.service.paylite_service.repository.WebhookInboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WebhookInboxServiceTest {
+
+    private static final Instant NOW = Instant.parse("2025-06-15T12:00:00Z");
+    private static final LocalDateTime NOW_LOCAL = LocalDateTime.ofInstant(NOW, ZoneOffset.UTC);
+    private static final String RAW_BODY = "{\"paymentId\":\"pl_1\",\"event\":\"payment.succeeded\"}";
+
+    @Mock
+    private WebhookInboxRepository webhookInboxRepository;
+
+    @Mock
+    private WebhookService webhookService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private WebhookInboxService webhookInboxService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        webhookInboxService = new WebhookInboxService(webhookInboxRepository, webhookService, new ObjectMapper(),
+                new TransactionTemplate(transactionManager), meterRegistry, Clock.fixed(NOW, ZoneOffset.UTC),
+                3, Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofMinutes(5), 2);
+    }
+
+    @Test
+    void enqueue_ShouldSavePendingEntryDueNow() {
+        // Act
+        webhookInboxService.enqueue(RAW_BODY, "req-1");
+
+        // Assert
+        ArgumentCaptor<WebhookInboxEntry> captor = ArgumentCaptor.forClass(WebhookInboxEntry.class);
+        verify(webhookInboxRepository).save(captor.capture());
+        WebhookInboxEntry entry = captor.getValue();
+        assertEquals(WebhookInboxStatus.PENDING, entry.getStatus());
+        assertEquals("req-1", entry.getPspRequestId());
+        assertEquals(RAW_BODY, entry.getRawPayload());
+        assertEquals(NOW_LOCAL, entry.getNextAttemptAt());
+    }
+
+    @Test
+    void isOverloaded_ShouldReflectBacklogFromLastRefresh() {
+        // Arrange
+        when(webhookInboxRepository.countByStatusIn(anyCollection())).thenReturn(1L, 2L);
+
+        // Act & Assert
+        webhookInboxService.refreshBacklog();
+        assertFalse(webhookInboxService.isOverloaded());
+        webhookInboxService.refreshBacklog();
+        assertTrue(webhookInboxService.isOverloaded());
+        assertEquals(2.0, meterRegistry.get("paylite.webhook.inbox.backlog").gauge().value());
+    }
+
+    @Test
+    void claim_ShouldLeaseEntryUntilLeaseEnds() {
+        // Arrange
+        when(webhookInboxRepository.claim(eq(7L), anyCollection(), eq(WebhookInboxStatus.PROCESSING),
+                eq(NOW_LOCAL), eq(NOW_LOCAL.plusMinutes(5)))).thenReturn(1);
+
+        // Act & Assert
+        assertTrue(webhookInboxService.claim(7L));
+    }
+
+    @Test
+    void claim_WhenAlreadyClaimed_ShouldReturnFalse() {
+        // Arrange
+        when(webhookInboxRepository.claim(anyLong(), anyCollection(), any(), any(), any())).thenReturn(0);
+
+        // Act & Assert
+        assertFalse(webhookInboxService.claim(7L));
+    }
+
+    @Test
+    void process_OnSuccess_ShouldDeleteEntry() {
+        // Arrange
+        when(webhookInboxRepository.findById(7L)).thenReturn(Optional.of(entry(0)));
+
+        // Act
+        webhookInboxService.process(7L);
+
+        // Assert
+        verify(webhookService).processWebhook(new WebhookRequest("pl_1", "payment.succeeded"), RAW_BODY, "req-1");
+        verify(webhookInboxRepository).deleteById(7L);
+        assertEquals(1.0, meterRegistry.get("paylite.webhook.inbox.processed").tag("outcome", "done").counter().count());
+    }
+
+    @Test
+    void process_OnTransientFailure_ShouldRescheduleWithBackoff() {
+        // Arrange
+        WebhookInboxEntry entry = entry(1);
+        when(webhookInboxRepository.findById(7L)).thenReturn(Optional.of(entry));
+        doThrow(new PaymentNotFoundException("Payment with ID 'pl_1' not found"))
+                .when(webhookService).processWebhook(any(WebhookRequest.class), anyString(), anyString());
+
+        // Act
+        webhookInboxService.process(7L);
+
+        // Assert
+        verify(webhookInboxRepository).save(entry);
+        verify(webhookInboxRepository, never()).deleteById(any());
+        assertEquals(WebhookInboxStatus.PENDING, entry.getStatus());
+        assertEquals(2, entry.getAttempts());
+        assertEquals(NOW_LOCAL.plusSeconds(4), entry.getNextAttemptAt());
+        assertTrue(entry.getLastError().contains("PaymentNotFoundException"));
+    }
+
+    @Test
+    void process_AfterMaxAttempts_ShouldMarkDead() {
+        // Arrange
+        WebhookInboxEntry entry = entry(2);
+        when(webhookInboxRepository.findById(7L)).thenReturn(Optional.of(entry));
+        doThrow(new PaymentNotFoundException("Payment with ID 'pl_1' not found"))
+                .when(webhookService).processWebhook(any(WebhookRequest.class), anyString(), anyString());
+
+        // Act
+        webhookInboxService.process(7L);
+
+        // Assert
+        assertEquals(WebhookInboxStatus.DEAD, entry.getStatus());
+        assertEquals(1.0, meterRegistry.get("paylite.webhook.inbox.processed").tag("outcome", "dead").counter().count());
+    }
+
+    @Test
+    void process_OnConflict_ShouldMarkDeadWithoutRetry() {
+        // Arrange
+        WebhookInboxEntry entry = entry(0);
+        when(webhookInboxRepository.findById(7L)).thenReturn(Optional.of(entry));
+        doThrow(new WebhookConflictException("Duplicate webhook with different payload for payment: pl_1"))
+                .when(webhookService).processWebhook(any(WebhookRequest.class), anyString(), anyString());
+
+        // Act
+        webhookInboxService.process(7L);
+
+        // Assert
+        assertEquals(WebhookInboxStatus.DEAD, entry.getStatus());
+        assertEquals(1, entry.getAttempts());
+    }
+
+    @Test
+    void process_WithMalformedPayload_ShouldMarkDead() {
+        // Arrange
+        WebhookInboxEntry entry = entry(0);
+        entry.setRawPayload("{not json");
+        when(webhookInboxRepository.findById(7L)).thenReturn(Optional.of(entry));
+
+        // Act
+        webhookInboxService.process(7L);
+
+        // Assert
+        assertEquals(WebhookInboxStatus.DEAD, entry.getStatus());
+        verifyNoInteractions(webhookService);
+    }
+
+    @Test
+    void backoff_ShouldDoubleUpToMax() {
+        assertEquals(Duration.ofSeconds(2), webhookInboxService.backoff(1));
+        assertEquals(Duration.ofSeconds(4), webhookInboxService.backoff(2));
+        assertEquals(Duration.ofSeconds(5), webhookInboxService.backoff(3));
+        assertEquals(Duration.ofSeconds(5), webhookInboxService.backoff(40));
+    }
+
+    private static WebhookInboxEntry entry(int attempts) {
+        return WebhookInboxEntry.builder()
+                .id(7L)
+                .pspRequestId("req-1")
+                .rawPayload(RAW_BODY)
+                .status(WebhookInboxStatus.PROCESSING)
+                .attempts(attempts)
+                .nextAttemptAt(NOW_LOCAL.plusMinutes(5))
+                .build();
+    }
+}
@@ -1,18 +1,24 @@
 package com.onafriq.paylite.service.paylite_service.service;
 
+import com.onafriq.paylite.service.paylite_service.cache.RecentWebhookEventCache;
+import com.onafriq.paylite.service.paylite_service.concurrency.PaymentLaneExecutor;
 import com.onafriq.paylite.service.paylite_service.dto.WebhookRequest;
 import com.onafriq.paylite.service.paylite_service.entity.WebhookEvent;
 import com.onafriq.paylite.service.paylite_service.exception.WebhookConflictException;
 import com.onafriq.paylite.service.paylite_service.repository.WebhookEventRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -26,10 +32,15 @@ class WebhookServiceTest {
     @Mock
     private WebhookEventRepository webhookEventRepository;
 
+    @Mock
+    private PaymentLaneExecutor paymentLaneExecutor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @Mock
     private HttpServletRequest httpServletRequest;
 
-    @InjectMocks
     private WebhookService webhookService;
 
     @Captor
@@ -44,6 +55,13 @@ class WebhookServiceTest {
 
     @BeforeEach
     void setUp() {
+        webhookService = new WebhookService(paymentService, webhookEventRepository, paymentLaneExecutor,
+                new RecentWebhookEventCache(1000, Duration.ofHours(1), new SimpleMeterRegistry()), transactionManager);
+        lenient().doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(paymentLaneExecutor).run(anyString(), any(Runnable.class));
+
         webhookRequest = new WebhookRequest();
         webhookRequest.setPaymentId(PAYMENT_ID);
         webhookRequest.setEvent(EVENT_SUCCEEDED);
@@ -54,8 +72,7 @@ class WebhookServiceTest {
     // ======== HELPER METHODS ========
     private void setupNonDuplicateWebhook(String requestId) {
         when(httpServletRequest.getHeader("X-Request-Id")).thenReturn(requestId);
-        when(webhookEventRepository.findByPaymentId(anyString())).thenReturn(null);
-        when(webhookEventRepository.findByPaymentIdAndEventType(anyString(), anyString())).thenReturn(null);
+        when(webhookEventRepository.findDuplicates(any(), anyString(), anyString())).thenReturn(List.of());
         doNothing().when(paymentService).processWebhook(anyString(), anyString());
     }
 
@@ -66,7 +83,7 @@ class WebhookServiceTest {
                 .rawPayload(rawBody)
                 .eventId("existing-event-001")
                 .build();
-        when(webhookEventRepository.findByPaymentId(PAYMENT_ID)).thenReturn(duplicate);
+        when(webhookEventRepository.findDuplicates(any(), eq(PAYMENT_ID), eq(EVENT_SUCCEEDED))).thenReturn(List.of(duplicate));
     }
 
     private void setupDuplicateWebhookDifferentPayload() {
@@ -76,7 +93,7 @@ class WebhookServiceTest {
                 .rawPayload("{\"different\":\"payload\"}")
                 .eventId("existing-event-002")
                 .build();
-        when(webhookEventRepository.findByPaymentId(PAYMENT_ID)).thenReturn(duplicate);
+        when(webhookEventRepository.findDuplicates(any(), eq(PAYMENT_ID), eq(EVENT_SUCCEEDED))).thenReturn(List.of(duplicate));
     }
 
     private void assertSavedWebhookEvent(String expectedEventId, String expectedPaymentId, String expectedEventType, String expectedPayload) {
@@ -201,8 +218,7 @@ class WebhookServiceTest {
 
         webhookService.processWebhook(webhookRequest, rawBody, httpServletRequest);
 
-        verify(webhookEventRepository).findByPaymentId(PAYMENT_ID);
-        verify(webhookEventRepository).findByPaymentIdAndEventType(PAYMENT_ID, EVENT_SUCCEEDED);
+        verify(webhookEventRepository).findDuplicates("psp_" + requestId, PAYMENT_ID, EVENT_SUCCEEDED);
         verify(paymentService).processWebhook(PAYMENT_ID, EVENT_SUCCEEDED);
         verify(webhookEventRepository).save(any(WebhookEvent.class));
     }
@@ -212,8 +228,7 @@ class WebhookServiceTest {
         when(httpServletRequest.getHeader("X-Request-Id"))
                 .thenReturn("req-001")
                 .thenReturn("req-002");
-        when(webhookEventRepository.findByPaymentId(anyString())).thenReturn(null);
-        when(webhookEventRepository.findByPaymentIdAndEventType(anyString(), anyString())).thenReturn(null);
+        when(webhookEventRepository.findDuplicates(any(), anyString(), anyString())).thenReturn(List.of());
         doNothing().when(paymentService).processWebhook(anyString(), anyString());
 
         // First webhook
@@ -230,33 +245,59 @@ class WebhookServiceTest {
         verify(webhookEventRepository, times(2)).save(any(WebhookEvent.class));
     }
 
-    // ======== IS DUPLICATE WEBHOOK TESTS ========
+    // ======== DUPLICATE DETECTION TESTS ========
     @Test
-    void isDuplicateWebhook_WithNoExistingRecord_ShouldReturnFalse() {
-        when(webhookEventRepository.existsByPaymentId(anyString())).thenReturn(false);
-        when(webhookEventRepository.existsByPaymentIdAndEventType(anyString(), anyString())).thenReturn(false);
+    void processWebhook_WithoutRequestIdHeader_ShouldLookUpByBusinessKeyOnly() {
+        setupNonDuplicateWebhook(null);
 
-        boolean result = webhookService.isDuplicateWebhook("event-123", PAYMENT_ID, EVENT_SUCCEEDED);
+        webhookService.processWebhook(webhookRequest, rawBody, httpServletRequest);
 
-        assertFalse(result);
+        verify(webhookEventRepository).findDuplicates(null, PAYMENT_ID, EVENT_SUCCEEDED);
     }
 
     @Test
-    void isDuplicateWebhook_WithExistingPaymentId_ShouldReturnTrue() {
-        when(webhookEventRepository.existsByPaymentId(PAYMENT_ID)).thenReturn(true);
+    void processWebhook_WithRecentDuplicate_ShouldNotTouchDatabaseOrLane() {
+        setupNonDuplicateWebhook("req-001");
+        webhookService.processWebhook(webhookRequest, rawBody, httpServletRequest);
 
-        boolean result = webhookService.isDuplicateWebhook("event-123", PAYMENT_ID, EVENT_SUCCEEDED);
+        webhookService.processWebhook(webhookRequest, rawBody, "req-001");
 
-        assertTrue(result);
+        verify(webhookEventRepository, times(1)).findDuplicates(any(), anyString(), anyString());
+        verify(paymentLaneExecutor, times(1)).run(anyString(), any(Runnable.class));
+        verify(paymentService, times(1)).processWebhook(PAYMENT_ID, EVENT_SUCCEEDED);
     }
 
     @Test
-    void isDuplicateWebhook_WithExistingBusinessKey_ShouldReturnTrue() {
-        when(webhookEventRepository.existsByPaymentId(PAYMENT_ID)).thenReturn(false);
-        when(webhookEventRepository.existsByPaymentIdAndEventType(PAYMENT_ID, EVENT_SUCCEEDED)).thenReturn(true);
+    void processWebhook_WithRecentDuplicateDifferentPayload_ShouldThrowConflict() {
+        setupNonDuplicateWebhook("req-001");
+        webhookService.processWebhook(webhookRequest, rawBody, httpServletRequest);
 
-        boolean result = webhookService.isDuplicateWebhook("event-123", PAYMENT_ID, EVENT_SUCCEEDED);
+        assertThrows(WebhookConflictException.class,
+                () -> webhookService.processWebhook(webhookRequest, "{\"different\":\"payload\"}", "req-002"));
 
-        assertTrue(result);
+        verify(paymentService, times(1)).processWebhook(anyString(), anyString());
+    }
+
+    @Test
+    void processWebhook_WithSameRequestIdForOtherEvent_ShouldPreferEventIdMatch() {
+        WebhookEvent sameRequestId = WebhookEvent.builder()
+                .eventId("psp_req-001")
+                .paymentId("payment-999")
+                .eventType(EVENT_FAILED)
+                .rawPayload("{\"paymentId\":\"payment-999\",\"event\":\"payment.failed\"}")
+                .build();
+        WebhookEvent sameBusinessKey = WebhookEvent.builder()
+                .eventId("psp_req-000")
+                .paymentId(PAYMENT_ID)
+                .eventType(EVENT_SUCCEEDED)
+                .rawPayload(rawBody)
+                .build();
+        when(webhookEventRepository.findDuplicates("psp_req-001", PAYMENT_ID, EVENT_SUCCEEDED))
+                .thenReturn(List.of(sameBusinessKey, sameRequestId));
+
+        assertThrows(WebhookConflictException.class,
+                () -> webhookService.processWebhook(webhookRequest, rawBody, "req-001"));
+
+        verify(paymentService, never()).processWebhook(anyString(), anyString());
     }
 }